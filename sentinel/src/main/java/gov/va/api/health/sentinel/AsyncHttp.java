@@ -0,0 +1,160 @@
+package gov.va.api.health.sentinel;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+import org.apache.http.conn.ssl.TrustAllStrategy;
+import org.apache.http.ssl.SSLContextBuilder;
+
+/**
+ * Sends requests to a service with the JDK {@link HttpClient}, which does not hold a thread while
+ * waiting for a response and multiplexes requests over HTTP/2 when the server supports it.
+ * Responses are converted to Rest Assured responses so they can be used the same way as those from
+ * {@link ServiceDefinition#requestSpecification()}.
+ *
+ * <p>When the definition uses relaxed HTTPS validation, any certificate chain is trusted, as with
+ * the request specification. Unlike Rest Assured, the JDK client still verifies that the host name
+ * matches the certificate. It can only be turned off for the whole JVM, with the {@code
+ * -Djdk.internal.httpclient.disableHostnameVerification} system property, so it is left to the
+ * command line.
+ */
+@UtilityClass
+final class AsyncHttp {
+  private static final Pattern PATH_PARAMETER = Pattern.compile("\\{[^}]*}");
+
+  private static final String URI_CHARACTERS = "-._~:/?#[]@!$&'()*+,;=%";
+
+  private static final Duration TIMEOUT = Duration.ofMinutes(5);
+
+  private static final HttpClient RELAXED_CLIENT = createClient(true);
+
+  private static final HttpClient CLIENT = createClient(false);
+
+  @SneakyThrows
+  private static HttpClient createClient(boolean trustAll) {
+    HttpClient.Builder client =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(30));
+    if (trustAll) {
+      client.sslContext(
+          SSLContextBuilder.create().loadTrustMaterial(new TrustAllStrategy()).build());
+    }
+    return client.build();
+  }
+
+  /** Quote characters that are not legal in a URI, leaving reserved characters such as ? and &. */
+  private static String quote(String literal) {
+    StringBuilder quoted = new StringBuilder(literal.length());
+    for (byte b : literal.getBytes(StandardCharsets.UTF_8)) {
+      char c = (char) (b & 0xff);
+      if (c < 0x80 && (Character.isLetterOrDigit(c) || URI_CHARACTERS.indexOf(c) >= 0)) {
+        quoted.append(c);
+      } else {
+        quoted.append('%').append(String.format("%02X", b & 0xff));
+      }
+    }
+    return quoted.toString();
+  }
+
+  /** Send a GET request with the content type as both the Content-Type and Accept headers. */
+  static CompletableFuture<Response> get(
+      ServiceDefinition service,
+      Map<String, String> headers,
+      String contentType,
+      String path,
+      Object[] params) {
+    HttpRequest.Builder request =
+        HttpRequest.newBuilder(uri(service, path, params))
+            .timeout(TIMEOUT)
+            .header("Content-Type", contentType)
+            .header("Accept", contentType)
+            .GET();
+    Optional<String> token = service.accessToken().get();
+    token.ifPresent(t -> request.header("Authorization", "Bearer " + t));
+    if (headers != null) {
+      headers.forEach(request::setHeader);
+    }
+    return (service.relaxedHttpsValidation() ? RELAXED_CLIENT : CLIENT)
+        .sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray())
+        .thenApply(AsyncHttp::toResponse);
+  }
+
+  private static Response toResponse(HttpResponse<byte[]> response) {
+    List<Header> headers = new ArrayList<>();
+    response
+        .headers()
+        .map()
+        .forEach((name, values) -> values.forEach(v -> headers.add(new Header(name, v))));
+    ResponseBuilder builder =
+        new ResponseBuilder()
+            .setStatusCode(response.statusCode())
+            .setStatusLine(response.version() + " " + response.statusCode())
+            .setHeaders(new Headers(headers))
+            .setBody(response.body());
+    response.headers().firstValue("Content-Type").ifPresent(builder::setContentType);
+    return builder.build();
+  }
+
+  /**
+   * Resolve the path against the service URL and port, as Rest Assured does. Path parameters, e.g.
+   * {@code Patient/{id}}, are replaced with the parameters in order and encoded.
+   */
+  static URI uri(ServiceDefinition service, String path, Object[] params) {
+    StringBuilder expanded = new StringBuilder();
+    Matcher matcher = PATH_PARAMETER.matcher(path);
+    int literalStart = 0;
+    int param = 0;
+    while (matcher.find()) {
+      if (params == null || param >= params.length) {
+        throw new IllegalArgumentException(
+            "Missing parameter for " + matcher.group() + " in " + path);
+      }
+      expanded.append(quote(path.substring(literalStart, matcher.start())));
+      expanded.append(
+          URLEncoder.encode(String.valueOf(params[param++]), StandardCharsets.UTF_8)
+              .replace("+", "%20"));
+      literalStart = matcher.end();
+    }
+    expanded.append(quote(path.substring(literalStart)));
+    try {
+      URI base = new URI(service.url());
+      String basePath = base.getRawPath() == null ? "" : base.getRawPath();
+      String origin =
+          new URI(
+                  base.getScheme(),
+                  base.getRawUserInfo(),
+                  base.getHost(),
+                  service.port() > 0 ? service.port() : base.getPort(),
+                  null,
+                  null,
+                  null)
+              .toString();
+      return URI.create(
+          origin
+              + (basePath.endsWith("/") ? basePath : basePath + "/")
+              + (expanded.indexOf("/") == 0 ? expanded.substring(1) : expanded));
+    } catch (URISyntaxException e) {
+      throw new IllegalArgumentException("Invalid URL for " + service.url() + " " + path, e);
+    }
+  }
+}
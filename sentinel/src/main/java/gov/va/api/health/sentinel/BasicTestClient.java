@@ -23,6 +23,9 @@ public final class BasicTestClient implements TestClient {
   /** For post requests, this mapper will be used to convert the object to JSON or XML. */
   Supplier<ObjectMapper> mapper;
 
+  /** Records the latency of each request. */
+  @Builder.Default LatencyRecorder latencies = LatencyRecorder.global();
+
   @Override
   public ExpectedResponse get(String path, String... params) {
     return get(null, path, params);
@@ -31,12 +34,15 @@ public final class BasicTestClient implements TestClient {
   @Override
   public ExpectedResponse get(Map<String, String> maybeHeaders, String path, String... params) {
     return ExpectedResponse.of(
-        service()
-            .requestSpecification()
-            .contentType(contentType())
-            .headers(maybeHeaders == null ? Collections.emptyMap() : maybeHeaders)
-            .request()
-            .request(Method.GET, path, (Object[]) params));
+        latencies.time(
+            LatencyRecorder.template("GET", path),
+            () ->
+                service()
+                    .requestSpecification()
+                    .contentType(contentType())
+                    .headers(maybeHeaders == null ? Collections.emptyMap() : maybeHeaders)
+                    .request()
+                    .request(Method.GET, path, (Object[]) params)));
   }
 
   @Override
@@ -47,12 +53,16 @@ public final class BasicTestClient implements TestClient {
   @Override
   public ExpectedResponse post(Map<String, String> maybeHeaders, String path, Object body) {
     try {
+      String json = mapper.get().writeValueAsString(body);
       return ExpectedResponse.of(
-          service()
-              .requestSpecification()
-              .headers(maybeHeaders == null ? Collections.emptyMap() : maybeHeaders)
-              .body(mapper.get().writeValueAsString(body))
-              .request(Method.POST, path));
+          latencies.time(
+              LatencyRecorder.template("POST", path),
+              () ->
+                  service()
+                      .requestSpecification()
+                      .headers(maybeHeaders == null ? Collections.emptyMap() : maybeHeaders)
+                      .body(json)
+                      .request(Method.POST, path)));
     } catch (JsonProcessingException e) {
       throw new AssertionError("Failed to convert body to JSON", e);
     }
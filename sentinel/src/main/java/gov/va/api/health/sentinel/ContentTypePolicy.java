@@ -0,0 +1,152 @@
+package gov.va.api.health.sentinel;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongPredicate;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decides which requests to an endpoint template, e.g. {@code GET Patient/{id}}, are also made with
+ * each FHIR content type and compared with the application/json response. Requests that are not
+ * checked are made once, with application/json.
+ *
+ * <ul>
+ *   <li>{@link #all()} checks every request.
+ *   <li>{@link #sampled(int)} checks the first and then 1 in N requests to each template.
+ *   <li>{@link #firstSeen()} checks only the first request to each template.
+ * </ul>
+ *
+ * <p>The {@link #global()} policy is used by test clients. It is chosen with the {@code
+ * sentinel.content-types} system property: {@code all} (default), {@code first-seen}, or a number N
+ * to sample 1 in N requests. When the JVM exits, it logs how many requests to each template were
+ * checked.
+ */
+@Slf4j
+public final class ContentTypePolicy {
+  private static final ContentTypePolicy GLOBAL =
+      reportingOnExit(fromProperty("sentinel.content-types"));
+
+  private final String name;
+
+  private final LongPredicate checkRequest;
+
+  private final Map<String, Counts> templates = new ConcurrentHashMap<>();
+
+  private final ExitReport exitReport;
+
+  private ContentTypePolicy(String name, LongPredicate checkRequest, boolean reportOnExit) {
+    this.name = name;
+    this.checkRequest = checkRequest;
+    exitReport =
+        reportOnExit ? ExitReport.of("sentinel-coverage", this::reportOnExit) : ExitReport.none();
+  }
+
+  /** Check every request. */
+  public static ContentTypePolicy all() {
+    return new ContentTypePolicy("all", n -> true, false);
+  }
+
+  /** Check only the first request to each template. */
+  public static ContentTypePolicy firstSeen() {
+    return new ContentTypePolicy("first-seen", n -> n == 0, false);
+  }
+
+  private static ContentTypePolicy fromProperty(String property) {
+    String value = System.getProperty(property);
+    if (isBlank(value) || "all".equals(value.trim())) {
+      return all();
+    }
+    if ("first-seen".equals(value.trim())) {
+      return firstSeen();
+    }
+    try {
+      return sampled(Integer.parseInt(value.trim()));
+    } catch (IllegalArgumentException e) {
+      log.warn("Bad value for {} = {}, assuming all", property, value);
+      return all();
+    }
+  }
+
+  /** The policy used by test clients. */
+  public static ContentTypePolicy global() {
+    return GLOBAL;
+  }
+
+  /** A copy of the policy that logs its coverage when the JVM exits. */
+  private static ContentTypePolicy reportingOnExit(ContentTypePolicy policy) {
+    return new ContentTypePolicy(policy.name, policy.checkRequest, true);
+  }
+
+  /** Check the first request and then 1 in N requests to each template. */
+  public static ContentTypePolicy sampled(int oneIn) {
+    if (oneIn < 1) {
+      throw new IllegalArgumentException("Sample 1 in N requests, where N > 0: " + oneIn);
+    }
+    return new ContentTypePolicy("1 in " + oneIn, n -> n % oneIn == 0, false);
+  }
+
+  /** Decide whether this request to the template should be made with each content type. */
+  public boolean check(String template) {
+    Counts counts = templates.computeIfAbsent(template, t -> new Counts());
+    boolean check = checkRequest.test(counts.requests.getAndIncrement());
+    if (check) {
+      counts.checked.increment();
+    }
+    exitReport.register();
+    return check;
+  }
+
+  /** Return the number of requests to each template and how many were checked, by template. */
+  public SortedMap<String, Coverage> coverage() {
+    SortedMap<String, Coverage> coverage = new TreeMap<>();
+    templates.forEach(
+        (template, counts) ->
+            coverage.put(
+                template,
+                Coverage.builder()
+                    .requests(counts.requests.get())
+                    .checked(counts.checked.sum())
+                    .build()));
+    return coverage;
+  }
+
+  private void reportOnExit() {
+    coverage()
+        .forEach(
+            (template, coverage) ->
+                log.info(
+                    "{}: content types checked for {} of {} requests ({})",
+                    template,
+                    coverage.checked(),
+                    coverage.requests(),
+                    name));
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  /** How many requests to a template were made, and how many were checked. */
+  @Value
+  @Builder
+  public static class Coverage {
+    long requests;
+
+    long checked;
+  }
+
+  private static final class Counts {
+    private final AtomicLong requests = new AtomicLong();
+
+    private final LongAdder checked = new LongAdder();
+  }
+}
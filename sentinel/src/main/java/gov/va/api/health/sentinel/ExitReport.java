@@ -0,0 +1,39 @@
+package gov.va.api.health.sentinel;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A report that is run by a shutdown hook when the JVM exits. The hook is only registered once
+ * something has been recorded, so suites that never use a global recorder do not log empty reports.
+ */
+final class ExitReport {
+  private static final ExitReport NONE = new ExitReport(null, () -> {});
+
+  private final String name;
+
+  private final Runnable report;
+
+  private final AtomicBoolean registered = new AtomicBoolean();
+
+  private ExitReport(String name, Runnable report) {
+    this.name = name;
+    this.report = report;
+  }
+
+  /** A report that is never run, for instances that are not shared by test clients. */
+  static ExitReport none() {
+    return NONE;
+  }
+
+  /** A report run on a thread with the given name. */
+  static ExitReport of(String name, Runnable report) {
+    return new ExitReport(name, report);
+  }
+
+  /** Register the shutdown hook, if it has not been already. */
+  void register() {
+    if (this != NONE && registered.compareAndSet(false, true)) {
+      Runtime.getRuntime().addShutdownHook(new Thread(report, name));
+    }
+  }
+}
@@ -7,6 +7,7 @@ import gov.va.api.health.autoconfig.configuration.JacksonConfig;
 import io.restassured.internal.support.Prettifier;
 import io.restassured.response.Response;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
@@ -58,6 +59,11 @@ public class ExpectedResponse {
     return of(response, logAction, JacksonConfig.createMapper());
   }
 
+  /** The time taken to receive the response, as measured by Rest Assured. */
+  public Duration latency() {
+    return Duration.ofMillis(response.getTime());
+  }
+
   /** Expect the HTTP status code to be the given value. */
   public ExpectedResponse expect(int statusCode) {
     try {
@@ -8,12 +8,14 @@ import io.restassured.response.Response;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.Builder;
 import lombok.NonNull;
 import lombok.SneakyThrows;
@@ -33,10 +35,11 @@ import lombok.extern.slf4j.Slf4j;
 public final class FhirTestClient implements TestClient {
   ServiceDefinition service;
 
-  ExecutorService executorService =
-      Executors.newFixedThreadPool(
-          SentinelProperties.threadCount(
-              "sentinel.threads", Runtime.getRuntime().availableProcessors()));
+  /**
+   * Runs the request for each content type. By default, this is shared by all clients and sized by
+   * the {@code sentinel.threads} system property.
+   */
+  @Builder.Default ExecutorService executorService = SentinelExecutor.shared();
 
   @NonNull ErrorsAreFunctionallyEqual errorResponseEqualityCheck;
 
@@ -45,6 +48,15 @@ public final class FhirTestClient implements TestClient {
   @Builder.Default
   List<String> contentTypes = List.of("application/fhir+json", "application/json+fhir");
 
+  /** Decides which requests are also made with each of the content types. */
+  @Builder.Default ContentTypePolicy contentTypePolicy = ContentTypePolicy.global();
+
+  /** Retries server errors with backoff, limited by a retry budget shared by all clients. */
+  @Builder.Default RetryScheduler retries = RetryScheduler.shared();
+
+  /** Records the latency of each request. */
+  @Builder.Default LatencyRecorder latencies = LatencyRecorder.global();
+
   @Override
   public ExpectedResponse get(String path, String... params) {
     return get(null, path, params);
@@ -53,86 +65,151 @@ public final class FhirTestClient implements TestClient {
   @Override
   @SneakyThrows
   public ExpectedResponse get(Map<String, String> headers, String path, String... params) {
-    Future<Response> baselineResponseFuture =
-        executorService.submit(
-            () -> {
-              return get(headers, "application/json", path, params);
-            });
+    Future<Response> baselineResponseFuture = get(headers, "application/json", path, params);
 
-    if (path.startsWith("/actuator")) {
-      /* Health checks, metrics, etc. do not have FHIR compliance requirements */
+    if (!checkContentTypes(path)) {
       return ExpectedResponse.of(baselineResponseFuture.get(5, TimeUnit.MINUTES));
     }
 
     // We dont want to run requests twice.
     List<Future<Response>> crystalBall =
-        contentTypes.stream()
-            .distinct()
-            .filter(s -> !s.equals("application/json"))
-            .map(
-                contentType ->
-                    executorService.submit(
-                        () -> {
-                          return get(headers, contentType, path, params);
-                        }))
+        fhirContentTypes()
+            .map(contentType -> get(headers, contentType, path, params))
             .collect(Collectors.toList());
 
     final Response baselineResponse = baselineResponseFuture.get(5, TimeUnit.MINUTES);
 
     for (Future<Response> future : crystalBall) {
-      Response fhirResponse = future.get(5, TimeUnit.MINUTES);
-
-      assertThat(fhirResponse.getStatusCode())
-          .withFailMessage(
-              "status: application/json ("
-                  + baselineResponse.getStatusCode()
-                  + ") does not equal "
-                  + fhirResponse.contentType()
-                  + "("
-                  + fhirResponse.getStatusCode()
-                  + ")")
-          .isEqualTo(baselineResponse.getStatusCode());
-
-      if (baselineResponse.getStatusCode() >= 400) {
-        /*
-         * Error responses must be returned as OOs but
-         * contains timestamps that prevents direct comparison
-         */
-        assertThat(errorResponseEqualityCheck.equals(baselineResponse.body(), fhirResponse.body()))
-            .isTrue();
-      } else {
-        // OK responses
-        assertThat(baselineResponse.body().asString()).isEqualTo(fhirResponse.body().asString());
-      }
+      assertEquivalent(baselineResponse, future.get(5, TimeUnit.MINUTES));
     }
     return ExpectedResponse.of(baselineResponse);
   }
 
-  private Response get(
+  private CompletableFuture<Response> get(
       Map<String, String> maybeHeaders, String contentType, String path, Object[] params) {
-    Response response = null;
-
-    // We'll make the request at least one time and as many as maxAttempts if we get a 500 error.
-    final int maxAttempts = 3;
-    for (int i = 0; i < maxAttempts; i++) {
-      if (i > 0) {
-        log.info("Making retry attempt {} for {}:{} after failure.", i, contentType, path);
-      }
-
-      response =
-          service()
-              .requestSpecification()
-              .contentType(contentType)
-              .accept(contentType)
-              .headers(maybeHeaders == null ? Collections.emptyMap() : maybeHeaders)
-              .request(Method.GET, path, params);
-
-      if (response.getStatusCode() != 500) {
-        return response;
-      }
+    String template = LatencyRecorder.template("GET", path);
+    return retries.retry(
+        template,
+        attempt ->
+            CompletableFuture.supplyAsync(
+                () ->
+                    latencies.time(
+                        latencyTemplate(template, attempt),
+                        () ->
+                            service()
+                                .requestSpecification()
+                                .contentType(contentType)
+                                .accept(contentType)
+                                .headers(
+                                    maybeHeaders == null ? Collections.emptyMap() : maybeHeaders)
+                                .request(Method.GET, path, params)),
+                executorService),
+        FhirTestClient::isServerError);
+  }
+
+  /**
+   * Perform a get request with each content type, without blocking a thread while waiting for the
+   * responses. Requests are sent with the JDK HttpClient, which multiplexes them over HTTP/2 when
+   * the service supports it. The future fails with an AssertionError if the responses are not
+   * equivalent.
+   */
+  public CompletableFuture<ExpectedResponse> getAsync(String path, String... params) {
+    return getAsync(null, path, params);
+  }
+
+  /** Perform a get request with headers and each content type without blocking. */
+  public CompletableFuture<ExpectedResponse> getAsync(
+      Map<String, String> headers, String path, String... params) {
+    CompletableFuture<Response> baselineResponse =
+        getAsync(headers, "application/json", path, params);
+    if (!checkContentTypes(path)) {
+      return baselineResponse.thenApply(ExpectedResponse::of);
     }
+    List<CompletableFuture<Response>> fhirResponses =
+        fhirContentTypes()
+            .map(contentType -> getAsync(headers, contentType, path, params))
+            .collect(Collectors.toList());
+    CompletableFuture<ExpectedResponse> expected = baselineResponse.thenApply(ExpectedResponse::of);
+    for (CompletableFuture<Response> fhirResponse : fhirResponses) {
+      expected =
+          expected.thenCombine(
+              fhirResponse,
+              (baseline, fhir) -> {
+                assertEquivalent(baseline.response(), fhir);
+                return baseline;
+              });
+    }
+    return expected;
+  }
+
+  private CompletableFuture<Response> getAsync(
+      Map<String, String> headers, String contentType, String path, Object[] params) {
+    String template = LatencyRecorder.template("GET", path);
+    return retries.retry(
+        template,
+        attempt -> {
+          long start = System.nanoTime();
+          return AsyncHttp.get(service(), headers, contentType, path, params)
+              .whenComplete(
+                  (response, e) ->
+                      latencies.record(
+                          latencyTemplate(template, attempt), System.nanoTime() - start));
+        },
+        FhirTestClient::isServerError);
+  }
+
+  private void assertEquivalent(Response baselineResponse, Response fhirResponse) {
+    assertThat(fhirResponse.getStatusCode())
+        .withFailMessage(
+            "status: application/json ("
+                + baselineResponse.getStatusCode()
+                + ") does not equal "
+                + fhirResponse.contentType()
+                + "("
+                + fhirResponse.getStatusCode()
+                + ")")
+        .isEqualTo(baselineResponse.getStatusCode());
+
+    if (baselineResponse.getStatusCode() >= 400) {
+      /*
+       * Error responses must be returned as OOs but
+       * contains timestamps that prevents direct comparison
+       */
+      assertThat(errorResponseEqualityCheck.equals(baselineResponse.body(), fhirResponse.body()))
+          .isTrue();
+    } else {
+      // OK responses
+      Optional<String> difference =
+          JsonEquivalence.firstDifference(
+              baselineResponse.body().asByteArray(), fhirResponse.body().asByteArray());
+      assertThat(difference)
+          .withFailMessage(
+              "body: application/json does not equal %s at %s",
+              fhirResponse.contentType(), difference.orElse(""))
+          .isEmpty();
+    }
+  }
+
+  private boolean checkContentTypes(String path) {
+    if (path.startsWith("/actuator")) {
+      /* Health checks, metrics, etc. do not have FHIR compliance requirements */
+      return false;
+    }
+    return contentTypePolicy.check(LatencyRecorder.template("GET", path));
+  }
+
+  private static boolean isServerError(Response response) {
+    return response.getStatusCode() == 500;
+  }
+
+  /** Retries are recorded separately, so they do not hide the latency of first attempts. */
+  private static String latencyTemplate(String template, int attempt) {
+    return attempt == 1 ? template : template + " (retry)";
+  }
 
-    return response;
+  /** The content types other than application/json, which is always requested. */
+  private Stream<String> fhirContentTypes() {
+    return contentTypes.stream().distinct().filter(s -> !s.equals("application/json"));
   }
 
   @Override
@@ -146,6 +223,13 @@ public final class FhirTestClient implements TestClient {
   @Override
   public ExpectedResponse post(Map<String, String> headers, String path, Object body) {
     return ExpectedResponse.of(
-        service().requestSpecification().headers(headers).body(body).request(Method.POST, path));
+        latencies.time(
+            LatencyRecorder.template("POST", path),
+            () ->
+                service()
+                    .requestSpecification()
+                    .headers(headers)
+                    .body(body)
+                    .request(Method.POST, path)));
   }
 }
@@ -0,0 +1,77 @@
+package gov.va.api.health.sentinel;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Optional;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Compares JSON bodies without converting them to strings. Identical bytes are equivalent.
+ * Otherwise the bodies are compared token by token with the Jackson streaming parser, so
+ * differences in whitespace are ignored, but the order of fields is not. Bodies that are not JSON
+ * must be identical.
+ */
+@UtilityClass
+final class JsonEquivalence {
+  private static final JsonFactory JSON = new JsonFactory();
+
+  /**
+   * Return the location of the first difference as a JSON pointer, e.g. {@code /entry/0/id}, or
+   * empty if the bodies are equivalent.
+   */
+  static Optional<String> firstDifference(byte[] expected, byte[] actual) {
+    if (Arrays.equals(expected, actual)) {
+      return Optional.empty();
+    }
+    try (JsonParser expectedTokens = JSON.createParser(expected);
+        JsonParser actualTokens = JSON.createParser(actual)) {
+      while (true) {
+        JsonToken token = expectedTokens.nextToken();
+        if (token != actualTokens.nextToken() || !sameText(token, expectedTokens, actualTokens)) {
+          return Optional.of(pointer(token, expectedTokens, actualTokens));
+        }
+        if (token == null) {
+          return Optional.empty();
+        }
+      }
+    } catch (IOException e) {
+      return Optional.of("byte " + Arrays.mismatch(expected, actual) + " (not JSON)");
+    }
+  }
+
+  /**
+   * Return the location of the difference. If the expected body ends where the actual body has
+   * more, the location of the extra content is more useful than the end of the parent.
+   */
+  private static String pointer(JsonToken token, JsonParser expected, JsonParser actual) {
+    boolean ended = token == null || token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY;
+    String pointer = (ended ? actual : expected).getParsingContext().pathAsPointer().toString();
+    return pointer.isEmpty() ? "/" : pointer;
+  }
+
+  /** Compare names and scalar values in place, without creating strings. */
+  private static boolean sameText(JsonToken token, JsonParser expected, JsonParser actual)
+      throws IOException {
+    if (token == null || !(token.isScalarValue() || token == JsonToken.FIELD_NAME)) {
+      return true;
+    }
+    int length = expected.getTextLength();
+    if (length != actual.getTextLength()) {
+      return false;
+    }
+    char[] expectedText = expected.getTextCharacters();
+    int expectedOffset = expected.getTextOffset();
+    char[] actualText = actual.getTextCharacters();
+    int actualOffset = actual.getTextOffset();
+    return Arrays.equals(
+        expectedText,
+        expectedOffset,
+        expectedOffset + length,
+        actualText,
+        actualOffset,
+        actualOffset + length);
+  }
+}
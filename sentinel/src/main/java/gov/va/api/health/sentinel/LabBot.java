@@ -6,7 +6,6 @@ import static org.assertj.core.api.Assertions.assertThat;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.io.CharStreams;
 import gov.va.api.health.sentinel.LabBot.LabBotUserResult.LabBotUserResultBuilder;
 import gov.va.api.health.sentinel.selenium.IdMeOauthLoginDriver;
 import gov.va.api.health.sentinel.selenium.MyHealtheVetOauthLoginDriver;
@@ -18,12 +17,12 @@ import gov.va.api.health.sentinel.selenium.VaOauthRobot.Configuration.UserCreden
 import gov.va.api.health.sentinel.selenium.VaOauthRobot.OAuthCredentialsMode;
 import gov.va.api.health.sentinel.selenium.VaOauthRobot.OAuthCredentialsType;
 import io.restassured.RestAssured;
+import io.restassured.http.Method;
+import io.restassured.response.Response;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
+import java.io.IOException;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -37,9 +36,11 @@ import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import lombok.AccessLevel;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.SneakyThrows;
+import lombok.ToString;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.BooleanUtils;
@@ -55,6 +56,11 @@ public class LabBot {
 
   @NonNull List<String> userIds;
 
+  @Getter(value = AccessLevel.PACKAGE, lazy = true)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  ServiceDefinition labService = createLabService();
+
   /**
    * Builds what is required by LabBot.
    *
@@ -82,6 +88,23 @@ public class LabBot {
     return allUsers;
   }
 
+  /**
+   * The lab environment, without a path or access token. Requests share its pool of keep-alive
+   * connections. Unlike test services, the lab handles real user credentials, so its certificate
+   * and hostname are verified.
+   */
+  @SneakyThrows
+  private ServiceDefinition createLabService() {
+    URL baseUrl = new URL(config.baseUrl());
+    return ServiceDefinition.builder()
+        .url(baseUrl.getProtocol() + "://" + baseUrl.getHost())
+        .port(baseUrl.getDefaultPort())
+        .apiPath("/")
+        .accessToken(Optional::empty)
+        .relaxedHttpsValidation(false)
+        .build();
+  }
+
   private Authorization makeAuthorization(SmartOnFhirUrls urls) {
     return Authorization.builder()
         .clientId(config.clientId())
@@ -172,15 +195,21 @@ public class LabBot {
   /** Send a request to the path with the access token. */
   @SneakyThrows
   public String request(String path, String accessToken) {
-    URL baseUrl = new URL(config.baseUrl());
-    URL url = new URL(baseUrl.getProtocol(), baseUrl.getHost(), path);
-    HttpURLConnection con = (HttpURLConnection) url.openConnection();
-    con.setRequestProperty("Authorization", "Bearer " + accessToken);
-    con.setRequestMethod("GET");
-    log.info("Sending request to: " + url.toString());
-    try (var reader = new InputStreamReader(con.getInputStream(), StandardCharsets.UTF_8)) {
-      return CharStreams.toString(reader);
+    log.info("Sending request to: " + labService().url() + path);
+    Response response =
+        labService()
+            .requestSpecification()
+            .header("Authorization", "Bearer " + accessToken)
+            .request(Method.GET, path);
+    if (response.getStatusCode() >= 400) {
+      throw new IOException(
+          "Server returned HTTP response code: "
+              + response.getStatusCode()
+              + " for URL: "
+              + labService().url()
+              + path);
     }
+    return response.asString();
   }
 
   private void results(ExecutorService ex, List<Future<?>> futures) throws InterruptedException {
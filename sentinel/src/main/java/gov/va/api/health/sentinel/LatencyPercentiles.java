@@ -0,0 +1,64 @@
+package gov.va.api.health.sentinel;
+
+import lombok.Builder;
+import lombok.Value;
+import org.HdrHistogram.Histogram;
+
+/** Percentiles of latencies recorded in nanoseconds, reported in milliseconds. */
+@Value
+@Builder
+public class LatencyPercentiles {
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+  long count;
+
+  double mean;
+
+  double p50;
+
+  double p90;
+
+  double p99;
+
+  double p999;
+
+  double max;
+
+  /** Summarize a histogram of latencies in nanoseconds. */
+  public static LatencyPercentiles of(Histogram nanos) {
+    return LatencyPercentiles.builder()
+        .count(nanos.getTotalCount())
+        .mean(nanos.getTotalCount() == 0 ? 0 : nanos.getMean() / NANOS_PER_MILLI)
+        .p50(nanos.getValueAtPercentile(50) / NANOS_PER_MILLI)
+        .p90(nanos.getValueAtPercentile(90) / NANOS_PER_MILLI)
+        .p99(nanos.getValueAtPercentile(99) / NANOS_PER_MILLI)
+        .p999(nanos.getValueAtPercentile(99.9) / NANOS_PER_MILLI)
+        .max(nanos.getMaxValue() / NANOS_PER_MILLI)
+        .build();
+  }
+
+  /** Return a percentile in milliseconds by name, one of p50, p90, p99, p99.9, or max. */
+  public double percentile(String name) {
+    switch (name) {
+      case "p50":
+        return p50;
+      case "p90":
+        return p90;
+      case "p99":
+        return p99;
+      case "p99.9":
+        return p999;
+      case "max":
+        return max;
+      default:
+        throw new IllegalArgumentException("Unknown percentile: " + name);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "count=%d p50=%.1fms p90=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms",
+        count, p50, p90, p99, p999, max);
+  }
+}
@@ -0,0 +1,199 @@
+package gov.va.api.health.sentinel;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+import gov.va.api.health.autoconfig.configuration.JacksonConfig;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Records the latency of requests made by test clients in HdrHistograms, one per endpoint template,
+ * e.g. {@code GET Patient/{id}} or {@code GET Patient?patient={}}. Recording is lock free.
+ *
+ * <p>The {@link #global()} recorder is used by the test clients. When the JVM exits, it logs a
+ * percentile report and, if {@code -Dsentinel.latency.report=<file>} is set, writes it as JSON.
+ *
+ * <p>Latency budgets can be asserted at the end of a test suite, e.g. in an {@code AfterAll}
+ * method. Budgets given as system properties, e.g. {@code -Dsentinel.latency.budget.p99=500}, in
+ * milliseconds, are asserted with {@link #assertWithinBudgets()}.
+ */
+@Slf4j
+public final class LatencyRecorder {
+  private static final LatencyRecorder GLOBAL = new LatencyRecorder(true);
+
+  private static final Pattern RESOURCE_TYPE = Pattern.compile("[A-Z][A-Za-z]+");
+
+  private static final Pattern ID =
+      Pattern.compile("[0-9]+|[0-9]+V[0-9]+|[0-9a-fA-F]{8}(-[0-9a-fA-F]{4}){3}-[0-9a-fA-F]{12}");
+
+  private static final List<String> PERCENTILES = List.of("p50", "p90", "p99", "p99.9", "max");
+
+  private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+  private final ExitReport exitReport;
+
+  /** Create a recorder that does not report when the JVM exits. */
+  public LatencyRecorder() {
+    this(false);
+  }
+
+  private LatencyRecorder(boolean reportOnExit) {
+    exitReport =
+        reportOnExit ? ExitReport.of("sentinel-latency", this::reportOnExit) : ExitReport.none();
+  }
+
+  /** The recorder used by test clients. */
+  public static LatencyRecorder global() {
+    return GLOBAL;
+  }
+
+  /**
+   * Return the endpoint template for a request. Path parameters are already templates, e.g. {@code
+   * Patient/{id}}. Path segments that were concatenated into the path instead are replaced with
+   * {@code {id}}: those that follow a resource type or {@code _history}, e.g. {@code Patient/123},
+   * and those that look like numbers, ICNs, or UUIDs. Segments that start with {@code _} or {@code
+   * $}, e.g. {@code _search}, are kept. Query parameter values are replaced with {@code {}}.
+   */
+  public static String template(String method, String path) {
+    int query = path.indexOf('?');
+    StringBuilder template = new StringBuilder(method).append(' ');
+    String[] segments = (query < 0 ? path : path.substring(0, query)).split("/", -1);
+    for (int i = 0; i < segments.length; i++) {
+      if (i > 0) {
+        template.append('/');
+      }
+      template.append(isId(segments, i) ? "{id}" : segments[i]);
+    }
+    if (query < 0) {
+      return template.toString();
+    }
+    template.append('?');
+    String[] parameters = path.substring(query + 1).split("&", -1);
+    for (int i = 0; i < parameters.length; i++) {
+      if (i > 0) {
+        template.append('&');
+      }
+      int equals = parameters[i].indexOf('=');
+      template.append(equals < 0 ? parameters[i] : parameters[i].substring(0, equals) + "={}");
+    }
+    return template.toString();
+  }
+
+  private static boolean isId(String[] segments, int index) {
+    String segment = segments[index];
+    if (segment.isEmpty() || "{}_$".indexOf(segment.charAt(0)) >= 0) {
+      return false;
+    }
+    if (ID.matcher(segment).matches()) {
+      return true;
+    }
+    String previous = index == 0 ? "" : segments[index - 1];
+    return RESOURCE_TYPE.matcher(previous).matches() || "_history".equals(previous);
+  }
+
+  /**
+   * Assert that each template is within the budget for the percentile, one of p50, p90, p99, p99.9,
+   * or max.
+   */
+  public void assertWithinBudget(String percentile, Duration budget) {
+    assertWithinBudgets(Map.of(percentile, budget));
+  }
+
+  /** Assert that each template is within the budgets specified as system properties. */
+  public void assertWithinBudgets() {
+    Map<String, Duration> budgets = new TreeMap<>();
+    for (String percentile : PERCENTILES) {
+      String property = "sentinel.latency.budget." + percentile;
+      String millis = System.getProperty(property);
+      if (isNotBlank(millis)) {
+        budgets.put(percentile, Duration.ofMillis(Long.parseLong(millis.trim())));
+      }
+    }
+    assertWithinBudgets(budgets);
+  }
+
+  /** Assert that each template is within the budget for each percentile. */
+  public void assertWithinBudgets(Map<String, Duration> budgets) {
+    List<String> violations = new ArrayList<>();
+    report()
+        .forEach(
+            (template, latency) ->
+                budgets.forEach(
+                    (percentile, budget) -> {
+                      double millis = latency.percentile(percentile);
+                      if (millis > budget.toNanos() / 1e6) {
+                        violations.add(
+                            String.format(
+                                "%s %s %.1fms exceeds %dms",
+                                template, percentile, millis, budget.toMillis()));
+                      }
+                    }));
+    if (!violations.isEmpty()) {
+      throw new AssertionError("Latency budgets exceeded:\n" + String.join("\n", violations));
+    }
+  }
+
+  /** Record the latency of one request to the endpoint template. */
+  public void record(String template, long nanos) {
+    histograms
+        .computeIfAbsent(template, t -> new ConcurrentHistogram(3))
+        .recordValue(Math.max(0, nanos));
+    exitReport.register();
+  }
+
+  /** Return the percentiles of each template, by template. */
+  public SortedMap<String, LatencyPercentiles> report() {
+    SortedMap<String, LatencyPercentiles> report = new TreeMap<>();
+    histograms.forEach(
+        (template, histogram) -> report.put(template, LatencyPercentiles.of(histogram)));
+    return report;
+  }
+
+  private void reportOnExit() {
+    SortedMap<String, LatencyPercentiles> report = report();
+    report.forEach((template, latency) -> log.info("{}: {}", template, latency));
+    String file = System.getProperty("sentinel.latency.report");
+    if (isNotBlank(file)) {
+      try {
+        Path path = Path.of(file);
+        if (path.getParent() != null) {
+          Files.createDirectories(path.getParent());
+        }
+        Files.writeString(
+            path,
+            JacksonConfig.createMapper()
+                .writerWithDefaultPrettyPrinter()
+                .writeValueAsString(report));
+      } catch (Exception e) {
+        log.warn("Failed to write latency report to {}: {}", file, e.getMessage());
+      }
+    }
+  }
+
+  /** Forget all recorded latencies. */
+  public void reset() {
+    histograms.clear();
+  }
+
+  /** Perform the request, recording its latency to the endpoint template. */
+  public <T> T time(String template, Supplier<T> request) {
+    long start = System.nanoTime();
+    try {
+      return request.get();
+    } finally {
+      record(template, System.nanoTime() - start);
+    }
+  }
+}
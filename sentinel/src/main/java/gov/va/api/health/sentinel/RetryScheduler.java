@@ -0,0 +1,236 @@
+package gov.va.api.health.sentinel;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Retries requests that fail with a server error without holding a thread while waiting. Retries
+ * are scheduled with exponential backoff and jitter: before retry N, wait between half and all of
+ * {@code initialBackoff * 2^(N-1)}, up to {@code maxBackoff}.
+ *
+ * <p>Retries are limited by a budget shared by every request made through the scheduler. The budget
+ * starts with {@code retryBudget} retries and regains {@code retryRatio} of a retry for each new
+ * request, up to {@code retryBudget}. When a service is failing, retries therefore add at most
+ * {@code retryRatio} more load instead of multiplying it.
+ *
+ * <p>The scheduler thread only hands retries off to the {@code executor}, which defaults to the
+ * {@link SentinelExecutor#shared()} executor, and never makes them itself. If the executor's queue
+ * is full, the retry is not made and the request fails with a {@link RejectedExecutionException}.
+ *
+ * <p>The {@link #shared()} scheduler is used by test clients. It makes up to {@code
+ * sentinel.retry.max-attempts} attempts (default 3), starting with a backoff of {@code
+ * sentinel.retry.initial-backoff} milliseconds (default 250). When the JVM exits, it logs the
+ * retries of each endpoint template, as do schedulers built with {@code reportOnExit(true)}.
+ */
+@Slf4j
+public final class RetryScheduler {
+  private static final RetryScheduler SHARED =
+      RetryScheduler.builder()
+          .maxAttempts(SentinelProperties.optionInt("sentinel.retry.max-attempts", 3))
+          .initialBackoff(
+              Duration.ofMillis(
+                  SentinelProperties.optionInt("sentinel.retry.initial-backoff", 250)))
+          .reportOnExit(true)
+          .build();
+
+  private static final ScheduledThreadPoolExecutor SCHEDULER = scheduler();
+
+  private final int maxAttempts;
+
+  private final Duration initialBackoff;
+
+  private final Duration maxBackoff;
+
+  private final double retryRatio;
+
+  private final double retryBudget;
+
+  private final DoubleSupplier random;
+
+  private final SentinelExecutor executor;
+
+  private final Map<String, Counts> templates = new ConcurrentHashMap<>();
+
+  private final ExitReport exitReport;
+
+  private double budget;
+
+  @Builder
+  RetryScheduler(
+      Integer maxAttempts,
+      Duration initialBackoff,
+      Duration maxBackoff,
+      Double retryRatio,
+      Integer retryBudget,
+      DoubleSupplier random,
+      SentinelExecutor executor,
+      boolean reportOnExit) {
+    this.maxAttempts = Math.max(1, maxAttempts == null ? 3 : maxAttempts);
+    this.initialBackoff = initialBackoff == null ? Duration.ofMillis(250) : initialBackoff;
+    this.maxBackoff = maxBackoff == null ? Duration.ofSeconds(10) : maxBackoff;
+    this.retryRatio = retryRatio == null ? 0.1 : retryRatio;
+    this.retryBudget = retryBudget == null ? 10 : retryBudget;
+    this.random = random == null ? () -> ThreadLocalRandom.current().nextDouble() : random;
+    this.executor = executor == null ? SentinelExecutor.shared() : executor;
+    this.budget = this.retryBudget;
+    this.exitReport =
+        reportOnExit ? ExitReport.of("sentinel-retries", this::reportOnExit) : ExitReport.none();
+  }
+
+  private static ScheduledThreadPoolExecutor scheduler() {
+    CustomizableThreadFactory threads = new CustomizableThreadFactory("sentinel-retry-");
+    threads.setDaemon(true);
+    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, threads);
+    scheduler.setRemoveOnCancelPolicy(true);
+    return scheduler;
+  }
+
+  /** The scheduler used by test clients. */
+  public static RetryScheduler shared() {
+    return SHARED;
+  }
+
+  private <T> void attempt(
+      String template,
+      IntFunction<CompletableFuture<T>> request,
+      Predicate<T> shouldRetry,
+      int attempt,
+      CompletableFuture<T> result) {
+    CompletableFuture<T> response;
+    try {
+      response = request.apply(attempt);
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+      return;
+    }
+    response.whenComplete(
+        (value, e) -> {
+          if (e != null) {
+            result.completeExceptionally(e);
+          } else if (attempt >= maxAttempts || !shouldRetry.test(value)) {
+            result.complete(value);
+          } else if (!withdraw()) {
+            counts(template).denied.increment();
+            log.info("Not retrying {} after failure, the retry budget is exhausted.", template);
+            result.complete(value);
+          } else {
+            counts(template).retries.increment();
+            long delay = backoff(attempt).toNanos();
+            log.info("Making retry attempt {} for {} after failure.", attempt, template);
+            SCHEDULER.schedule(
+                () -> {
+                  if (!executor.tryExecute(
+                      () -> attempt(template, request, shouldRetry, attempt + 1, result))) {
+                    result.completeExceptionally(
+                        new RejectedExecutionException(
+                            "Retry of " + template + " rejected, the executor queue is full"));
+                  }
+                },
+                delay,
+                TimeUnit.NANOSECONDS);
+          }
+        });
+  }
+
+  /** The delay before the retry that follows the given attempt. */
+  Duration backoff(int attempt) {
+    double exponential =
+        Math.min(maxBackoff.toNanos(), initialBackoff.toNanos() * Math.pow(2, attempt - 1));
+    return Duration.ofNanos((long) (exponential / 2 + exponential / 2 * random.getAsDouble()));
+  }
+
+  private Counts counts(String template) {
+    exitReport.register();
+    return templates.computeIfAbsent(template, t -> new Counts());
+  }
+
+  private synchronized void deposit() {
+    budget = Math.min(retryBudget, budget + retryRatio);
+  }
+
+  /** Return the retries of each endpoint template, by template. */
+  public SortedMap<String, Retries> report() {
+    SortedMap<String, Retries> report = new TreeMap<>();
+    templates.forEach(
+        (template, counts) ->
+            report.put(
+                template,
+                Retries.builder()
+                    .requests(counts.requests.sum())
+                    .retries(counts.retries.sum())
+                    .denied(counts.denied.sum())
+                    .build()));
+    return report;
+  }
+
+  private void reportOnExit() {
+    report()
+        .forEach(
+            (template, retries) ->
+                log.info(
+                    "{}: {} retries for {} requests, {} denied by the retry budget",
+                    template,
+                    retries.retries(),
+                    retries.requests(),
+                    retries.denied()));
+  }
+
+  /**
+   * Make a request, retrying it while the response should be retried. The request is given the
+   * attempt number, starting with 1. The future completes with the last response, or fails if an
+   * attempt fails.
+   */
+  public <T> CompletableFuture<T> retry(
+      String template, IntFunction<CompletableFuture<T>> request, Predicate<T> shouldRetry) {
+    counts(template).requests.increment();
+    deposit();
+    CompletableFuture<T> result = new CompletableFuture<>();
+    attempt(template, request, shouldRetry, 1, result);
+    return result;
+  }
+
+  private synchronized boolean withdraw() {
+    if (budget < 1) {
+      return false;
+    }
+    budget--;
+    return true;
+  }
+
+  /** The retries of an endpoint template. */
+  @Value
+  @Builder
+  public static class Retries {
+    long requests;
+
+    /** The number of retries made. */
+    long retries;
+
+    /** The number of retries that were not made because the retry budget was exhausted. */
+    long denied;
+  }
+
+  private static final class Counts {
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder denied = new LongAdder();
+  }
+}
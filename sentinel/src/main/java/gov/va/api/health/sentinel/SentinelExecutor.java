@@ -0,0 +1,182 @@
+package gov.va.api.health.sentinel;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Builder;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * A bounded pool of named daemon threads for test clients.
+ *
+ * <p>Test clients use the {@link #shared()} executor by default, so no matter how many clients a
+ * suite builds, they share one pool. It is sized by the {@code sentinel.threads} system property
+ * (default is the number of processors) and queues up to {@code sentinel.threads.queue} tasks
+ * (default is 100 per thread). When the queue is full, the submitting thread runs the task itself,
+ * which slows callers down instead of growing the queue without bound. Idle threads are released
+ * after a minute.
+ *
+ * <p>Running tasks on the submitting thread is only appropriate for threads that issue test
+ * requests. Infrastructure threads, e.g. schedulers and background refreshes, must submit with
+ * {@link #tryExecute(Runnable)}, which never runs the task on the calling thread.
+ *
+ * <p>Executors created with {@link #builder()} are owned by the caller and should be closed.
+ */
+@Slf4j
+public final class SentinelExecutor extends ThreadPoolExecutor implements AutoCloseable {
+  private final String name;
+
+  private final boolean shared;
+
+  private final LongAdder callerRuns = new LongAdder();
+
+  private final LongAdder rejected = new LongAdder();
+
+  private SentinelExecutor(String name, int threads, int queueSize, boolean shared) {
+    super(
+        threads,
+        threads,
+        1,
+        TimeUnit.MINUTES,
+        new ArrayBlockingQueue<>(queueSize),
+        daemonThreads(name));
+    this.name = name;
+    this.shared = shared;
+    allowCoreThreadTimeOut(true);
+    setRejectedExecutionHandler(
+        (task, executor) -> {
+          if (executor.isShutdown() || task instanceof NoCallerRuns) {
+            new AbortPolicy().rejectedExecution(task, executor);
+          }
+          callerRuns.increment();
+          task.run();
+        });
+  }
+
+  /** Create an executor that should be closed when it is no longer needed. */
+  @Builder
+  private static SentinelExecutor create(String name, Integer threads, Integer queueSize) {
+    int threadCount = Math.max(1, threads == null ? defaultThreads() : threads);
+    return new SentinelExecutor(
+        name == null ? "sentinel" : name,
+        threadCount,
+        Math.max(1, queueSize == null ? threadCount * 100 : queueSize),
+        false);
+  }
+
+  private static CustomizableThreadFactory daemonThreads(String name) {
+    CustomizableThreadFactory threads = new CustomizableThreadFactory(name + "-");
+    threads.setDaemon(true);
+    return threads;
+  }
+
+  private static int defaultThreads() {
+    return SentinelProperties.threadCount(
+        "sentinel.threads", Runtime.getRuntime().availableProcessors());
+  }
+
+  /** The executor shared by all test clients in the JVM. It cannot be closed. */
+  public static SentinelExecutor shared() {
+    return Shared.INSTANCE;
+  }
+
+  /** Shut down and wait for running tasks to finish. Closing the shared executor does nothing. */
+  @Override
+  @SneakyThrows
+  public void close() {
+    if (shared) {
+      return;
+    }
+    shutdown();
+    if (!awaitTermination(1, TimeUnit.MINUTES)) {
+      log.warn("{}: tasks still running after one minute", name);
+      shutdownNow();
+    }
+  }
+
+  /** A snapshot of the executor's current state. */
+  public Metrics metrics() {
+    return Metrics.builder()
+        .name(name)
+        .poolSize(getPoolSize())
+        .activeTasks(getActiveCount())
+        .queueDepth(getQueue().size())
+        .queueCapacity(getQueue().size() + getQueue().remainingCapacity())
+        .completedTasks(getCompletedTaskCount())
+        .callerRuns(callerRuns.sum())
+        .rejected(rejected.sum())
+        .build();
+  }
+
+  @Override
+  public String toString() {
+    return metrics().toString();
+  }
+
+  /**
+   * Queue the task without ever running it on the calling thread. Return false, without running the
+   * task, if the queue is full or the executor is shut down.
+   */
+  public boolean tryExecute(Runnable task) {
+    try {
+      execute(new NoCallerRuns(task));
+      return true;
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      return false;
+    }
+  }
+
+  /** The state of an executor. */
+  @Value
+  @Builder
+  public static class Metrics {
+    String name;
+
+    int poolSize;
+
+    int activeTasks;
+
+    int queueDepth;
+
+    int queueCapacity;
+
+    long completedTasks;
+
+    /** The number of tasks run by the submitting thread because the queue was full. */
+    long callerRuns;
+
+    /** The number of tasks not queued by tryExecute because the queue was full. */
+    long rejected;
+  }
+
+  /** A task submitted by an infrastructure thread, which must not run it. */
+  @RequiredArgsConstructor
+  private static final class NoCallerRuns implements Runnable {
+    private final Runnable task;
+
+    @Override
+    public void run() {
+      task.run();
+    }
+  }
+
+  /** Lazily create the shared executor. */
+  private static final class Shared {
+    private static final SentinelExecutor INSTANCE =
+        new SentinelExecutor(
+            "sentinel",
+            Math.max(1, defaultThreads()),
+            Math.max(
+                1,
+                SentinelProperties.optionInt(
+                    "sentinel.threads.queue", Math.max(1, defaultThreads()) * 100)),
+            true);
+  }
+}
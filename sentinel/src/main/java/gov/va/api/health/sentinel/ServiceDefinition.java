@@ -1,15 +1,33 @@
 package gov.va.api.health.sentinel;
 
 import io.restassured.RestAssured;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
 import io.restassured.specification.RequestSpecification;
 import java.util.Optional;
 import java.util.function.Supplier;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.ToString;
 import lombok.Value;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
 
-/** Defines particulars for interacting with a specific service. */
+/**
+ * Defines particulars for interacting with a specific service.
+ *
+ * <p>Request specifications built from a definition share one pool of keep-alive connections, so
+ * connections and TLS sessions are reused across requests. The pool size defaults to the {@code
+ * sentinel.http.max-connections} and {@code sentinel.http.max-connections-per-route} system
+ * properties, or 100.
+ *
+ * <p>Requests skip certificate and hostname checks unless {@code relaxedHttpsValidation} is
+ * disabled, in which case the JVM default trust store and hostname verification apply.
+ */
 @Value
 @Builder
 @AllArgsConstructor
@@ -23,10 +41,61 @@ public final class ServiceDefinition {
 
   Supplier<Optional<String>> accessToken;
 
+  /** The most connections open to all routes. */
+  @Builder.Default
+  int maxConnections = SentinelProperties.optionInt("sentinel.http.max-connections", 100);
+
+  /** The most connections open to one route, i.e. host and port. */
+  @Builder.Default
+  int maxConnectionsPerRoute =
+      SentinelProperties.optionInt("sentinel.http.max-connections-per-route", 100);
+
+  /** Whether to trust any certificate and hostname, as test environments often need. */
+  @Builder.Default boolean relaxedHttpsValidation = true;
+
+  @Getter(lazy = true)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  RestAssuredConfig restAssuredConfig = pooledConfig();
+
+  /** Create a definition with the default pool size. */
+  public ServiceDefinition(
+      String url, int port, @NonNull String apiPath, Supplier<Optional<String>> accessToken) {
+    this(
+        url,
+        port,
+        apiPath,
+        accessToken,
+        SentinelProperties.optionInt("sentinel.http.max-connections", 100),
+        SentinelProperties.optionInt("sentinel.http.max-connections-per-route", 100),
+        true);
+  }
+
+  /**
+   * Rest Assured only supports the deprecated Apache HTTP client API. Reusing the client instance
+   * keeps connections open between requests.
+   */
+  @SuppressWarnings("deprecation")
+  private RestAssuredConfig pooledConfig() {
+    PoolingClientConnectionManager connections =
+        new PoolingClientConnectionManager(SchemeRegistryFactory.createDefault());
+    connections.setMaxTotal(Math.max(1, maxConnections));
+    connections.setDefaultMaxPerRoute(Math.max(1, maxConnectionsPerRoute));
+    DefaultHttpClient client = new DefaultHttpClient(connections);
+    return RestAssuredConfig.config()
+        .httpClient(
+            HttpClientConfig.httpClientConfig()
+                .reuseHttpClientInstance()
+                .httpClientFactory(() -> client));
+  }
+
   /** Returns Request Specification. */
   public RequestSpecification requestSpecification() {
     RequestSpecification spec =
-        RestAssured.given().baseUri(url()).port(port()).relaxedHTTPSValidation();
+        RestAssured.given().config(restAssuredConfig()).baseUri(url()).port(port());
+    if (relaxedHttpsValidation) {
+      spec = spec.relaxedHTTPSValidation();
+    }
 
     Optional<String> token = accessToken.get();
     if (token.isPresent()) {
@@ -6,35 +6,113 @@ import io.jsonwebtoken.security.Keys;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Date;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.SneakyThrows;
+import lombok.ToString;
 import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.impl.client.HttpClients;
 import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
-@Builder
+/**
+ * Exchanges a signed client assertion for a system scoped access token.
+ *
+ * <p>Tokens are cached and reused until {@code expirySkew} (default 1 minute) before they expire.
+ * Once {@code refreshAfter} (default 75%) of that time has passed, the cached token is still
+ * returned, but a new one is requested in the background. Concurrent callers share a single
+ * request. Tokens with errors or without an expiration are not cached.
+ *
+ * <p>Each client assertion expires {@link Configuration#assertionLifetime()} after it is issued,
+ * unless a fixed {@link Configuration#expiration()} is configured.
+ */
+@Slf4j
 public class SystemOauthRobot {
+  /**
+   * Token requests from all robots share a pool of keep-alive connections. Like the default request
+   * factory it replaces, the client honors the standard proxy, trust store, and key store system
+   * properties.
+   */
+  private static final RestTemplate TOKEN_CLIENT =
+      new RestTemplate(
+          new HttpComponentsClientHttpRequestFactory(
+              HttpClients.custom()
+                  .useSystemProperties()
+                  .setMaxConnTotal(
+                      SentinelProperties.optionInt("sentinel.http.max-connections", 100))
+                  .setMaxConnPerRoute(
+                      SentinelProperties.optionInt("sentinel.http.max-connections-per-route", 100))
+                  .build()));
+
   @Getter @NonNull private final Configuration config;
 
+  /** The client secret as a signing key, which is expensive to derive for every assertion. */
+  private final Key key;
+
+  private final Duration expirySkew;
+
+  private final double refreshAfter;
+
+  private final Clock clock;
+
+  private final AtomicBoolean refreshingInBackground = new AtomicBoolean();
+
+  private volatile CachedToken cached;
+
+  @Builder
+  SystemOauthRobot(
+      @NonNull Configuration config, Duration expirySkew, Double refreshAfter, Clock clock) {
+    this.config = config;
+    this.key = Keys.hmacShaKeyFor(config.clientSecret().getBytes(StandardCharsets.UTF_8));
+    this.expirySkew = expirySkew == null ? Duration.ofMinutes(1) : expirySkew;
+    this.refreshAfter = refreshAfter == null ? 0.75 : refreshAfter;
+    this.clock = clock == null ? Clock.systemUTC() : clock;
+  }
+
+  /** Cache the token until the skew before it expires, if it expires. */
+  private CachedToken cache(TokenExchange token, Instant requestedAt) {
+    Instant expiresAt = null;
+    if (token.expiresIn() > 0) {
+      expiresAt = requestedAt.plusSeconds(token.expiresIn());
+    } else if (token.expiresAt() > 0) {
+      expiresAt = Instant.ofEpochSecond(token.expiresAt());
+    }
+    if (token.isError() || expiresAt == null) {
+      return null;
+    }
+    Instant usableUntil = expiresAt.minus(expirySkew);
+    Duration usable = Duration.between(requestedAt, usableUntil);
+    if (usable.isNegative() || usable.isZero()) {
+      return null;
+    }
+    Instant refreshAt = requestedAt.plusMillis((long) (usable.toMillis() * refreshAfter));
+    return new CachedToken(token, refreshAt, usableUntil);
+  }
+
   /* setIssuedAt() and setExpiration() both only support java.util.Date as input. */
   @SuppressWarnings("JdkObsolete")
-  private String clientAssertion() {
-    Key key = Keys.hmacShaKeyFor(config().clientSecret().getBytes(StandardCharsets.UTF_8));
+  String clientAssertion() {
+    Instant issuedAt = clock.instant();
     return Jwts.builder()
         .setHeaderParam("typ", "JWT")
         .setAudience(config().audience())
         .setIssuer(config().clientId())
         .setSubject(config().clientId())
         .setId(UUID.randomUUID().toString())
-        .setIssuedAt(Date.from(Instant.now()))
-        .setExpiration(Date.from(config().expiration()))
+        .setIssuedAt(Date.from(issuedAt))
+        .setExpiration(Date.from(config().expirationFor(issuedAt)))
         .signWith(key, SignatureAlgorithm.HS256)
         .compact();
   }
@@ -49,20 +127,73 @@ public class SystemOauthRobot {
     return b.toString();
   }
 
-  /** Exchange for a System oauth token. */
   @SneakyThrows
-  public TokenExchange token() {
+  private TokenExchange exchange() {
     RequestEntity<String> request =
         RequestEntity.post(new URI(config().tokenUrl()))
             .contentType(MediaType.parseMediaType("application/x-www-form-urlencoded"))
             .accept(MediaType.parseMediaType("application/json"))
             .body(requestBody());
-    RestTemplate rt = new RestTemplate();
-    return rt.exchange(request, TokenExchange.class).getBody();
+    return TOKEN_CLIENT.exchange(request, TokenExchange.class).getBody();
+  }
+
+  /**
+   * Request a new token unless another caller already replaced the token that was seen. Callers
+   * wait for each other here, so they share a single request.
+   */
+  private synchronized TokenExchange refresh(CachedToken seen) {
+    CachedToken current = cached;
+    if (current != seen && current != null && current.isUsable(clock.instant())) {
+      return current.token();
+    }
+    Instant requestedAt = clock.instant();
+    TokenExchange token = exchange();
+    CachedToken fresh = cache(token, requestedAt);
+    if (fresh != null) {
+      cached = fresh;
+    }
+    return token;
+  }
+
+  private void refreshInBackground(CachedToken seen) {
+    if (!refreshingInBackground.compareAndSet(false, true)) {
+      return;
+    }
+    boolean queued =
+        SentinelExecutor.shared()
+            .tryExecute(
+                () -> {
+                  try {
+                    refresh(seen);
+                  } catch (RuntimeException e) {
+                    log.warn("Failed to refresh token in the background: {}", e.getMessage());
+                  } finally {
+                    refreshingInBackground.set(false);
+                  }
+                });
+    if (!queued) {
+      /* The token is still valid, so try again on a later request. */
+      refreshingInBackground.set(false);
+    }
+  }
+
+  /** Exchange for a System oauth token, reusing the cached token if it has not expired. */
+  public TokenExchange token() {
+    CachedToken current = cached;
+    Instant now = clock.instant();
+    if (current != null && current.isUsable(now)) {
+      if (!now.isBefore(current.refreshAt())) {
+        refreshInBackground(current);
+      }
+      return current.token();
+    }
+    return refresh(current);
   }
 
   @Value
   @Builder
+  @EqualsAndHashCode(doNotUseGetters = true)
+  @ToString(doNotUseGetters = true)
   public static class Configuration {
     @NonNull String tokenUrl;
 
@@ -74,7 +205,32 @@ public class SystemOauthRobot {
 
     @NonNull Set<String> scopes;
 
-    // Default expiration to 30 minutes
-    @Builder.Default Instant expiration = Instant.now().plusSeconds(60 * 30);
+    /** How long each client assertion is valid after it is issued. */
+    @Builder.Default Duration assertionLifetime = Duration.ofMinutes(30);
+
+    /** A fixed expiration for every client assertion. If not set, assertionLifetime is used. */
+    Instant expiration;
+
+    /** The expiration of an assertion issued now. */
+    public Instant expiration() {
+      return expirationFor(Instant.now());
+    }
+
+    Instant expirationFor(Instant issuedAt) {
+      return expiration == null ? issuedAt.plus(assertionLifetime) : expiration;
+    }
+  }
+
+  @Value
+  private static class CachedToken {
+    TokenExchange token;
+
+    Instant refreshAt;
+
+    Instant usableUntil;
+
+    boolean isUsable(Instant now) {
+      return now.isBefore(usableUntil);
+    }
   }
 }
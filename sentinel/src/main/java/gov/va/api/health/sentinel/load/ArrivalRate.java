@@ -0,0 +1,36 @@
+package gov.va.api.health.sentinel.load;
+
+import java.time.Duration;
+
+/**
+ * The rate at which requests arrive during a load test, in requests per second. Arrivals follow an
+ * open model: they are scheduled by the rate alone, regardless of how many earlier requests are
+ * still in progress.
+ */
+@FunctionalInterface
+public interface ArrivalRate {
+  /** Arrive at the same rate for the whole test. */
+  static ArrivalRate constant(double perSecond) {
+    return elapsed -> perSecond;
+  }
+
+  /** Increase (or decrease) the rate linearly over the given duration, then hold it. */
+  static ArrivalRate ramp(double fromPerSecond, double toPerSecond, Duration over) {
+    double overNanos = Math.max(1, over.toNanos());
+    return elapsed ->
+        fromPerSecond + (toPerSecond - fromPerSecond) * Math.min(1, elapsed.toNanos() / overNanos);
+  }
+
+  /**
+   * Start at the given rate and increase it by the step after each step duration, up to the max.
+   */
+  static ArrivalRate steps(
+      double startPerSecond, double stepPerSecond, Duration every, double maxPerSecond) {
+    long everyNanos = Math.max(1, every.toNanos());
+    return elapsed ->
+        Math.min(maxPerSecond, startPerSecond + stepPerSecond * (elapsed.toNanos() / everyNanos));
+  }
+
+  /** Return the rate after the given time has elapsed since the test started. */
+  double perSecond(Duration elapsed);
+}
@@ -0,0 +1,202 @@
+package gov.va.api.health.sentinel.load;
+
+import gov.va.api.health.sentinel.ExpectedResponse;
+import gov.va.api.health.sentinel.LatencyPercentiles;
+import gov.va.api.health.sentinel.SentinelProperties;
+import gov.va.api.health.sentinel.TestClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Drives a service at a target request rate using a {@link TestClient}, which carries the service's
+ * environment and authorization.
+ *
+ * <pre>
+ * LoadTestSummary summary =
+ *     LoadTest.builder()
+ *         .name("patient-read")
+ *         .client(client)
+ *         .request(tc -> tc.get("Patient/{id}", "1011537977V693883"))
+ *         .arrivals(ArrivalRate.ramp(10, 200, Duration.ofMinutes(1)))
+ *         .duration(Duration.ofMinutes(5))
+ *         .build()
+ *         .run();
+ * summary.writeTo(Path.of("target/load/patient-read.json"));
+ * </pre>
+ *
+ * <p>Requests are scheduled by the arrival rate and sent by at most the given number of concurrent
+ * threads. If all threads are busy, requests wait in a queue and the wait is included in their
+ * latency, which is measured from when the request was scheduled to start. This corrects for
+ * coordinated omission: a slow service is not rewarded with fewer measured requests. Service time,
+ * measured from when the request actually started, is reported separately. Requests that arrive
+ * while the queue is full are dropped and counted.
+ *
+ * <p>Concurrency defaults to the {@code sentinel.load.concurrency} system property, or 10.
+ */
+@Slf4j
+public final class LoadTest {
+  private final String name;
+
+  private final TestClient client;
+
+  private final Function<TestClient, ExpectedResponse> request;
+
+  private final ArrivalRate arrivals;
+
+  private final Duration duration;
+
+  private final int concurrency;
+
+  private final int maxQueued;
+
+  private final Duration drainTimeout;
+
+  @Builder
+  LoadTest(
+      @NonNull String name,
+      @NonNull TestClient client,
+      @NonNull Function<TestClient, ExpectedResponse> request,
+      @NonNull ArrivalRate arrivals,
+      @NonNull Duration duration,
+      Integer concurrency,
+      Integer maxQueued,
+      Duration drainTimeout) {
+    this.name = name;
+    this.client = client;
+    this.request = request;
+    this.arrivals = arrivals;
+    this.duration = duration;
+    this.concurrency =
+        Math.max(
+            1,
+            concurrency == null
+                ? SentinelProperties.threadCount("sentinel.load.concurrency", 10)
+                : concurrency);
+    this.maxQueued = Math.max(1, maxQueued == null ? 10_000 : maxQueued);
+    this.drainTimeout = drainTimeout == null ? Duration.ofMinutes(1) : drainTimeout;
+  }
+
+  private ThreadPoolExecutor executor() {
+    CustomizableThreadFactory threads =
+        new CustomizableThreadFactory("sentinel-load-" + name + "-");
+    threads.setDaemon(true);
+    return new ThreadPoolExecutor(
+        concurrency,
+        concurrency,
+        0,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(maxQueued),
+        threads);
+  }
+
+  /** Run the test for its duration, then wait for requests in progress to finish. */
+  @SneakyThrows
+  public LoadTestSummary run() {
+    Run run = new Run();
+    ThreadPoolExecutor executor = executor();
+    Instant startedAt = Instant.now();
+    long start = System.nanoTime();
+    long end = start + duration.toNanos();
+    long scheduled = start;
+    try {
+      while (scheduled < end) {
+        sleepUntil(scheduled);
+        long intendedStart = scheduled;
+        try {
+          executor.execute(() -> run.send(intendedStart));
+          run.scheduled.increment();
+        } catch (RejectedExecutionException e) {
+          run.dropped.increment();
+        }
+        double perSecond = arrivals.perSecond(Duration.ofNanos(scheduled - start));
+        scheduled += perSecond > 0 ? Math.max(1, (long) (1e9 / perSecond)) : 1_000_000;
+      }
+    } finally {
+      executor.shutdown();
+    }
+    if (!executor.awaitTermination(drainTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+      log.warn("{}: requests still in progress after {}", name, drainTimeout);
+      executor.shutdownNow();
+    }
+    long elapsed = System.nanoTime() - start;
+    LoadTestSummary summary = run.summarize(startedAt, elapsed);
+    log.info("{}", summary);
+    return summary;
+  }
+
+  private void sleepUntil(long nanos) throws InterruptedException {
+    long remaining = nanos - System.nanoTime();
+    if (remaining > 0) {
+      TimeUnit.NANOSECONDS.sleep(remaining);
+    }
+  }
+
+  /** The measurements of one run. */
+  private final class Run {
+    private final Histogram latency = new ConcurrentHistogram(3);
+
+    private final Histogram serviceTime = new ConcurrentHistogram(3);
+
+    private final LongAdder scheduled = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+
+    void send(long intendedStart) {
+      long actualStart = System.nanoTime();
+      try {
+        ExpectedResponse response = request.apply(client);
+        statuses
+            .computeIfAbsent(response.response().getStatusCode(), s -> new AtomicLong())
+            .incrementAndGet();
+      } catch (RuntimeException | AssertionError e) {
+        failed.increment();
+        log.debug("{}: request failed: {}", name, e.getMessage());
+      } finally {
+        long now = System.nanoTime();
+        latency.recordValue(Math.max(0, now - intendedStart));
+        serviceTime.recordValue(Math.max(0, now - actualStart));
+      }
+    }
+
+    LoadTestSummary summarize(Instant startedAt, long elapsedNanos) {
+      Map<Integer, Long> statusCounts = new TreeMap<>();
+      statuses.forEach((status, count) -> statusCounts.put(status, count.get()));
+      long completed = latency.getTotalCount();
+      return LoadTestSummary.builder()
+          .name(name)
+          .startedAt(startedAt)
+          .duration(Duration.ofNanos(elapsedNanos))
+          .concurrency(concurrency)
+          .scheduled(scheduled.sum())
+          .completed(completed)
+          .failed(failed.sum())
+          .dropped(dropped.sum())
+          .throughput(elapsedNanos <= 0 ? 0 : completed * 1e9 / elapsedNanos)
+          .statuses(statusCounts)
+          .latency(LatencyPercentiles.of(latency))
+          .serviceTime(LatencyPercentiles.of(serviceTime))
+          .build();
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package gov.va.api.health.sentinel.load;
+
+import gov.va.api.health.autoconfig.configuration.JacksonConfig;
+import gov.va.api.health.sentinel.LatencyPercentiles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import lombok.Builder;
+import lombok.SneakyThrows;
+import lombok.Value;
+
+/** The results of a load test, which can be written as JSON. */
+@Value
+@Builder
+public class LoadTestSummary {
+  String name;
+
+  Instant startedAt;
+
+  Duration duration;
+
+  int concurrency;
+
+  /** Requests that were scheduled and sent. */
+  long scheduled;
+
+  /** Requests that finished, whether or not they failed. */
+  long completed;
+
+  /** Requests that threw an exception or failed an assertion. */
+  long failed;
+
+  /** Requests that were not sent because too many were waiting. */
+  long dropped;
+
+  /** Completed requests per second. */
+  double throughput;
+
+  /** Completed requests by HTTP status. */
+  Map<Integer, Long> statuses;
+
+  /** Latency from when each request was scheduled to start, corrected for coordinated omission. */
+  LatencyPercentiles latency;
+
+  /** Latency from when each request actually started. */
+  LatencyPercentiles serviceTime;
+
+  /** Return the summary as JSON. */
+  @SneakyThrows
+  public String toJson() {
+    return JacksonConfig.createMapper().writerWithDefaultPrettyPrinter().writeValueAsString(this);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s: %d scheduled, %d completed, %d failed, %d dropped, %.1f/s, latency %s",
+        name, scheduled, completed, failed, dropped, throughput, latency);
+  }
+
+  /** Write the summary as JSON, creating parent directories as needed. */
+  @SneakyThrows
+  public void writeTo(Path file) {
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    Files.writeString(file, toJson());
+  }
+}
@@ -0,0 +1,50 @@
+package gov.va.api.health.sentinel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ContentTypePolicyTest {
+  private static List<Boolean> checks(ContentTypePolicy policy, String template, int requests) {
+    List<Boolean> checks = new ArrayList<>();
+    for (int i = 0; i < requests; i++) {
+      checks.add(policy.check(template));
+    }
+    return checks;
+  }
+
+  @Test
+  void allChecksEveryRequest() {
+    ContentTypePolicy policy = ContentTypePolicy.all();
+    assertThat(checks(policy, "GET Patient/{id}", 3)).containsExactly(true, true, true);
+    assertThat(policy.coverage().get("GET Patient/{id}"))
+        .isEqualTo(ContentTypePolicy.Coverage.builder().requests(3).checked(3).build());
+    assertThat(ContentTypePolicy.global()).hasToString("all");
+  }
+
+  @Test
+  void firstSeenChecksTheFirstRequestToEachTemplate() {
+    ContentTypePolicy policy = ContentTypePolicy.firstSeen();
+    assertThat(checks(policy, "GET Patient/{id}", 3)).containsExactly(true, false, false);
+    assertThat(checks(policy, "GET Patient?name={}", 2)).containsExactly(true, false);
+    assertThat(policy.coverage())
+        .containsEntry(
+            "GET Patient/{id}", ContentTypePolicy.Coverage.builder().requests(3).checked(1).build())
+        .containsEntry(
+            "GET Patient?name={}",
+            ContentTypePolicy.Coverage.builder().requests(2).checked(1).build());
+  }
+
+  @Test
+  void sampledChecksOneInNRequestsToEachTemplate() {
+    ContentTypePolicy policy = ContentTypePolicy.sampled(3);
+    assertThat(checks(policy, "GET Patient/{id}", 7))
+        .containsExactly(true, false, false, true, false, false, true);
+    assertThat(policy).hasToString("1 in 3");
+    assertThatThrownBy(() -> ContentTypePolicy.sampled(0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
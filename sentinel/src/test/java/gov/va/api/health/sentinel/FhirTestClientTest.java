@@ -0,0 +1,224 @@
+package gov.va.api.health.sentinel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FhirTestClientTest {
+  private final List<String> requests = new CopyOnWriteArrayList<>();
+
+  private final LatencyRecorder latencies = new LatencyRecorder();
+
+  private ContentTypePolicy contentTypePolicy = ContentTypePolicy.all();
+
+  private final RetryScheduler retries =
+      RetryScheduler.builder().initialBackoff(Duration.ofMillis(1)).build();
+
+  private HttpServer server;
+
+  private final ProxySelector defaultProxySelector = ProxySelector.getDefault();
+
+  private FhirTestClient client(Function<HttpExchange, Integer> status, String body) {
+    return client(status, exchange -> body);
+  }
+
+  @SneakyThrows
+  private FhirTestClient client(
+      Function<HttpExchange, Integer> status, Function<HttpExchange, String> body) {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        "/",
+        exchange -> {
+          requests.add(
+              exchange.getRequestURI()
+                  + " "
+                  + exchange.getRequestHeaders().getFirst("Accept")
+                  + " "
+                  + exchange.getRequestHeaders().getFirst("Authorization"));
+          byte[] bytes = body.apply(exchange).getBytes(StandardCharsets.UTF_8);
+          exchange.getResponseHeaders().add("Content-Type", "application/json");
+          exchange.sendResponseHeaders(status.apply(exchange), bytes.length);
+          exchange.getResponseBody().write(bytes);
+          exchange.close();
+        });
+    server.start();
+    return FhirTestClient.builder()
+        .service(
+            ServiceDefinition.builder()
+                .url("http://localhost")
+                .port(server.getAddress().getPort())
+                .apiPath("/r4/")
+                .accessToken(() -> Optional.of("shanktopus"))
+                .build())
+        .errorResponseEqualityCheck((a, b) -> true)
+        .latencies(latencies)
+        .contentTypePolicy(contentTypePolicy)
+        .retries(retries)
+        .build();
+  }
+
+  /**
+   * Rest Assured's Groovy runtime cannot call the JDK's default proxy selector on Java 16 and
+   * later, because its package is not exported.
+   */
+  @BeforeEach
+  void noProxy() {
+    ProxySelector.setDefault(new NoProxy());
+  }
+
+  @AfterEach
+  void stop() {
+    ProxySelector.setDefault(defaultProxySelector);
+    if (server != null) {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  void getFailsWhenContentTypesDiffer() {
+    FhirTestClient client =
+        client(
+            exchange -> 200,
+            exchange -> "{\"accept\":\"" + exchange.getRequestHeaders().getFirst("Accept") + "\"}");
+    assertThatThrownBy(() -> client.get("r4/Patient/{id}", "1")).isInstanceOf(AssertionError.class);
+  }
+
+  @Test
+  void getRequestsEachContentType() {
+    FhirTestClient client = client(exchange -> 200, "{\"id\":\"1\"}");
+    ExpectedResponse response = client.get(Map.of("X-Trace", "t"), "r4/Patient/{id}", "1");
+    assertThat(response.expect(200).response().asString()).isEqualTo("{\"id\":\"1\"}");
+    assertThat(requests)
+        .containsExactlyInAnyOrder(
+            "/r4/Patient/1 application/json Bearer shanktopus",
+            "/r4/Patient/1 application/fhir+json Bearer shanktopus",
+            "/r4/Patient/1 application/json+fhir Bearer shanktopus");
+    assertThat(latencies.report().get("GET r4/Patient/{id}").count()).isEqualTo(3);
+  }
+
+  @Test
+  void getRetriesServerErrors() {
+    FhirTestClient client = client(exchange -> 500, "{}");
+    assertThat(client.get("/actuator/health").response().getStatusCode()).isEqualTo(500);
+    assertThat(requests).hasSize(3);
+    assertThat(retries.report().get("GET /actuator/health"))
+        .isEqualTo(RetryScheduler.Retries.builder().requests(1).retries(2).denied(0).build());
+    assertThat(latencies.report().get("GET /actuator/health").count()).isEqualTo(1);
+    assertThat(latencies.report().get("GET /actuator/health (retry)").count()).isEqualTo(2);
+  }
+
+  @Test
+  void getUsesTheContentTypePolicy() {
+    contentTypePolicy = ContentTypePolicy.firstSeen();
+    FhirTestClient client = client(exchange -> 200, "{}");
+    client.get("r4/Patient/{id}", "1");
+    client.get("r4/Patient/{id}", "2");
+    client.get("/actuator/health");
+    assertThat(requests).hasSize(5);
+    assertThat(contentTypePolicy.coverage())
+        .containsOnlyKeys("GET r4/Patient/{id}")
+        .containsValue(ContentTypePolicy.Coverage.builder().requests(2).checked(1).build());
+  }
+
+  @Test
+  void getAsyncFailsWhenContentTypesDiffer() {
+    FhirTestClient client =
+        client(
+            exchange -> 200,
+            exchange -> "{\"accept\":\"" + exchange.getRequestHeaders().getFirst("Accept") + "\"}");
+    assertThatThrownBy(() -> client.getAsync("r4/Patient/{id}", "1").join())
+        .isInstanceOf(CompletionException.class)
+        .hasCauseInstanceOf(AssertionError.class);
+  }
+
+  @Test
+  void getAsyncRequestsEachContentType() {
+    FhirTestClient client = client(exchange -> 200, "{\"id\":\"1\"}");
+    ExpectedResponse response =
+        client.getAsync(Map.of("X-Trace", "t"), "r4/Patient/{id}", "1 2").join();
+    assertThat(response.expect(200).response().asString()).isEqualTo("{\"id\":\"1\"}");
+    assertThat(response.response().contentType()).isEqualTo("application/json");
+    assertThat(requests)
+        .containsExactlyInAnyOrder(
+            "/r4/Patient/1%202 application/json Bearer shanktopus",
+            "/r4/Patient/1%202 application/fhir+json Bearer shanktopus",
+            "/r4/Patient/1%202 application/json+fhir Bearer shanktopus");
+    assertThat(latencies.report().get("GET r4/Patient/{id}").count()).isEqualTo(3);
+  }
+
+  @Test
+  void getAsyncRetriesServerErrors() {
+    FhirTestClient client = client(exchange -> 500, "{}");
+    assertThat(client.getAsync("/actuator/health").join().response().getStatusCode())
+        .isEqualTo(500);
+    assertThat(requests).hasSize(3);
+    assertThat(retries.report().get("GET /actuator/health"))
+        .isEqualTo(RetryScheduler.Retries.builder().requests(1).retries(2).denied(0).build());
+    assertThat(latencies.report().get("GET /actuator/health").count()).isEqualTo(1);
+    assertThat(latencies.report().get("GET /actuator/health (retry)").count()).isEqualTo(2);
+  }
+
+  @Test
+  void getAsyncUsesTheContentTypePolicy() {
+    contentTypePolicy = ContentTypePolicy.firstSeen();
+    FhirTestClient client = client(exchange -> 200, "{}");
+    client.getAsync("r4/Patient/{id}", "1").join();
+    client.getAsync("r4/Patient/{id}", "2").join();
+    client.getAsync("/actuator/health").join();
+    assertThat(requests).hasSize(5);
+    assertThat(contentTypePolicy.coverage())
+        .containsOnlyKeys("GET r4/Patient/{id}")
+        .containsValue(ContentTypePolicy.Coverage.builder().requests(2).checked(1).build());
+  }
+
+  @Test
+  void urisAreResolvedAgainstTheService() {
+    ServiceDefinition service =
+        ServiceDefinition.builder()
+            .url("https://example.com/base")
+            .port(8443)
+            .apiPath("/")
+            .accessToken(Optional::empty)
+            .build();
+    assertThat(
+            AsyncHttp.uri(
+                service,
+                "/Observation?patient={p}&code=http://loinc.org|1&name=a b",
+                new Object[] {"1&2"}))
+        .hasToString(
+            "https://example.com:8443/base/Observation?patient=1%262"
+                + "&code=http://loinc.org%7C1&name=a%20b");
+    assertThatThrownBy(() -> AsyncHttp.uri(service, "Patient/{id}", new Object[0]))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static final class NoProxy extends ProxySelector {
+    @Override
+    public void connectFailed(URI uri, SocketAddress address, IOException e) {}
+
+    @Override
+    public List<Proxy> select(URI uri) {
+      return List.of(Proxy.NO_PROXY);
+    }
+  }
+}
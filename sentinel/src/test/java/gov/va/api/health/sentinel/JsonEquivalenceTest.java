@@ -0,0 +1,42 @@
+package gov.va.api.health.sentinel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class JsonEquivalenceTest {
+  private static Optional<String> firstDifference(String expected, String actual) {
+    return JsonEquivalence.firstDifference(
+        expected.getBytes(StandardCharsets.UTF_8), actual.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void differencesAreReportedAsJsonPointers() {
+    String bundle = "{\"entry\":[{\"id\":\"1\"},{\"id\":\"2\",\"name\":[\"a\"]}]}";
+    assertThat(firstDifference(bundle, bundle.replace("\"2\"", "\"3\""))).contains("/entry/1/id");
+    assertThat(firstDifference(bundle, bundle.replace("\"a\"", "\"b\"")))
+        .contains("/entry/1/name/0");
+    assertThat(firstDifference(bundle, bundle.replace("name", "nope"))).contains("/entry/1/name");
+    assertThat(firstDifference(bundle, bundle.replace("[\"a\"]", "\"a\"")))
+        .contains("/entry/1/name");
+    assertThat(firstDifference("1", "2")).contains("/");
+    assertThat(firstDifference("{\"n\":1.0}", "{\"n\":1}")).contains("/n");
+    assertThat(firstDifference("{\"a\":1}", "{\"a\":1,\"b\":2}")).contains("/b");
+  }
+
+  @Test
+  void equivalentBodiesHaveNoDifference() {
+    assertThat(firstDifference("{\"a\":[1,true,null]}", "{\"a\":[1,true,null]}")).isEmpty();
+    assertThat(firstDifference("{\"a\":[1,true,null]}", "{ \"a\" : [ 1, true, null ] }\n"))
+        .isEmpty();
+    assertThat(firstDifference("", "")).isEmpty();
+  }
+
+  @Test
+  void nonJsonBodiesMustBeIdentical() {
+    assertThat(firstDifference("<html/>", "<html/>")).isEmpty();
+    assertThat(firstDifference("<html/>", "<html />")).contains("byte 5 (not JSON)");
+  }
+}
@@ -0,0 +1,35 @@
+package gov.va.api.health.sentinel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.restassured.specification.SpecificationQuerier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LabBotTest {
+  @TempDir Path tempDir;
+
+  @Test
+  @SneakyThrows
+  void labRequestsVerifyCertificatesAndHostnames() {
+    Path configFile = tempDir.resolve("lab.properties");
+    Files.writeString(configFile, "va-oauth-robot.base-url=https://lab.example.com/fhir\n");
+    LabBot bot =
+        LabBot.builder()
+            .scopes(List.of("patient/Patient.read"))
+            .userIds(List.of("shanktopus"))
+            .configFile(configFile.toString())
+            .build();
+    assertThat(bot.labService().relaxedHttpsValidation()).isFalse();
+    assertThat(
+            SpecificationQuerier.query(bot.labService().requestSpecification())
+                .getConfig()
+                .getSSLConfig()
+                .isUserConfigured())
+        .isFalse();
+  }
+}
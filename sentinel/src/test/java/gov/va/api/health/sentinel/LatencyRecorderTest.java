@@ -0,0 +1,92 @@
+package gov.va.api.health.sentinel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.data.Offset.offset;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class LatencyRecorderTest {
+  private final LatencyRecorder recorder = new LatencyRecorder();
+
+  private void record(String template, long... millis) {
+    for (long m : millis) {
+      recorder.record(template, TimeUnit.MILLISECONDS.toNanos(m));
+    }
+  }
+
+  @Test
+  void budgetsAreAssertedForEachTemplate() {
+    record("GET Patient/{id}", 10, 20, 30);
+    record("GET Patient?patient={}", 100, 200, 300);
+    recorder.assertWithinBudget("p50", Duration.ofMillis(250));
+    assertThatThrownBy(() -> recorder.assertWithinBudget("max", Duration.ofMillis(250)))
+        .isInstanceOf(AssertionError.class)
+        .hasMessageContaining("GET Patient?patient={} max 300")
+        .hasMessageNotContaining("GET Patient/{id}");
+    assertThatThrownBy(() -> recorder.assertWithinBudget("p75", Duration.ofMillis(250)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void budgetsAreReadFromSystemProperties() {
+    record("GET Patient/{id}", 10, 20, 30);
+    recorder.assertWithinBudgets();
+    System.setProperty("sentinel.latency.budget.p99.9", "25");
+    try {
+      assertThatThrownBy(recorder::assertWithinBudgets)
+          .isInstanceOf(AssertionError.class)
+          .hasMessageContaining("GET Patient/{id} p99.9");
+    } finally {
+      System.clearProperty("sentinel.latency.budget.p99.9");
+    }
+  }
+
+  @Test
+  void percentilesAreReportedByTemplate() {
+    for (int i = 1; i <= 1000; i++) {
+      record("GET Patient/{id}", i);
+    }
+    assertThat(recorder.time("GET Patient/{id}", () -> "ok")).isEqualTo("ok");
+    Map<String, LatencyPercentiles> report = recorder.report();
+    LatencyPercentiles latency = report.get("GET Patient/{id}");
+    assertThat(latency.count()).isEqualTo(1001);
+    assertThat(latency.p50()).isCloseTo(500, offset(1.0));
+    assertThat(latency.p90()).isCloseTo(900, offset(1.0));
+    assertThat(latency.p99()).isCloseTo(990, offset(1.0));
+    assertThat(latency.p999()).isCloseTo(999, offset(1.0));
+    assertThat(latency.max()).isCloseTo(1000, offset(1.0));
+    assertThat(latency.toString()).contains("p99.9=");
+    recorder.reset();
+    assertThat(recorder.report()).isEmpty();
+  }
+
+  @Test
+  void idsAreRemovedFromTemplates() {
+    for (String id : List.of("123", "1011537977V693883", "abc-def", "I2-XYZ")) {
+      assertThat(LatencyRecorder.template("GET", "r4/Patient/" + id))
+          .isEqualTo("GET r4/Patient/{id}");
+    }
+    assertThat(LatencyRecorder.template("GET", "/r4/Observation/abc/_history/2?_format=json"))
+        .isEqualTo("GET /r4/Observation/{id}/_history/{id}?_format={}");
+    assertThat(
+            LatencyRecorder.template(
+                "GET", "/internal/3f2504e0-4f89-11d3-9a0c-0305e82c3301/Patient/$everything"))
+        .isEqualTo("GET /internal/{id}/Patient/$everything");
+    assertThat(LatencyRecorder.template("POST", "r4/Patient/_search"))
+        .isEqualTo("POST r4/Patient/_search");
+    assertThat(LatencyRecorder.template("GET", "/actuator/health"))
+        .isEqualTo("GET /actuator/health");
+  }
+
+  @Test
+  void queryValuesAreRemovedFromTemplates() {
+    assertThat(LatencyRecorder.template("GET", "Patient/{id}")).isEqualTo("GET Patient/{id}");
+    assertThat(LatencyRecorder.template("GET", "Patient?patient=123&_count=5&flag"))
+        .isEqualTo("GET Patient?patient={}&_count={}&flag");
+  }
+}
@@ -0,0 +1,139 @@
+package gov.va.api.health.sentinel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class RetrySchedulerTest {
+  private final List<Integer> attempts = new CopyOnWriteArrayList<>();
+
+  private CompletableFuture<Integer> respond(int attempt, int status) {
+    attempts.add(attempt);
+    return CompletableFuture.completedFuture(status);
+  }
+
+  @Test
+  void backoffIsExponentialWithJitter() {
+    RetryScheduler noJitter =
+        RetryScheduler.builder()
+            .initialBackoff(Duration.ofMillis(100))
+            .maxBackoff(Duration.ofMillis(300))
+            .random(() -> 1)
+            .build();
+    assertThat(noJitter.backoff(1)).isEqualTo(Duration.ofMillis(100));
+    assertThat(noJitter.backoff(2)).isEqualTo(Duration.ofMillis(200));
+    assertThat(noJitter.backoff(3)).isEqualTo(Duration.ofMillis(300));
+    RetryScheduler mostJitter =
+        RetryScheduler.builder().initialBackoff(Duration.ofMillis(100)).random(() -> 0).build();
+    assertThat(mostJitter.backoff(2)).isEqualTo(Duration.ofMillis(100));
+  }
+
+  @Test
+  void failedAttemptsAreNotRetried() {
+    RetryScheduler retries = RetryScheduler.builder().build();
+    CompletableFuture<Integer> result =
+        retries.retry(
+            "GET Patient/{id}",
+            attempt -> CompletableFuture.failedFuture(new IllegalStateException("nope")),
+            status -> true);
+    assertThatThrownBy(result::join)
+        .isInstanceOf(CompletionException.class)
+        .hasCauseInstanceOf(IllegalStateException.class);
+    assertThat(retries.report().get("GET Patient/{id}").retries()).isZero();
+  }
+
+  @Test
+  void retriesAreLimitedByTheBudget() {
+    RetryScheduler retries =
+        RetryScheduler.builder()
+            .maxAttempts(3)
+            .initialBackoff(Duration.ofMillis(1))
+            .retryBudget(3)
+            .retryRatio(0.25)
+            .build();
+    assertThat(retries.retry("GET Patient/{id}", a -> respond(a, 500), s -> s == 500).join())
+        .isEqualTo(500);
+    assertThat(attempts).containsExactly(1, 2, 3);
+    attempts.clear();
+    assertThat(retries.retry("GET Patient/{id}", a -> respond(a, 500), s -> s == 500).join())
+        .isEqualTo(500);
+    assertThat(attempts).containsExactly(1, 2);
+    attempts.clear();
+    assertThat(retries.retry("GET Patient/{id}", a -> respond(a, 500), s -> s == 500).join())
+        .isEqualTo(500);
+    assertThat(attempts).containsExactly(1);
+    assertThat(retries.report().get("GET Patient/{id}"))
+        .isEqualTo(RetryScheduler.Retries.builder().requests(3).retries(3).denied(2).build());
+  }
+
+  @Test
+  void retriesAreMadeByTheExecutor() {
+    List<String> threads = new CopyOnWriteArrayList<>();
+    try (SentinelExecutor executor =
+        SentinelExecutor.builder().name("retries").threads(1).queueSize(1).build()) {
+      RetryScheduler retries =
+          RetryScheduler.builder().initialBackoff(Duration.ofMillis(1)).executor(executor).build();
+      assertThat(
+              retries
+                  .retry(
+                      "GET Patient/{id}",
+                      a -> {
+                        threads.add(Thread.currentThread().getName());
+                        return respond(a, a == 1 ? 500 : 200);
+                      },
+                      s -> s == 500)
+                  .join())
+          .isEqualTo(200);
+    }
+    assertThat(threads).hasSize(2);
+    assertThat(threads.get(0)).isEqualTo(Thread.currentThread().getName());
+    assertThat(threads.get(1)).startsWith("retries-");
+  }
+
+  @Test
+  void retriesAreNotMadeWhenTheExecutorIsFull() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    try (SentinelExecutor executor =
+        SentinelExecutor.builder().name("full").threads(1).queueSize(1).build()) {
+      executor.execute(
+          () -> {
+            try {
+              release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          });
+      executor.execute(() -> {});
+      RetryScheduler retries =
+          RetryScheduler.builder().initialBackoff(Duration.ofMillis(1)).executor(executor).build();
+      CompletableFuture<Integer> result =
+          retries.retry("GET Patient/{id}", a -> respond(a, 500), s -> s == 500);
+      assertThatThrownBy(result::join)
+          .isInstanceOf(CompletionException.class)
+          .hasCauseInstanceOf(RejectedExecutionException.class);
+      assertThat(attempts).containsExactly(1);
+      assertThat(executor.metrics().rejected()).isEqualTo(1);
+      release.countDown();
+    }
+  }
+
+  @Test
+  void successfulResponsesAreNotRetried() {
+    RetryScheduler retries = RetryScheduler.builder().initialBackoff(Duration.ofMillis(1)).build();
+    assertThat(
+            retries
+                .retry("GET Patient/{id}", a -> respond(a, a == 1 ? 500 : 200), s -> s == 500)
+                .join())
+        .isEqualTo(200);
+    assertThat(attempts).containsExactly(1, 2);
+  }
+}
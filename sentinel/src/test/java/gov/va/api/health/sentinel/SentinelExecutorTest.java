@@ -0,0 +1,90 @@
+package gov.va.api.health.sentinel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class SentinelExecutorTest {
+  @Test
+  void fullQueueRunsTasksOnTheCallingThread() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    try (SentinelExecutor executor =
+        SentinelExecutor.builder().name("test").threads(1).queueSize(1).build()) {
+      executor.execute(
+          () -> {
+            started.countDown();
+            await(release);
+          });
+      await(started);
+      executor.execute(() -> {});
+      Future<String> callerRun = executor.submit(() -> Thread.currentThread().getName());
+      assertThat(callerRun.get()).isEqualTo(Thread.currentThread().getName());
+      SentinelExecutor.Metrics metrics = executor.metrics();
+      assertThat(metrics.activeTasks()).isEqualTo(1);
+      assertThat(metrics.queueDepth()).isEqualTo(1);
+      assertThat(metrics.queueCapacity()).isEqualTo(1);
+      assertThat(metrics.callerRuns()).isEqualTo(1);
+      release.countDown();
+    }
+  }
+
+  private void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Test
+  void fullQueueRejectsTasksThatMustNotRunOnTheCallingThread() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch ran = new CountDownLatch(2);
+    try (SentinelExecutor executor =
+        SentinelExecutor.builder().name("test").threads(1).queueSize(1).build()) {
+      assertThat(executor.tryExecute(() -> await(release))).isTrue();
+      assertThat(executor.tryExecute(ran::countDown)).isTrue();
+      assertThat(executor.tryExecute(ran::countDown)).isFalse();
+      SentinelExecutor.Metrics metrics = executor.metrics();
+      assertThat(metrics.callerRuns()).isEqualTo(0);
+      assertThat(metrics.rejected()).isEqualTo(1);
+      release.countDown();
+      executor.close();
+      assertThat(ran.getCount()).isEqualTo(1);
+      assertThat(executor.tryExecute(() -> {})).isFalse();
+    }
+  }
+
+  @Test
+  void ownedExecutorsAreShutDownWhenClosed() throws Exception {
+    SentinelExecutor executor = SentinelExecutor.builder().name("owned").threads(2).build();
+    Future<Thread> thread = executor.submit(Thread::currentThread);
+    assertThat(thread.get().getName()).startsWith("owned-");
+    assertThat(thread.get().isDaemon()).isTrue();
+    executor.close();
+    assertThat(executor.isTerminated()).isTrue();
+    assertThat(executor.metrics().completedTasks()).isEqualTo(1);
+    assertThatThrownBy(() -> executor.execute(() -> {}))
+        .isInstanceOf(RejectedExecutionException.class);
+  }
+
+  @Test
+  void sharedExecutorCannotBeClosed() {
+    SentinelExecutor shared = SentinelExecutor.shared();
+    assertThat(SentinelExecutor.shared()).isSameAs(shared);
+    shared.close();
+    assertThat(shared.isShutdown()).isFalse();
+    assertThat(
+            FhirTestClient.builder()
+                .errorResponseEqualityCheck((a, b) -> true)
+                .build()
+                .executorService())
+        .isSameAs(shared);
+  }
+}
@@ -0,0 +1,68 @@
+package gov.va.api.health.sentinel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.SSLConfig;
+import io.restassured.specification.SpecificationQuerier;
+import java.util.Optional;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.junit.jupiter.api.Test;
+
+class ServiceDefinitionTest {
+  private static HttpClientConfig httpClientConfig(ServiceDefinition service) {
+    return SpecificationQuerier.query(service.requestSpecification())
+        .getConfig()
+        .getHttpClientConfig();
+  }
+
+  private static SSLConfig sslConfig(ServiceDefinition service) {
+    return SpecificationQuerier.query(service.requestSpecification()).getConfig().getSSLConfig();
+  }
+
+  @Test
+  void relaxedHttpsValidationCanBeDisabled() {
+    ServiceDefinition relaxed =
+        new ServiceDefinition("https://example.com", 443, "/r4/", Optional::empty);
+    assertThat(relaxed.relaxedHttpsValidation()).isTrue();
+    assertThat(sslConfig(relaxed).isUserConfigured()).isTrue();
+    assertThat(sslConfig(relaxed).getSSLSocketFactory()).isNotNull();
+    ServiceDefinition strict =
+        ServiceDefinition.builder()
+            .url("https://example.com")
+            .port(443)
+            .apiPath("/r4/")
+            .accessToken(Optional::empty)
+            .relaxedHttpsValidation(false)
+            .build();
+    assertThat(sslConfig(strict).isUserConfigured()).isFalse();
+    assertThat(sslConfig(strict).getSSLSocketFactory()).isNull();
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  void requestSpecificationsShareAPooledClient() {
+    ServiceDefinition service =
+        ServiceDefinition.builder()
+            .url("https://example.com")
+            .port(443)
+            .apiPath("/r4/")
+            .accessToken(() -> Optional.of("shanktopus"))
+            .maxConnections(20)
+            .maxConnectionsPerRoute(5)
+            .build();
+    HttpClientConfig config = httpClientConfig(service);
+    assertThat(config.isConfiguredToReuseTheSameHttpClientInstance()).isTrue();
+    assertThat(httpClientConfig(service).httpClientInstance())
+        .isSameAs(config.httpClientInstance());
+    PoolingClientConnectionManager connections =
+        (PoolingClientConnectionManager) config.httpClientInstance().getConnectionManager();
+    assertThat(connections.getMaxTotal()).isEqualTo(20);
+    assertThat(connections.getDefaultMaxPerRoute()).isEqualTo(5);
+    ServiceDefinition other =
+        new ServiceDefinition("https://example.com", 443, "/r4/", Optional::empty);
+    assertThat(other.maxConnections()).isEqualTo(100);
+    assertThat(httpClientConfig(other).httpClientInstance())
+        .isNotSameAs(config.httpClientInstance());
+  }
+}
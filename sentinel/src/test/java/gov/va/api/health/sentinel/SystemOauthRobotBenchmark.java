@@ -0,0 +1,72 @@
+package gov.va.api.health.sentinel;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Rough benchmark of client assertion signing, comparing SystemOauthRobot to signing that derives
+ * the key from the secret for every assertion, as was previously done.
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes:$CLASSPATH \
+ *   gov.va.api.health.sentinel.SystemOauthRobotBenchmark [iterations]
+ * </pre>
+ */
+public class SystemOauthRobotBenchmark {
+  private static final SystemOauthRobot.Configuration CONFIG =
+      SystemOauthRobot.Configuration.builder()
+          .tokenUrl("http://localhost/token")
+          .clientId("benchmark")
+          .clientSecret("a-secret-that-is-at-least-256-bits-long-for-hs256")
+          .audience("https://example.com/token")
+          .scopes(Set.of("system/Patient.read"))
+          .build();
+
+  /** Run both implementations, warming each up first. */
+  public static void main(String[] args) {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+    SystemOauthRobot robot = SystemOauthRobot.builder().config(CONFIG).build();
+    for (int round = 0; round < 3; round++) {
+      long uncachedNanos = time(iterations, SystemOauthRobotBenchmark::signUncached);
+      long cachedNanos = time(iterations, robot::clientAssertion);
+      System.out.printf(
+          "round %d: uncached %,d ns/op (%,.0f ops/s), cached %,d ns/op (%,.0f ops/s)%n",
+          round,
+          uncachedNanos / iterations,
+          iterations * 1e9 / uncachedNanos,
+          cachedNanos / iterations,
+          iterations * 1e9 / cachedNanos);
+    }
+  }
+
+  @SuppressWarnings("JdkObsolete")
+  private static String signUncached() {
+    Key key = Keys.hmacShaKeyFor(CONFIG.clientSecret().getBytes(StandardCharsets.UTF_8));
+    return Jwts.builder()
+        .setHeaderParam("typ", "JWT")
+        .setAudience(CONFIG.audience())
+        .setIssuer(CONFIG.clientId())
+        .setSubject(CONFIG.clientId())
+        .setId(UUID.randomUUID().toString())
+        .setIssuedAt(Date.from(Instant.now()))
+        .setExpiration(Date.from(CONFIG.expiration()))
+        .signWith(key, SignatureAlgorithm.HS256)
+        .compact();
+  }
+
+  private static long time(int iterations, Supplier<String> signer) {
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      signer.get();
+    }
+    return System.nanoTime() - start;
+  }
+}
@@ -0,0 +1,203 @@
+package gov.va.api.health.sentinel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SystemOauthRobotTest {
+  private static final String SECRET = "a-secret-that-is-at-least-256-bits-long-for-hs256";
+
+  private final AtomicInteger requests = new AtomicInteger();
+
+  private final MutableClock clock = new MutableClock();
+
+  private HttpServer server;
+
+  private static String token(int request) {
+    return "{\"access_token\":\"a" + request + "\",\"expires_in\":600}";
+  }
+
+  @SneakyThrows
+  private SystemOauthRobot robot(IntFunction<String> response, long delayMillis) {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.createContext(
+        "/token",
+        exchange -> {
+          byte[] body = response.apply(requests.incrementAndGet()).getBytes(StandardCharsets.UTF_8);
+          sleep(delayMillis);
+          exchange.getResponseHeaders().add("Content-Type", "application/json");
+          exchange.sendResponseHeaders(200, body.length);
+          exchange.getResponseBody().write(body);
+          exchange.close();
+        });
+    server.start();
+    return SystemOauthRobot.builder()
+        .config(config("http://localhost:" + server.getAddress().getPort() + "/token"))
+        .clock(clock)
+        .build();
+  }
+
+  private static SystemOauthRobot.Configuration config(String tokenUrl) {
+    return SystemOauthRobot.Configuration.builder()
+        .tokenUrl(tokenUrl)
+        .clientId("robot")
+        .clientSecret(SECRET)
+        .audience("https://example.com/token")
+        .scopes(Set.of("system/Patient.read"))
+        .build();
+  }
+
+  private Claims claims(String assertion) {
+    return Jwts.parserBuilder()
+        .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+        .setClock(() -> Date.from(clock.instant()))
+        .build()
+        .parseClaimsJws(assertion)
+        .getBody();
+  }
+
+  @SneakyThrows
+  private void sleep(long millis) {
+    Thread.sleep(millis);
+  }
+
+  @AfterEach
+  void stop() {
+    if (server != null) {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  void assertionsExpireRelativeToWhenTheyAreIssued() {
+    SystemOauthRobot robot =
+        SystemOauthRobot.builder().config(config("http://localhost/token")).clock(clock).build();
+    Claims first = claims(robot.clientAssertion());
+    assertThat(first.getIssuedAt().toInstant()).isEqualTo(clock.instant());
+    assertThat(first.getExpiration().toInstant())
+        .isEqualTo(clock.instant().plus(Duration.ofMinutes(30)));
+    clock.advance(Duration.ofHours(1));
+    Claims second = claims(robot.clientAssertion());
+    assertThat(second.getExpiration().toInstant())
+        .isEqualTo(clock.instant().plus(Duration.ofMinutes(30)));
+    assertThat(second.getId()).isNotEqualTo(first.getId());
+    Instant fixed = clock.instant().plus(Duration.ofMinutes(5));
+    SystemOauthRobot.Configuration fixedConfig =
+        SystemOauthRobot.Configuration.builder()
+            .tokenUrl("http://localhost/token")
+            .clientId("robot")
+            .clientSecret(SECRET)
+            .audience("https://example.com/token")
+            .scopes(Set.of("system/Patient.read"))
+            .expiration(fixed)
+            .build();
+    assertThat(fixedConfig.expiration()).isEqualTo(fixed);
+    assertThat(
+            claims(
+                    SystemOauthRobot.builder()
+                        .config(fixedConfig)
+                        .clock(clock)
+                        .build()
+                        .clientAssertion())
+                .getExpiration()
+                .toInstant())
+        .isEqualTo(fixed);
+  }
+
+  @Test
+  void concurrentCallersShareOneRequest() throws Exception {
+    SystemOauthRobot robot = robot(SystemOauthRobotTest::token, 200);
+    ExecutorService callers = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<TokenExchange>> tokens = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        tokens.add(callers.submit(robot::token));
+      }
+      for (Future<TokenExchange> token : tokens) {
+        assertThat(token.get().accessToken()).isEqualTo("a1");
+      }
+    } finally {
+      callers.shutdownNow();
+    }
+    assertThat(requests.get()).isEqualTo(1);
+  }
+
+  @Test
+  void errorsAreNotCached() {
+    SystemOauthRobot robot = robot(request -> "{\"error\":\"nope\"}", 0);
+    assertThat(robot.token().isError()).isTrue();
+    assertThat(robot.token().isError()).isTrue();
+    assertThat(requests.get()).isEqualTo(2);
+  }
+
+  @Test
+  void tokensAreRefreshedInTheBackgroundBeforeTheyExpire() {
+    SystemOauthRobot robot = robot(SystemOauthRobotTest::token, 0);
+    assertThat(robot.token().accessToken()).isEqualTo("a1");
+    clock.advance(Duration.ofSeconds(406));
+    assertThat(robot.token().accessToken()).isEqualTo("a1");
+    for (int i = 0; i < 100 && !"a2".equals(robot.token().accessToken()); i++) {
+      sleep(50);
+    }
+    assertThat(robot.token().accessToken()).isEqualTo("a2");
+    assertThat(requests.get()).isEqualTo(2);
+  }
+
+  @Test
+  void tokensAreReusedUntilTheSkewBeforeTheyExpire() {
+    SystemOauthRobot robot = robot(SystemOauthRobotTest::token, 0);
+    assertThat(robot.token().accessToken()).isEqualTo("a1");
+    clock.advance(Duration.ofSeconds(400));
+    assertThat(robot.token().accessToken()).isEqualTo("a1");
+    assertThat(requests.get()).isEqualTo(1);
+    clock.advance(Duration.ofSeconds(140));
+    assertThat(robot.token().accessToken()).isEqualTo("a2");
+    assertThat(requests.get()).isEqualTo(2);
+  }
+
+  private static final class MutableClock extends Clock {
+    private volatile Instant now = Instant.parse("2020-06-01T00:00:00Z");
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+  }
+}
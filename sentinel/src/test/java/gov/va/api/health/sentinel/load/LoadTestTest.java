@@ -0,0 +1,129 @@
+package gov.va.api.health.sentinel.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import gov.va.api.health.sentinel.ExpectedResponse;
+import gov.va.api.health.sentinel.TestClient;
+import io.restassured.response.Response;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LoadTestTest {
+  private final TestClient client = mock(TestClient.class);
+
+  private static Function<TestClient, ExpectedResponse> respond(int status, long sleepMillis) {
+    Response response = mock(Response.class);
+    when(response.getStatusCode()).thenReturn(status);
+    ExpectedResponse expected = ExpectedResponse.of(response);
+    return tc -> {
+      sleep(sleepMillis);
+      return expected;
+    };
+  }
+
+  @SneakyThrows
+  private static void sleep(long millis) {
+    Thread.sleep(millis);
+  }
+
+  @Test
+  void arrivalRatesChangeOverTime() {
+    assertThat(ArrivalRate.constant(5).perSecond(Duration.ofHours(1))).isEqualTo(5);
+    ArrivalRate ramp = ArrivalRate.ramp(10, 20, Duration.ofSeconds(10));
+    assertThat(ramp.perSecond(Duration.ZERO)).isEqualTo(10);
+    assertThat(ramp.perSecond(Duration.ofSeconds(5))).isEqualTo(15);
+    assertThat(ramp.perSecond(Duration.ofSeconds(20))).isEqualTo(20);
+    ArrivalRate steps = ArrivalRate.steps(10, 5, Duration.ofSeconds(10), 22);
+    assertThat(steps.perSecond(Duration.ofSeconds(9))).isEqualTo(10);
+    assertThat(steps.perSecond(Duration.ofSeconds(10))).isEqualTo(15);
+    assertThat(steps.perSecond(Duration.ofSeconds(25))).isEqualTo(20);
+    assertThat(steps.perSecond(Duration.ofSeconds(100))).isEqualTo(22);
+  }
+
+  @Test
+  void failuresAreCounted() {
+    LoadTestSummary summary =
+        LoadTest.builder()
+            .name("failures")
+            .client(client)
+            .request(
+                tc -> {
+                  throw new AssertionError("nope");
+                })
+            .arrivals(ArrivalRate.constant(100))
+            .duration(Duration.ofMillis(100))
+            .concurrency(2)
+            .build()
+            .run();
+    assertThat(summary.failed()).isEqualTo(summary.scheduled()).isPositive();
+    assertThat(summary.statuses()).isEmpty();
+  }
+
+  @Test
+  void latencyIncludesTimeWaitingToBeSent() {
+    LoadTestSummary summary =
+        LoadTest.builder()
+            .name("slow")
+            .client(client)
+            .request(respond(200, 20))
+            .arrivals(ArrivalRate.constant(200))
+            .duration(Duration.ofMillis(200))
+            .concurrency(1)
+            .build()
+            .run();
+    assertThat(summary.serviceTime().max()).isLessThan(100);
+    assertThat(summary.latency().max()).isGreaterThan(summary.serviceTime().max() * 3);
+    assertThat(summary.completed()).isEqualTo(summary.scheduled());
+  }
+
+  @Test
+  void requestsAreDroppedWhenTooManyAreWaiting() {
+    LoadTestSummary summary =
+        LoadTest.builder()
+            .name("dropped")
+            .client(client)
+            .request(respond(200, 50))
+            .arrivals(ArrivalRate.constant(200))
+            .duration(Duration.ofMillis(100))
+            .concurrency(1)
+            .maxQueued(1)
+            .build()
+            .run();
+    assertThat(summary.dropped()).isPositive();
+    assertThat(summary.completed()).isEqualTo(summary.scheduled());
+  }
+
+  @Test
+  @SneakyThrows
+  void requestsAreSentAtTheArrivalRate(@TempDir Path dir) {
+    LoadTestSummary summary =
+        LoadTest.builder()
+            .name("constant")
+            .client(client)
+            .request(respond(200, 0))
+            .arrivals(ArrivalRate.constant(100))
+            .duration(Duration.ofMillis(500))
+            .concurrency(4)
+            .build()
+            .run();
+    assertThat(summary.scheduled()).isEqualTo(50);
+    assertThat(summary.completed()).isEqualTo(summary.scheduled());
+    assertThat(summary.dropped()).isZero();
+    assertThat(summary.statuses()).isEqualTo(Map.of(200, summary.completed()));
+    assertThat(summary.latency().count()).isEqualTo(summary.completed());
+    Path file = dir.resolve("load/constant.json");
+    summary.writeTo(file);
+    assertThat(Files.readString(file))
+        .contains("\"name\" : \"constant\"")
+        .contains("\"latency\"")
+        .contains("\"p999\"");
+  }
+}
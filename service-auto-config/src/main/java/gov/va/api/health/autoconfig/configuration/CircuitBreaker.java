@@ -0,0 +1,188 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+import lombok.Builder;
+import lombok.NonNull;
+
+/**
+ * Lock-free circuit breaker based on the failure rate over a sliding time window.
+ *
+ * <p>While closed, outcomes are counted in a ring of time buckets covering the window. When at
+ * least the minimum number of requests have been made within the window and the percentage of
+ * failures reaches the threshold, the circuit opens and requests are rejected. Once the open
+ * duration has passed, the circuit becomes half open and a limited number of trial requests are
+ * permitted. If they all succeed, the circuit closes with an empty window. If any fails, it opens
+ * again.
+ *
+ * <p>Each state is an immutable phase object, replaced with compare-and-set. Callers hold on to the
+ * phase returned by {@link #acquire()} and report the outcome against it, so that outcomes of
+ * requests started in an earlier phase are ignored.
+ */
+final class CircuitBreaker {
+  private static final int BUCKETS = 10;
+
+  private final int failureRateThreshold;
+
+  private final int minimumRequests;
+
+  private final int halfOpenRequests;
+
+  private final long bucketNanos;
+
+  private final long openNanos;
+
+  private final LongSupplier nanoClock;
+
+  private final AtomicReference<Phase> phase;
+
+  @Builder
+  CircuitBreaker(
+      int failureRateThreshold,
+      int minimumRequests,
+      @NonNull Duration window,
+      @NonNull Duration openDuration,
+      int halfOpenRequests,
+      LongSupplier nanoClock) {
+    this.failureRateThreshold = failureRateThreshold;
+    this.minimumRequests = Math.max(1, minimumRequests);
+    this.halfOpenRequests = Math.max(1, halfOpenRequests);
+    this.bucketNanos = Math.max(1, window.toNanos() / BUCKETS);
+    this.openNanos = openDuration.toNanos();
+    this.nanoClock = nanoClock == null ? System::nanoTime : nanoClock;
+    this.phase = new AtomicReference<>(Phase.closed());
+  }
+
+  /**
+   * Return the current phase if a request is permitted, or null if it must be rejected. The outcome
+   * of a permitted request must be reported with {@link #record(Phase, boolean)}.
+   */
+  Phase acquire() {
+    while (true) {
+      Phase current = phase.get();
+      switch (current.state) {
+        case CLOSED:
+          return current;
+        case HALF_OPEN:
+          return current.permits.getAndDecrement() > 0 ? current : null;
+        default:
+          if (nanoClock.getAsLong() - current.since < openNanos) {
+            return null;
+          }
+          phase.compareAndSet(current, Phase.halfOpen(halfOpenRequests));
+      }
+    }
+  }
+
+  /** Record the outcome of a request that was permitted in the given phase. */
+  void record(@NonNull Phase acquired, boolean success) {
+    if (phase.get() != acquired) {
+      return;
+    }
+    if (acquired.state == State.HALF_OPEN) {
+      if (!success) {
+        phase.compareAndSet(acquired, Phase.open(nanoClock.getAsLong()));
+      } else if (acquired.successes.incrementAndGet() >= halfOpenRequests) {
+        phase.compareAndSet(acquired, Phase.closed());
+      }
+      return;
+    }
+    long now = nanoClock.getAsLong();
+    long epoch = Math.floorDiv(now, bucketNanos);
+    Bucket bucket = acquired.bucket(epoch);
+    bucket.total.incrementAndGet();
+    if (success) {
+      return;
+    }
+    bucket.failures.incrementAndGet();
+    if (failureRateThreshold <= 0) {
+      return;
+    }
+    long total = 0;
+    long failures = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      Bucket b = acquired.buckets.get(i);
+      if (b != null && b.epoch > epoch - BUCKETS) {
+        total += b.total.get();
+        failures += b.failures.get();
+      }
+    }
+    if (total >= minimumRequests && failures * 100 >= total * failureRateThreshold) {
+      phase.compareAndSet(acquired, Phase.open(now));
+    }
+  }
+
+  State state() {
+    return phase.get().state;
+  }
+
+  enum State {
+    CLOSED,
+    HALF_OPEN,
+    OPEN
+  }
+
+  /** Counts for one slice of the window. Replaced, not reset, when the slice is reused. */
+  private static final class Bucket {
+    private final long epoch;
+
+    private final AtomicLong total = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    Bucket(long epoch) {
+      this.epoch = epoch;
+    }
+  }
+
+  static final class Phase {
+    private final State state;
+
+    private final long since;
+
+    private final AtomicInteger permits;
+
+    private final AtomicInteger successes;
+
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    private Phase(State state, long since, int permits, AtomicReferenceArray<Bucket> buckets) {
+      this.state = state;
+      this.since = since;
+      this.permits = new AtomicInteger(permits);
+      this.successes = new AtomicInteger();
+      this.buckets = buckets;
+    }
+
+    static Phase closed() {
+      return new Phase(State.CLOSED, 0, 0, new AtomicReferenceArray<>(BUCKETS));
+    }
+
+    static Phase halfOpen(int permits) {
+      return new Phase(State.HALF_OPEN, 0, permits, null);
+    }
+
+    static Phase open(long since) {
+      return new Phase(State.OPEN, since, 0, null);
+    }
+
+    /** Return the bucket for the epoch, replacing the bucket from an earlier epoch if needed. */
+    Bucket bucket(long epoch) {
+      int index = (int) Math.floorMod(epoch, (long) BUCKETS);
+      while (true) {
+        Bucket bucket = buckets.get(index);
+        if (bucket != null && bucket.epoch >= epoch) {
+          return bucket;
+        }
+        Bucket replacement = new Bucket(epoch);
+        if (buckets.compareAndSet(index, bucket, replacement)) {
+          return replacement;
+        }
+      }
+    }
+  }
+}
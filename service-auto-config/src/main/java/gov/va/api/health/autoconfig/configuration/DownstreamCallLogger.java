@@ -0,0 +1,144 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.va.api.health.autoconfig.logging.MethodExecutionLogger;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+import lombok.Builder;
+import lombok.Data;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Logs one structured line per downstream call.
+ *
+ * <p>Calls that throw or receive a 4xx or 5xx response are always logged, at WARN. Other calls are
+ * logged at INFO with the given sample rate. The line is written when the response is closed, so
+ * that it includes the bytes read and the total duration. Unsampled calls are passed through
+ * without being wrapped.
+ *
+ * <p>The line includes the ID of the {@link MethodExecutionLogger} logging chain on the calling
+ * thread, if any, so that downstream calls can be correlated with the request that made them.
+ */
+@Slf4j
+final class DownstreamCallLogger {
+  private final double sampleRate;
+
+  private final DoubleSupplier random;
+
+  @Builder
+  DownstreamCallLogger(double sampleRate, DoubleSupplier random) {
+    this.sampleRate = sampleRate;
+    this.random = random == null ? () -> ThreadLocalRandom.current().nextDouble() : random;
+  }
+
+  /** Execute the request, logging it if it fails or is sampled. */
+  ClientHttpResponse execute(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+      throws IOException {
+    long start = System.nanoTime();
+    ClientHttpResponse response;
+    int status;
+    try {
+      response = execution.execute(request, body);
+    } catch (IOException | RuntimeException e) {
+      CallLogEntry entry = entry(request, body, start);
+      entry.outcome("exception");
+      entry.exception(e.getClass().getSimpleName());
+      entry.message(e.getMessage());
+      entry.durationNanos(System.nanoTime() - start);
+      log.warn("{}", entry);
+      throw e;
+    }
+    try {
+      status = response.getRawStatusCode();
+    } catch (IOException | RuntimeException e) {
+      response.close();
+      throw e;
+    }
+    boolean failed = status >= 400;
+    if (!failed && !isSampled()) {
+      return response;
+    }
+    CallLogEntry entry = entry(request, body, start);
+    entry.outcome(failed ? "failure" : "success");
+    entry.status(status);
+    entry.headersNanos(System.nanoTime() - start);
+    return new MeasuredResponse(
+        response,
+        responseBytes -> {
+          entry.durationNanos(System.nanoTime() - start);
+          entry.responseBytes(responseBytes);
+          if (failed) {
+            log.warn("{}", entry);
+          } else {
+            log.info("{}", entry);
+          }
+        });
+  }
+
+  private CallLogEntry entry(HttpRequest request, byte[] body, long start) {
+    CallLogEntry entry = new CallLogEntry();
+    entry.id(MethodExecutionLogger.currentId().orElse(null));
+    entry.method(request.getMethodValue());
+    entry.uri(request.getURI().toString());
+    entry.requestBytes(body == null ? 0 : body.length);
+    return entry;
+  }
+
+  private boolean isSampled() {
+    return sampleRate >= 1 || (sampleRate > 0 && random.getAsDouble() < sampleRate);
+  }
+
+  @Data
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  @JsonPropertyOrder({
+    "id",
+    "method",
+    "uri",
+    "outcome",
+    "status",
+    "headersNanos",
+    "durationNanos",
+    "requestBytes",
+    "responseBytes",
+    "exception",
+    "message"
+  })
+  static class CallLogEntry {
+    private static final ObjectMapper MAPPER = JacksonConfig.createMapper();
+
+    String id;
+
+    String method;
+
+    String uri;
+
+    String outcome;
+
+    Integer status;
+
+    Long headersNanos;
+
+    long durationNanos;
+
+    long requestBytes;
+
+    Long responseBytes;
+
+    String exception;
+
+    String message;
+
+    @Override
+    @SneakyThrows
+    public String toString() {
+      return MAPPER.writeValueAsString(this);
+    }
+  }
+}
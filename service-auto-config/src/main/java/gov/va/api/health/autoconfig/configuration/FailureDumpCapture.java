@@ -0,0 +1,259 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import gov.va.api.health.autoconfig.encryption.BasicEncryption;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Captures encrypted details of failed requests, bounding the work done when a destination fails
+ * repeatedly.
+ *
+ * <p>On the request thread, at most the max body size of the request and response bodies is copied.
+ * A failure identical to one captured within the dedup window (same method, URI, status, and
+ * response body) is skipped, as is a failure beyond the per destination rate. Serialization and
+ * encryption happen on a single background thread. If its queue is full, the failure is dropped.
+ *
+ * <p>Metrics: {@value #METRIC} (tagged by outcome, captured, duplicate, rate-limited, dropped, or
+ * failed).
+ */
+@Slf4j
+final class FailureDumpCapture implements AutoCloseable {
+  static final String METRIC = "http.client.failure-dumps";
+
+  private static final ObjectMapper MAPPER = JacksonConfig.createMapper();
+
+  private final BasicEncryption encryption;
+
+  private final int maxBodyBytes;
+
+  private final double permitsPerSecond;
+
+  private final double burst;
+
+  private final LongSupplier nanoClock;
+
+  private final Cache<Key, Boolean> recent;
+
+  private final Cache<String, RateLimit> destinations;
+
+  private final ThreadPoolExecutor executor;
+
+  private final Counter captured;
+
+  private final Counter duplicate;
+
+  private final Counter rateLimited;
+
+  private final Counter dropped;
+
+  private final Counter failed;
+
+  @Builder
+  FailureDumpCapture(
+      @NonNull BasicEncryption encryption,
+      @NonNull SslClientProperties.FailureDumps properties,
+      @NonNull MeterRegistry meterRegistry,
+      LongSupplier nanoClock) {
+    this.encryption = encryption;
+    this.maxBodyBytes =
+        (int) Math.max(0, Math.min(Integer.MAX_VALUE - 8, properties.getMaxBodySize().toBytes()));
+    this.permitsPerSecond = properties.getPermitsPerSecond();
+    this.burst = Math.max(1, properties.getBurst());
+    this.nanoClock = nanoClock == null ? System::nanoTime : nanoClock;
+    recent =
+        Caffeine.newBuilder()
+            .expireAfterWrite(properties.getDedupWindow())
+            .maximumSize(properties.getDedupMaxSize())
+            .ticker(this.nanoClock::getAsLong)
+            .executor(Runnable::run)
+            .build();
+    destinations =
+        Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .maximumSize(1000)
+            .ticker(this.nanoClock::getAsLong)
+            .executor(Runnable::run)
+            .build();
+    CustomizableThreadFactory threads = new CustomizableThreadFactory("failure-dump-");
+    threads.setDaemon(true);
+    executor =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, properties.getQueueSize())),
+            threads);
+    captured = meterRegistry.counter(METRIC, "outcome", "captured");
+    duplicate = meterRegistry.counter(METRIC, "outcome", "duplicate");
+    rateLimited = meterRegistry.counter(METRIC, "outcome", "rate-limited");
+    dropped = meterRegistry.counter(METRIC, "outcome", "dropped");
+    failed = meterRegistry.counter(METRIC, "outcome", "failed");
+  }
+
+  private static String destination(URI uri) {
+    return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+  }
+
+  private static Map<String, Object> info(byte[] body, int length, HttpHeaders headers) {
+    Map<String, Object> info = new LinkedHashMap<>();
+    info.put("headers", headers);
+    info.put("body", new String(body, 0, Math.min(body.length, length), StandardCharsets.UTF_8));
+    if (body.length > length) {
+      info.put("bodyTruncated", true);
+    }
+    return info;
+  }
+
+  /**
+   * Capture the failure, if permitted, returning a response that can still be read in full. The
+   * response body is read up to the max body size.
+   */
+  ClientHttpResponse capture(HttpRequest request, byte[] body, ClientHttpResponse response)
+      throws IOException {
+    byte[] responseBody;
+    InputStream in = response.getBody();
+    ClientHttpResponse readable = response;
+    if (in.markSupported()) {
+      in.mark(maxBodyBytes + 1);
+      responseBody = in.readNBytes(maxBodyBytes + 1);
+      in.reset();
+    } else {
+      responseBody = in.readNBytes(maxBodyBytes + 1);
+      readable = new PartiallyReadResponse(response, responseBody);
+    }
+    int status = response.getRawStatusCode();
+    Key key =
+        new Key(
+            request.getMethodValue(),
+            request.getURI().toString(),
+            status,
+            Arrays.hashCode(responseBody));
+    if (recent.asMap().putIfAbsent(key, Boolean.TRUE) != null) {
+      duplicate.increment();
+      return readable;
+    }
+    RateLimit rateLimit =
+        destinations.get(destination(request.getURI()), d -> new RateLimit(nanoClock.getAsLong()));
+    if (!rateLimit.tryAcquire(nanoClock.getAsLong())) {
+      recent.asMap().remove(key, Boolean.TRUE);
+      rateLimited.increment();
+      return readable;
+    }
+    Map<String, Object> requestInfo = info(copy(body), maxBodyBytes, copy(request.getHeaders()));
+    requestInfo.put("method", request.getMethodValue());
+    requestInfo.put("uri", request.getURI());
+    Map<String, Object> responseInfo =
+        info(responseBody, maxBodyBytes, copy(response.getHeaders()));
+    HttpStatus resolved = HttpStatus.resolve(status);
+    responseInfo.put("statusCode", resolved == null ? status : resolved);
+    responseInfo.put("statusCodeReason", response.getStatusText());
+    try {
+      executor.execute(() -> write(requestInfo, responseInfo));
+    } catch (RejectedExecutionException e) {
+      dropped.increment();
+    }
+    return readable;
+  }
+
+  /** Wait briefly for queued failures to be written, then stop. */
+  @Override
+  public void close() {
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private byte[] copy(byte[] body) {
+    if (body == null) {
+      return new byte[0];
+    }
+    return body.length > maxBodyBytes ? Arrays.copyOf(body, maxBodyBytes + 1) : body.clone();
+  }
+
+  private HttpHeaders copy(HttpHeaders headers) {
+    HttpHeaders copy = new HttpHeaders();
+    copy.putAll(headers);
+    return copy;
+  }
+
+  /** Serialize directly into the cipher to avoid intermediate copies of the bodies. */
+  private void write(Map<String, Object> requestInfo, Map<String, Object> responseInfo) {
+    ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+    try (OutputStream out = encryption.encryptingOutputStream(encrypted)) {
+      MAPPER.writeValue(out, Map.of("request", requestInfo, "response", responseInfo));
+    } catch (IOException | RuntimeException e) {
+      failed.increment();
+      log.warn("Failed to capture failed request: {}", e.getMessage());
+      return;
+    }
+    captured.increment();
+    log.error("REQUEST FAILED: {}", encrypted.toString(StandardCharsets.US_ASCII));
+  }
+
+  /** Identifies identical failures. */
+  @Value
+  private static class Key {
+    String method;
+
+    String uri;
+
+    int status;
+
+    int bodyHash;
+  }
+
+  /** Token bucket for one destination, refilled at the permitted rate up to the burst. */
+  private final class RateLimit {
+    private double tokens = burst;
+
+    private long lastNanos;
+
+    RateLimit(long nowNanos) {
+      lastNanos = nowNanos;
+    }
+
+    synchronized boolean tryAcquire(long nowNanos) {
+      tokens = Math.min(burst, tokens + (nowNanos - lastNanos) / 1e9 * permitsPerSecond);
+      lastNanos = nowNanos;
+      if (tokens < 1) {
+        return false;
+      }
+      tokens--;
+      return true;
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import lombok.Builder;
+import lombok.NonNull;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Interceptor that measures each downstream call, from sending the request until the response is
+ * closed, and the bytes sent and received.
+ *
+ * <p>Metrics: {@value #CALLS_METRIC} (a timer with a percentile histogram, tagged by host, method,
+ * and status, one of 1xx to 5xx, or exception), {@value #REQUEST_SIZE_METRIC} and {@value
+ * #RESPONSE_SIZE_METRIC} (tagged by host).
+ */
+class HttpClientMetricsInterceptor implements ClientHttpRequestInterceptor {
+  static final String CALLS_METRIC = "http.client.calls";
+
+  static final String REQUEST_SIZE_METRIC = "http.client.calls.request.size";
+
+  static final String RESPONSE_SIZE_METRIC = "http.client.calls.response.size";
+
+  private final MeterRegistry meterRegistry;
+
+  @Builder
+  HttpClientMetricsInterceptor(@NonNull MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  private static String host(URI uri) {
+    return uri.getHost() == null ? "none" : uri.getHost();
+  }
+
+  static String statusClass(int status) {
+    return status >= 100 && status < 600 ? (status / 100) + "xx" : "unknown";
+  }
+
+  @Override
+  public ClientHttpResponse intercept(
+      HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+    String host = host(request.getURI());
+    size(REQUEST_SIZE_METRIC, host).record(body == null ? 0 : body.length);
+    long start = System.nanoTime();
+    ClientHttpResponse response;
+    String status;
+    try {
+      response = execution.execute(request, body);
+    } catch (IOException | RuntimeException e) {
+      timer(host, request.getMethodValue(), "exception")
+          .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      throw e;
+    }
+    try {
+      status = statusClass(response.getRawStatusCode());
+    } catch (IOException | RuntimeException e) {
+      response.close();
+      timer(host, request.getMethodValue(), "exception")
+          .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      throw e;
+    }
+    Timer timer = timer(host, request.getMethodValue(), status);
+    DistributionSummary responseSize = size(RESPONSE_SIZE_METRIC, host);
+    return new MeasuredResponse(
+        response,
+        responseBytes -> {
+          timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+          responseSize.record(responseBytes);
+        });
+  }
+
+  private DistributionSummary size(String name, String host) {
+    return DistributionSummary.builder(name)
+        .baseUnit("bytes")
+        .tag("host", host)
+        .register(meterRegistry);
+  }
+
+  private Timer timer(String host, String method, String status) {
+    return Timer.builder(CALLS_METRIC)
+        .tag("host", host)
+        .tag("method", method)
+        .tag("status", status)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,72 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import lombok.NonNull;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * SSL socket factory that records the number and duration of TLS handshakes. Each handshake is
+ * recorded with the {@value #HANDSHAKE_METRIC} timer, tagged with the outcome and whether an
+ * existing session was resumed. Hostname verification is included in the measured time.
+ *
+ * <p>A session is considered resumed if it was created before the handshake started. This is exact
+ * for TLS 1.2 and a close approximation for TLS 1.3, where a resumed session is created when the
+ * ticket is received on the earlier connection.
+ */
+class InstrumentedSslConnectionSocketFactory extends SSLConnectionSocketFactory {
+  static final String HANDSHAKE_METRIC = "ssl.client.handshake";
+
+  private final Timer fullHandshakes;
+
+  private final Timer resumedHandshakes;
+
+  private final Timer failedHandshakes;
+
+  InstrumentedSslConnectionSocketFactory(
+      SSLContext sslContext,
+      String[] protocols,
+      String[] cipherSuites,
+      HostnameVerifier hostnameVerifier,
+      @NonNull MeterRegistry meterRegistry) {
+    super(sslContext, protocols, cipherSuites, hostnameVerifier);
+    fullHandshakes = handshakeTimer(meterRegistry, "success", "false");
+    resumedHandshakes = handshakeTimer(meterRegistry, "success", "true");
+    failedHandshakes = handshakeTimer(meterRegistry, "failure", "false");
+  }
+
+  private static Timer handshakeTimer(MeterRegistry registry, String outcome, String resumed) {
+    return Timer.builder(HANDSHAKE_METRIC)
+        .description("TLS handshakes performed by the secure rest template")
+        .tag("outcome", outcome)
+        .tag("resumed", resumed)
+        .register(registry);
+  }
+
+  @Override
+  public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context)
+      throws IOException {
+    long startMillis = System.currentTimeMillis();
+    long start = System.nanoTime();
+    Socket sslSocket;
+    try {
+      sslSocket = super.createLayeredSocket(socket, target, port, context);
+    } catch (IOException | RuntimeException e) {
+      failedHandshakes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      throw e;
+    }
+    long elapsed = System.nanoTime() - start;
+    SSLSession session = ((SSLSocket) sslSocket).getSession();
+    Timer timer = session.getCreationTime() < startMillis ? resumedHandshakes : fullHandshakes;
+    timer.record(elapsed, TimeUnit.NANOSECONDS);
+    return sslSocket;
+  }
+}
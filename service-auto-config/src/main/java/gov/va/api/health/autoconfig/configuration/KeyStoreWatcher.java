@@ -0,0 +1,161 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Watches key store files and invokes a callback when the content of any of them changes.
+ *
+ * <p>The directories containing the files are watched with a {@link WatchService} so that changes
+ * are noticed immediately. Directories are watched, instead of the files, so that files replaced by
+ * renaming or by swapping symbolic links, as is done for Kubernetes secrets, are noticed too.
+ * Because file system events are not delivered on all file systems, e.g. some network and overlay
+ * file systems, the files are also checked on a fixed interval. If a watch service cannot be
+ * created, the interval check is used alone.
+ *
+ * <p>Changes are detected by comparing file content, which is small for key stores, so timestamp
+ * granularity does not matter. Checks are performed on a single daemon thread.
+ */
+@Slf4j
+class KeyStoreWatcher implements AutoCloseable {
+  private final Map<Path, byte[]> contents = new LinkedHashMap<>();
+
+  private final Duration interval;
+
+  private final Runnable onChange;
+
+  private final WatchService watchService;
+
+  private final Thread thread;
+
+  private volatile boolean closed;
+
+  @Builder
+  KeyStoreWatcher(
+      @Singular List<Path> files,
+      @NonNull Duration interval,
+      @NonNull Runnable onChange,
+      boolean pollOnly) {
+    this.interval = interval;
+    this.onChange = onChange;
+    for (Path file : files) {
+      Path absolute = file.toAbsolutePath();
+      contents.put(absolute, read(absolute));
+    }
+    watchService = pollOnly ? null : watchDirectories();
+    thread = new Thread(this::run, "keystore-watcher");
+    thread.setDaemon(true);
+  }
+
+  /** Read the file, treating a missing or unreadable file as empty. */
+  private static byte[] read(Path file) {
+    try {
+      return Files.readAllBytes(file);
+    } catch (IOException e) {
+      return new byte[0];
+    }
+  }
+
+  /** Check the files now, invoking the callback if any have changed. */
+  synchronized void checkForChanges() {
+    boolean changed = false;
+    for (Map.Entry<Path, byte[]> entry : contents.entrySet()) {
+      byte[] current = read(entry.getKey());
+      if (!Arrays.equals(current, entry.getValue())) {
+        entry.setValue(current);
+        changed = true;
+      }
+    }
+    if (changed) {
+      log.info("Key store change detected: {}", contents.keySet());
+      try {
+        onChange.run();
+      } catch (RuntimeException e) {
+        log.warn("Failed to handle key store change", e);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    thread.interrupt();
+    if (watchService != null) {
+      try {
+        watchService.close();
+      } catch (IOException e) {
+        log.warn("Failed to close watch service: {}", e.getMessage());
+      }
+    }
+  }
+
+  /** Start watching on a background thread. */
+  KeyStoreWatcher start() {
+    thread.start();
+    return this;
+  }
+
+  private void run() {
+    long intervalNanos = interval.toNanos();
+    while (!closed) {
+      try {
+        if (watchService == null) {
+          TimeUnit.NANOSECONDS.sleep(intervalNanos);
+        } else {
+          WatchKey key = watchService.poll(intervalNanos, TimeUnit.NANOSECONDS);
+          if (key != null) {
+            key.pollEvents();
+            key.reset();
+          }
+        }
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+      checkForChanges();
+    }
+  }
+
+  private WatchService watchDirectories() {
+    WatchService service = null;
+    try {
+      service = contents.keySet().iterator().next().getFileSystem().newWatchService();
+      for (Path directory :
+          contents.keySet().stream().map(Path::getParent).distinct().collect(toList())) {
+        directory.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+      }
+      return service;
+    } catch (IOException | RuntimeException e) {
+      log.warn(
+          "Cannot watch key stores for changes, checking every {} instead: {}",
+          interval,
+          e.getMessage());
+      if (service != null) {
+        try {
+          service.close();
+        } catch (IOException ignored) {
+          /* Already falling back to checking on an interval. */
+        }
+      }
+      return null;
+    }
+  }
+}
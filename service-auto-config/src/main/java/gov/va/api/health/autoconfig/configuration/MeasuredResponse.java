@@ -0,0 +1,118 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Response that counts the bytes read from its body and reports them once, when it is closed.
+ * Buffered bodies may be read more than once, so the largest count read by one body stream is
+ * reported.
+ */
+final class MeasuredResponse implements ClientHttpResponse {
+  private final ClientHttpResponse delegate;
+
+  private final LongConsumer onClose;
+
+  private long bytesRead;
+
+  private boolean closed;
+
+  MeasuredResponse(ClientHttpResponse delegate, LongConsumer onClose) {
+    this.delegate = delegate;
+    this.onClose = onClose;
+  }
+
+  private synchronized void bytesRead(long count) {
+    bytesRead = Math.max(bytesRead, count);
+  }
+
+  @Override
+  public void close() {
+    try {
+      delegate.close();
+    } finally {
+      report();
+    }
+  }
+
+  private void report() {
+    long bytes;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      bytes = bytesRead;
+    }
+    onClose.accept(bytes);
+  }
+
+  @Override
+  public InputStream getBody() throws IOException {
+    return new CountingInputStream(delegate.getBody());
+  }
+
+  @Override
+  public HttpHeaders getHeaders() {
+    return delegate.getHeaders();
+  }
+
+  @Override
+  public int getRawStatusCode() throws IOException {
+    return delegate.getRawStatusCode();
+  }
+
+  @Override
+  public HttpStatus getStatusCode() throws IOException {
+    return delegate.getStatusCode();
+  }
+
+  @Override
+  public String getStatusText() throws IOException {
+    return delegate.getStatusText();
+  }
+
+  /** Counts the bytes read from one body stream. */
+  private final class CountingInputStream extends FilterInputStream {
+    private long count;
+
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    private void counted(long bytes) {
+      if (bytes > 0) {
+        count += bytes;
+        bytesRead(count);
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        counted(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      counted(n);
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      counted(skipped);
+      return skipped;
+    }
+  }
+}
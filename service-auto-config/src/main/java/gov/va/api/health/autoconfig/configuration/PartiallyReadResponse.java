@@ -0,0 +1,59 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Response whose body was partially read while trying to buffer it. The bytes already read are
+ * returned before the rest of the body.
+ */
+final class PartiallyReadResponse implements ClientHttpResponse {
+  private final ClientHttpResponse delegate;
+
+  private final byte[] prefix;
+
+  private InputStream body;
+
+  PartiallyReadResponse(ClientHttpResponse delegate, byte[] prefix) {
+    this.delegate = delegate;
+    this.prefix = prefix;
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  @Override
+  public synchronized InputStream getBody() throws IOException {
+    if (body == null) {
+      body = new SequenceInputStream(new ByteArrayInputStream(prefix), delegate.getBody());
+    }
+    return body;
+  }
+
+  @Override
+  public HttpHeaders getHeaders() {
+    return delegate.getHeaders();
+  }
+
+  @Override
+  public int getRawStatusCode() throws IOException {
+    return delegate.getRawStatusCode();
+  }
+
+  @Override
+  public HttpStatus getStatusCode() throws IOException {
+    return delegate.getStatusCode();
+  }
+
+  @Override
+  public String getStatusText() throws IOException {
+    return delegate.getStatusText();
+  }
+}
@@ -0,0 +1,151 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import javax.net.ssl.SSLSocket;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * Pooling connection manager whose SSL socket factory can be replaced without interrupting
+ * requests. When the factory is replaced, idle connections are closed. Connections that were in use
+ * are left alone until they are returned to the pool. If such a connection is leased again, it is
+ * closed before it is used, and the client reconnects with the new factory.
+ *
+ * <p>If a meter registry is given, the pool is measured for each route, identified by its target
+ * host and port. Metrics: {@value #POOL_METRIC} (gauges tagged by target and state, leased,
+ * pending, or available) and {@value #ACQUIRE_METRIC} (a timer tagged by target and outcome,
+ * success, timeout, or failure).
+ */
+@Slf4j
+class ReloadableSslConnectionManager extends PoolingHttpClientConnectionManager {
+  static final String POOL_METRIC = "http.client.connections";
+
+  static final String ACQUIRE_METRIC = "http.client.connections.acquire";
+
+  private final ReloadableSslConnectionSocketFactory sslSocketFactory;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Set<HttpRoute> measuredRoutes = ConcurrentHashMap.newKeySet();
+
+  private ReloadableSslConnectionManager(
+      ReloadableSslConnectionSocketFactory sslSocketFactory, MeterRegistry meterRegistry) {
+    super(
+        RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", sslSocketFactory)
+            .build());
+    this.sslSocketFactory = sslSocketFactory;
+    this.meterRegistry = meterRegistry;
+  }
+
+  static ReloadableSslConnectionManager create(LayeredConnectionSocketFactory sslSocketFactory) {
+    return create(sslSocketFactory, null);
+  }
+
+  /** Create a manager whose pool is measured in the meter registry, unless it is null. */
+  static ReloadableSslConnectionManager create(
+      LayeredConnectionSocketFactory sslSocketFactory, MeterRegistry meterRegistry) {
+    return new ReloadableSslConnectionManager(
+        new ReloadableSslConnectionSocketFactory(sslSocketFactory), meterRegistry);
+  }
+
+  private Timer acquireTimer(String target, String outcome) {
+    return Timer.builder(ACQUIRE_METRIC)
+        .tag("target", target)
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  private void gauge(HttpRoute route, String target, String state, ToDoubleFunction<PoolStats> f) {
+    Gauge.builder(POOL_METRIC, this, m -> f.applyAsDouble(m.getStats(route)))
+        .tag("target", target)
+        .tag("state", state)
+        .register(meterRegistry);
+  }
+
+  /** Register pool gauges the first time a route is used. */
+  private void measure(HttpRoute route, String target) {
+    if (measuredRoutes.add(route)) {
+      gauge(route, target, "leased", PoolStats::getLeased);
+      gauge(route, target, "pending", PoolStats::getPending);
+      gauge(route, target, "available", PoolStats::getAvailable);
+    }
+  }
+
+  /** Use the given SSL socket factory for all new connections and close idle connections. */
+  void reload(LayeredConnectionSocketFactory replacement) {
+    sslSocketFactory.reload(replacement);
+    closeIdleConnections(0, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+    ConnectionRequest request = super.requestConnection(route, state);
+    String target = route.getTargetHost().toHostString();
+    if (meterRegistry != null) {
+      measure(route, target);
+    }
+    return new ConnectionRequest() {
+      @Override
+      public boolean cancel() {
+        return request.cancel();
+      }
+
+      @Override
+      public HttpClientConnection get(long timeout, TimeUnit timeUnit)
+          throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+        if (meterRegistry == null) {
+          return retireIfStale(request.get(timeout, timeUnit));
+        }
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+          HttpClientConnection connection = request.get(timeout, timeUnit);
+          outcome = "success";
+          return retireIfStale(connection);
+        } catch (ConnectionPoolTimeoutException e) {
+          outcome = "timeout";
+          throw e;
+        } finally {
+          acquireTimer(target, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+      }
+    };
+  }
+
+  /** Close the connection if it was opened with a replaced SSL socket factory. */
+  private HttpClientConnection retireIfStale(HttpClientConnection connection) {
+    if (!(connection instanceof ManagedHttpClientConnection) || !connection.isOpen()) {
+      return connection;
+    }
+    Socket socket = ((ManagedHttpClientConnection) connection).getSocket();
+    if (socket instanceof SSLSocket && !sslSocketFactory.isCurrent(socket)) {
+      try {
+        connection.close();
+      } catch (IOException e) {
+        log.warn("Failed to close stale connection: {}", e.getMessage());
+      }
+    }
+    return connection;
+  }
+}
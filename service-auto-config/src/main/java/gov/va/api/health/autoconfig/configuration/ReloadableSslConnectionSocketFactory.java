@@ -0,0 +1,92 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.NonNull;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * SSL socket factory that delegates to a factory that can be replaced while connections are in use.
+ * Each connection is created entirely by the factory that was current when the connection was
+ * started, so replacing the factory never affects connections that are already open or being
+ * opened. Only new connections use the replacement.
+ *
+ * <p>Once the factory has been replaced, the sockets created by the current factory are tracked so
+ * that connections created by earlier factories can be identified and retired.
+ */
+class ReloadableSslConnectionSocketFactory implements LayeredConnectionSocketFactory {
+  private final AtomicReference<Generation> current;
+
+  ReloadableSslConnectionSocketFactory(@NonNull LayeredConnectionSocketFactory initial) {
+    current = new AtomicReference<>(new Generation(0, initial));
+  }
+
+  @Override
+  public Socket connectSocket(
+      int connectTimeout,
+      Socket socket,
+      HttpHost host,
+      InetSocketAddress remoteAddress,
+      InetSocketAddress localAddress,
+      HttpContext context)
+      throws IOException {
+    Generation generation = current.get();
+    return generation.track(
+        generation.factory.connectSocket(
+            connectTimeout, socket, host, remoteAddress, localAddress, context));
+  }
+
+  @Override
+  public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context)
+      throws IOException {
+    Generation generation = current.get();
+    return generation.track(generation.factory.createLayeredSocket(socket, target, port, context));
+  }
+
+  @Override
+  public Socket createSocket(HttpContext context) throws IOException {
+    return current.get().factory.createSocket(context);
+  }
+
+  /**
+   * Return true if the socket was created by the current factory. Sockets created before the
+   * factory was first replaced are current until then.
+   */
+  boolean isCurrent(Socket socket) {
+    Generation generation = current.get();
+    return generation.number == 0 || generation.sockets.contains(socket);
+  }
+
+  /** Use the given factory for all new connections. */
+  void reload(@NonNull LayeredConnectionSocketFactory replacement) {
+    current.updateAndGet(previous -> new Generation(previous.number + 1, replacement));
+  }
+
+  private static final class Generation {
+    private final int number;
+
+    private final LayeredConnectionSocketFactory factory;
+
+    private final Set<Socket> sockets =
+        Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    Generation(int number, LayeredConnectionSocketFactory factory) {
+      this.number = number;
+      this.factory = factory;
+    }
+
+    Socket track(Socket socket) {
+      if (number > 0) {
+        sockets.add(socket);
+      }
+      return socket;
+    }
+  }
+}
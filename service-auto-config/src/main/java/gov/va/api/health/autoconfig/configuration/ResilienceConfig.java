@@ -0,0 +1,55 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+
+/**
+ * Adds per destination bulkheads and circuit breakers, configured by {@link ResilienceProperties},
+ * to rest templates created with the application's RestTemplateBuilder, including the rest template
+ * provided by {@link SecureRestTemplateConfig}. This is enabled with resilience.enabled=true.
+ *
+ * <p>The interceptor is placed first so that rejected requests are not logged or sent. When
+ * retry.enabled=true, {@link RetryConfig} runs it around each attempt instead, so that retries and
+ * hedges each take a permit and count towards the circuit breaker. All rest templates share the
+ * same limits for each destination.
+ */
+@Configuration
+@ConditionalOnProperty(name = "resilience.enabled", havingValue = "true")
+public class ResilienceConfig {
+  /** Create the interceptor shared by all rest templates. */
+  @Bean
+  ResilienceInterceptor resilienceInterceptor(
+      ResilienceProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+    return ResilienceInterceptor.builder()
+        .properties(properties)
+        .meterRegistry(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry))
+        .build();
+  }
+
+  /**
+   * Create a customizer that adds the resilience interceptor to rest templates, unless retries are
+   * enabled, in which case the retry interceptor applies it to each attempt.
+   */
+  @Bean
+  public RestTemplateCustomizer resilienceRestTemplateCustomizer(
+      ResilienceInterceptor interceptor, @Value("${retry.enabled:false}") boolean retryEnabled) {
+    return restTemplate -> {
+      if (retryEnabled) {
+        return;
+      }
+      List<ClientHttpRequestInterceptor> interceptors =
+          new ArrayList<>(restTemplate.getInterceptors());
+      interceptors.add(0, interceptor);
+      restTemplate.setInterceptors(interceptors);
+    };
+  }
+}
@@ -0,0 +1,278 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import gov.va.api.health.autoconfig.configuration.ResilienceProperties.Policy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Interceptor that applies a bulkhead and a circuit breaker to each destination host.
+ *
+ * <p>The bulkhead limits the number of requests in progress to a host. A request holds its permit
+ * until the response is closed, which includes reading the body. The circuit breaker rejects
+ * requests to a host while too many recent requests have failed. A request fails if it throws an
+ * IOException or receives a 5xx response.
+ *
+ * <p>Rejected requests are not sent. Instead, a 503 response is returned immediately with the
+ * {@value #FAST_FAIL_HEADER} header describing the reason.
+ *
+ * <p>Metrics, tagged by destination: {@value #REJECTED_METRIC} (tagged by reason), {@value
+ * #ACTIVE_METRIC}, and {@value #STATE_METRIC} (0 closed, 1 half open, 2 open).
+ */
+@Slf4j
+class ResilienceInterceptor implements ClientHttpRequestInterceptor {
+  static final String FAST_FAIL_HEADER = "X-Fast-Fail";
+
+  static final String CIRCUIT_OPEN = "circuit-open";
+
+  static final String BULKHEAD_FULL = "bulkhead-full";
+
+  static final String REJECTED_METRIC = "http.client.resilience.rejected";
+
+  static final String ACTIVE_METRIC = "http.client.bulkhead.active";
+
+  static final String STATE_METRIC = "http.client.circuit.state";
+
+  private final ResilienceProperties properties;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Map<String, Destination> destinations = new ConcurrentHashMap<>();
+
+  @Builder
+  ResilienceInterceptor(
+      @NonNull ResilienceProperties properties, @NonNull MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+  }
+
+  private static boolean isFailure(ClientHttpResponse response) throws IOException {
+    return response.getRawStatusCode() >= 500;
+  }
+
+  private Destination destination(String host) {
+    return destinations.computeIfAbsent(
+        host == null ? "" : host.toLowerCase(Locale.ENGLISH),
+        h -> new Destination(h, properties.policyFor(h), meterRegistry));
+  }
+
+  @Override
+  public ClientHttpResponse intercept(
+      HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+    Destination destination = destination(request.getURI().getHost());
+    if (!destination.tryAcquireBulkhead()) {
+      return destination.reject(BULKHEAD_FULL);
+    }
+    CircuitBreaker.Phase phase = destination.breaker.acquire();
+    if (phase == null) {
+      destination.releaseBulkhead();
+      return destination.reject(CIRCUIT_OPEN);
+    }
+    ClientHttpResponse response;
+    try {
+      response = execution.execute(request, body);
+    } catch (IOException | RuntimeException e) {
+      destination.breaker.record(phase, false);
+      destination.releaseBulkhead();
+      throw e;
+    }
+    try {
+      destination.breaker.record(phase, !isFailure(response));
+    } catch (IOException | RuntimeException e) {
+      destination.breaker.record(phase, false);
+      destination.releaseBulkhead();
+      response.close();
+      throw e;
+    }
+    return new ReleasingResponse(response, destination);
+  }
+
+  /** Bulkhead and circuit breaker for one host. */
+  private static final class Destination {
+    private final String host;
+
+    private final int maxConcurrentRequests;
+
+    private final long maxWaitNanos;
+
+    private final Semaphore bulkhead;
+
+    private final CircuitBreaker breaker;
+
+    private final Counter rejectedBulkheadFull;
+
+    private final Counter rejectedCircuitOpen;
+
+    Destination(String host, Policy policy, MeterRegistry meterRegistry) {
+      this.host = host;
+      this.maxConcurrentRequests = policy.getMaxConcurrentRequests();
+      this.maxWaitNanos = policy.getMaxWait().toNanos();
+      this.bulkhead = maxConcurrentRequests > 0 ? new Semaphore(maxConcurrentRequests) : null;
+      this.breaker =
+          CircuitBreaker.builder()
+              .failureRateThreshold(policy.getFailureRateThreshold())
+              .minimumRequests(policy.getMinimumRequests())
+              .window(policy.getWindow())
+              .openDuration(policy.getOpenDuration())
+              .halfOpenRequests(policy.getHalfOpenRequests())
+              .build();
+      Tags tags = Tags.of("destination", host);
+      Gauge.builder(ACTIVE_METRIC, this, Destination::active)
+          .description("Requests in progress")
+          .tags(tags)
+          .register(meterRegistry);
+      Gauge.builder(STATE_METRIC, breaker, b -> b.state().ordinal())
+          .description("Circuit breaker state, 0 closed, 1 half open, 2 open")
+          .tags(tags)
+          .register(meterRegistry);
+      rejectedBulkheadFull =
+          meterRegistry.counter(REJECTED_METRIC, tags.and("reason", BULKHEAD_FULL));
+      rejectedCircuitOpen =
+          meterRegistry.counter(REJECTED_METRIC, tags.and("reason", CIRCUIT_OPEN));
+      log.info("Resilience policy for {}: {}", host, policy);
+    }
+
+    int active() {
+      return bulkhead == null ? 0 : maxConcurrentRequests - bulkhead.availablePermits();
+    }
+
+    ClientHttpResponse reject(String reason) {
+      (BULKHEAD_FULL.equals(reason) ? rejectedBulkheadFull : rejectedCircuitOpen).increment();
+      log.debug("Rejected request to {}: {}", host, reason);
+      return new FastFailResponse(reason);
+    }
+
+    void releaseBulkhead() {
+      if (bulkhead != null) {
+        bulkhead.release();
+      }
+    }
+
+    boolean tryAcquireBulkhead() {
+      if (bulkhead == null) {
+        return true;
+      }
+      if (maxWaitNanos <= 0) {
+        return bulkhead.tryAcquire();
+      }
+      try {
+        return bulkhead.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+  }
+
+  /** Response returned in place of sending a request that was rejected. */
+  private static final class FastFailResponse implements ClientHttpResponse {
+    private final String reason;
+
+    private final HttpHeaders headers = new HttpHeaders();
+
+    FastFailResponse(String reason) {
+      this.reason = reason;
+      headers.setContentType(MediaType.TEXT_PLAIN);
+      headers.set(FAST_FAIL_HEADER, reason);
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public InputStream getBody() {
+      return new ByteArrayInputStream(reason.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+
+    @Override
+    public int getRawStatusCode() {
+      return HttpStatus.SERVICE_UNAVAILABLE.value();
+    }
+
+    @Override
+    public HttpStatus getStatusCode() {
+      return HttpStatus.SERVICE_UNAVAILABLE;
+    }
+
+    @Override
+    public String getStatusText() {
+      return HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase();
+    }
+  }
+
+  /** Response that releases the bulkhead permit once, when closed. */
+  private static final class ReleasingResponse implements ClientHttpResponse {
+    private final ClientHttpResponse delegate;
+
+    private final Destination destination;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    ReleasingResponse(ClientHttpResponse delegate, Destination destination) {
+      this.delegate = delegate;
+      this.destination = destination;
+    }
+
+    @Override
+    public void close() {
+      try {
+        delegate.close();
+      } finally {
+        if (released.compareAndSet(false, true)) {
+          destination.releaseBulkhead();
+        }
+      }
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+      return delegate.getBody();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return delegate.getHeaders();
+    }
+
+    @Override
+    public int getRawStatusCode() throws IOException {
+      return delegate.getRawStatusCode();
+    }
+
+    @Override
+    public HttpStatus getStatusCode() throws IOException {
+      return delegate.getStatusCode();
+    }
+
+    @Override
+    public String getStatusText() throws IOException {
+      return delegate.getStatusText();
+    }
+  }
+}
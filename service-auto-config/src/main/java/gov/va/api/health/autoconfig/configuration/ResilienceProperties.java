@@ -0,0 +1,120 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Application properties for the circuit breakers and bulkheads applied to requests made with rest
+ * templates. Policies apply per destination host. Settings for a specific host override the
+ * defaults, which override the built-in defaults shown below. Host names containing dots must be
+ * enclosed in brackets.
+ *
+ * <pre>
+ * resilience.enabled=true
+ * resilience.defaults.max-concurrent-requests=50
+ * resilience.defaults.max-wait=0s
+ * resilience.defaults.failure-rate-threshold=50
+ * resilience.defaults.minimum-requests=20
+ * resilience.defaults.window=10s
+ * resilience.defaults.open-duration=30s
+ * resilience.defaults.half-open-requests=5
+ * resilience.destinations.[slow.example.com].max-concurrent-requests=10
+ * </pre>
+ */
+@SuppressWarnings("DefaultAnnotationParam")
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties("resilience")
+@Data
+@Accessors(fluent = false)
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+public class ResilienceProperties {
+  private static final Policy BUILT_IN_DEFAULTS =
+      Policy.builder()
+          .maxConcurrentRequests(50)
+          .maxWait(Duration.ZERO)
+          .failureRateThreshold(50)
+          .minimumRequests(20)
+          .window(Duration.ofSeconds(10))
+          .openDuration(Duration.ofSeconds(30))
+          .halfOpenRequests(5)
+          .build();
+
+  private boolean enabled;
+
+  @Builder.Default private Policy defaults = new Policy();
+
+  @Builder.Default private Map<String, Policy> destinations = new HashMap<>();
+
+  /** Return the fully resolved policy for the given host. */
+  Policy policyFor(String host) {
+    Policy resolved = BUILT_IN_DEFAULTS.overriddenBy(defaults);
+    if (host != null) {
+      for (Map.Entry<String, Policy> destination : destinations.entrySet()) {
+        if (destination.getKey().toLowerCase(Locale.ENGLISH).equals(host)) {
+          resolved = resolved.overriddenBy(destination.getValue());
+        }
+      }
+    }
+    return resolved;
+  }
+
+  /** Limits for a destination. Unspecified settings are inherited. */
+  @Data
+  @Accessors(fluent = false)
+  @NoArgsConstructor
+  @Builder
+  @AllArgsConstructor
+  public static class Policy {
+    /** Maximum number of concurrent requests. 0 means no limit. */
+    private Integer maxConcurrentRequests;
+
+    /** How long to wait for a concurrent request to complete when the limit is reached. */
+    private Duration maxWait;
+
+    /** Percentage of failed requests in the window that opens the circuit. 0 disables it. */
+    private Integer failureRateThreshold;
+
+    /** Minimum number of requests in the window before the failure rate is considered. */
+    private Integer minimumRequests;
+
+    /** Duration of the sliding window used to compute the failure rate. */
+    private Duration window;
+
+    /** How long the circuit stays open before trial requests are permitted. */
+    private Duration openDuration;
+
+    /** Number of trial requests that must succeed to close the circuit again. */
+    private Integer halfOpenRequests;
+
+    private static <T> T firstNonNull(T preferred, T fallback) {
+      return preferred == null ? fallback : preferred;
+    }
+
+    Policy overriddenBy(Policy override) {
+      if (override == null) {
+        return this;
+      }
+      return new Policy(
+          firstNonNull(override.maxConcurrentRequests, maxConcurrentRequests),
+          firstNonNull(override.maxWait, maxWait),
+          firstNonNull(override.failureRateThreshold, failureRateThreshold),
+          firstNonNull(override.minimumRequests, minimumRequests),
+          firstNonNull(override.window, window),
+          firstNonNull(override.openDuration, openDuration),
+          firstNonNull(override.halfOpenRequests, halfOpenRequests));
+    }
+  }
+}
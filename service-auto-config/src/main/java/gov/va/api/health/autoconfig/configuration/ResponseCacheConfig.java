@@ -0,0 +1,41 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+
+/**
+ * Adds a private HTTP cache for GET responses, configured by {@link ResponseCacheProperties}, to
+ * rest templates created with the application's RestTemplateBuilder, including the rest template
+ * provided by {@link SecureRestTemplateConfig}. This is enabled with response-cache.enabled=true.
+ *
+ * <p>The interceptor is ordered first so that fresh responses are returned without being logged or
+ * sent. All rest templates share the same cache.
+ */
+@Configuration
+@ConditionalOnProperty(name = "response-cache.enabled", havingValue = "true")
+public class ResponseCacheConfig {
+  /** Create a customizer that adds the response cache interceptor to rest templates. */
+  @Bean
+  public RestTemplateCustomizer responseCacheRestTemplateCustomizer(
+      ResponseCacheProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+    ResponseCacheInterceptor interceptor =
+        ResponseCacheInterceptor.builder()
+            .properties(properties)
+            .meterRegistry(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry))
+            .build();
+    return restTemplate -> {
+      List<ClientHttpRequestInterceptor> interceptors =
+          new ArrayList<>(restTemplate.getInterceptors());
+      interceptors.add(0, interceptor);
+      restTemplate.setInterceptors(interceptors);
+    };
+  }
+}
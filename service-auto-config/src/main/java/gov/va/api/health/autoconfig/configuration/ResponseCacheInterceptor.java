@@ -0,0 +1,382 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import gov.va.api.health.autoconfig.configuration.ResponseCacheStore.Entry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.support.HttpRequestWrapper;
+
+/**
+ * Interceptor that caches GET responses as a private HTTP cache.
+ *
+ * <p>A 200 response is stored if its Cache-Control, Expires, and Date headers give it a freshness
+ * lifetime, or if it has an ETag or Last-Modified validator, unless it is marked no-store, it
+ * varies on every header, or its body exceeds the max entry size. Fresh responses are returned
+ * without sending the request. Stale responses, and responses marked no-cache, are revalidated with
+ * If-None-Match and If-Modified-Since. A 304 reply refreshes the stored response, which is returned
+ * in its place.
+ *
+ * <p>Stored responses are only reused for requests with the same Authorization and the same values
+ * of the headers named by Vary. Requests that are conditional, request ranges, or carry a no-store
+ * directive are not cached. A successful PUT, POST, PATCH, or DELETE invalidates the response
+ * stored for its URI.
+ *
+ * <p>This interceptor has the highest precedence so that cached responses do not wait for or count
+ * against other interceptors such as bulkheads.
+ *
+ * <p>Metrics: {@value #REQUESTS_METRIC} (tagged by result, hit, miss, or revalidated) and those
+ * described by {@link ResponseCacheStore}.
+ */
+class ResponseCacheInterceptor implements ClientHttpRequestInterceptor, Ordered {
+  static final String REQUESTS_METRIC = "http.client.cache.requests";
+
+  private static final Set<HttpMethod> SAFE =
+      EnumSet.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.TRACE);
+
+  private static final List<String> CONDITIONAL_HEADERS =
+      List.of(
+          HttpHeaders.IF_MATCH,
+          HttpHeaders.IF_NONE_MATCH,
+          HttpHeaders.IF_MODIFIED_SINCE,
+          HttpHeaders.IF_UNMODIFIED_SINCE,
+          HttpHeaders.IF_RANGE,
+          HttpHeaders.RANGE);
+
+  private final ResponseCacheStore store;
+
+  private final int maxEntryBytes;
+
+  private final Clock clock;
+
+  private final Counter hits;
+
+  private final Counter misses;
+
+  private final Counter revalidations;
+
+  @Builder
+  ResponseCacheInterceptor(
+      @NonNull ResponseCacheProperties properties,
+      @NonNull MeterRegistry meterRegistry,
+      Clock clock) {
+    this.store =
+        ResponseCacheStore.builder()
+            .maxBytes(properties.getMaxSize().toBytes())
+            .offHeapMaxBytes(properties.getOffHeapMaxSize().toBytes())
+            .meterRegistry(meterRegistry)
+            .build();
+    this.maxEntryBytes =
+        (int) Math.max(0, Math.min(Integer.MAX_VALUE - 8, properties.getMaxEntrySize().toBytes()));
+    this.clock = clock == null ? Clock.systemUTC() : clock;
+    hits = meterRegistry.counter(REQUESTS_METRIC, "result", "hit");
+    misses = meterRegistry.counter(REQUESTS_METRIC, "result", "miss");
+    revalidations = meterRegistry.counter(REQUESTS_METRIC, "result", "revalidated");
+  }
+
+  private static long date(HttpHeaders headers, String name) {
+    try {
+      return headers.getFirstDate(name);
+    } catch (IllegalArgumentException e) {
+      return -1;
+    }
+  }
+
+  private static boolean isConditional(HttpHeaders headers) {
+    return CONDITIONAL_HEADERS.stream().anyMatch(headers::containsKey);
+  }
+
+  private static boolean matches(Entry entry, HttpHeaders requestHeaders) {
+    if (!Objects.equals(
+        entry.authorization(), requestHeaders.getFirst(HttpHeaders.AUTHORIZATION))) {
+      return false;
+    }
+    return entry.varied().entrySet().stream()
+        .allMatch(v -> v.getValue().equals(requestHeaders.getOrEmpty(v.getKey())));
+  }
+
+  private static long seconds(String value) {
+    try {
+      return Math.max(0, Long.parseLong(value.trim()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static HttpRequest withValidators(HttpRequest request, Entry entry) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.putAll(request.getHeaders());
+    String etag = entry.headers().getETag();
+    if (etag != null) {
+      headers.setIfNoneMatch(etag);
+    }
+    long lastModified = date(entry.headers(), HttpHeaders.LAST_MODIFIED);
+    if (lastModified >= 0) {
+      headers.setIfModifiedSince(lastModified);
+    }
+    return new HttpRequestWrapper(request) {
+      @Override
+      public HttpHeaders getHeaders() {
+        return headers;
+      }
+    };
+  }
+
+  /** Build an entry from response headers, computing its age and freshness on receipt. */
+  private Entry entry(
+      HttpHeaders requestHeaders,
+      int status,
+      String statusText,
+      HttpHeaders headers,
+      ByteBuffer body) {
+    long received = clock.millis();
+    HttpHeaders copy = new HttpHeaders();
+    copy.putAll(headers);
+    Directives directives = Directives.of(headers);
+    long date = date(headers, HttpHeaders.DATE);
+    long freshness;
+    if (directives.maxAgeSeconds() >= 0) {
+      freshness = directives.maxAgeSeconds() * 1000;
+    } else {
+      long expires = date(headers, HttpHeaders.EXPIRES);
+      freshness = expires < 0 ? 0 : Math.max(0, expires - (date < 0 ? received : date));
+    }
+    String ageHeader = headers.getFirst(HttpHeaders.AGE);
+    long age = ageHeader == null ? 0 : Math.max(0, seconds(ageHeader) * 1000);
+    long apparentAge = date < 0 ? 0 : Math.max(0, received - date);
+    Map<String, List<String>> varied = new HashMap<>();
+    for (String name : headers.getVary()) {
+      varied.put(name, requestHeaders.getOrEmpty(name));
+    }
+    return Entry.builder()
+        .status(status)
+        .statusText(statusText)
+        .headers(HttpHeaders.readOnlyHttpHeaders(copy))
+        .body(body)
+        .authorization(requestHeaders.getFirst(HttpHeaders.AUTHORIZATION))
+        .varied(varied)
+        .receivedMillis(received)
+        .initialAgeMillis(Math.max(age, apparentAge))
+        .freshnessMillis(freshness)
+        .noCache(directives.noCache())
+        .build();
+  }
+
+  @Override
+  public int getOrder() {
+    return Ordered.HIGHEST_PRECEDENCE;
+  }
+
+  @Override
+  public ClientHttpResponse intercept(
+      HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+    String uri = request.getURI().toString();
+    if (request.getMethod() != HttpMethod.GET) {
+      ClientHttpResponse response = execution.execute(request, body);
+      if (!SAFE.contains(request.getMethod()) && isSuccessful(response)) {
+        store.invalidate(uri);
+      }
+      return response;
+    }
+    HttpHeaders requestHeaders = request.getHeaders();
+    Directives requested = Directives.of(requestHeaders);
+    if (requested.noStore() || isConditional(requestHeaders)) {
+      return execution.execute(request, body);
+    }
+    Entry entry = store.get(uri);
+    if (entry != null && !matches(entry, requestHeaders)) {
+      entry = null;
+    }
+    if (entry != null && isFresh(entry, requested)) {
+      hits.increment();
+      return new CachedResponse(entry);
+    }
+    ClientHttpResponse response;
+    if (entry != null && hasValidator(entry)) {
+      response = execution.execute(withValidators(request, entry), body);
+      if (response.getRawStatusCode() == HttpStatus.NOT_MODIFIED.value()) {
+        Entry refreshed = refresh(requestHeaders, entry, response.getHeaders());
+        response.close();
+        store.put(uri, refreshed);
+        revalidations.increment();
+        return new CachedResponse(refreshed);
+      }
+    } else {
+      response = execution.execute(request, body);
+    }
+    misses.increment();
+    return store(uri, requestHeaders, response);
+  }
+
+  private boolean hasValidator(Entry entry) {
+    return entry.headers().getETag() != null
+        || date(entry.headers(), HttpHeaders.LAST_MODIFIED) >= 0;
+  }
+
+  private boolean isFresh(Entry entry, Directives requested) {
+    if (requested.noCache()) {
+      return false;
+    }
+    long now = clock.millis();
+    if (requested.maxAgeSeconds() >= 0 && entry.ageMillis(now) > requested.maxAgeSeconds() * 1000) {
+      return false;
+    }
+    return entry.isFresh(now);
+  }
+
+  private boolean isSuccessful(ClientHttpResponse response) throws IOException {
+    int status = response.getRawStatusCode();
+    return status >= 200 && status < 400;
+  }
+
+  /** Update a stored entry with the headers of a 304 response. */
+  private Entry refresh(HttpHeaders requestHeaders, Entry entry, HttpHeaders notModified) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.putAll(entry.headers());
+    notModified.forEach(
+        (name, values) -> {
+          if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            headers.put(name, values);
+          }
+        });
+    return entry(requestHeaders, entry.status(), entry.statusText(), headers, entry.body());
+  }
+
+  private ClientHttpResponse store(
+      String uri, HttpHeaders requestHeaders, ClientHttpResponse response) throws IOException {
+    if (response.getRawStatusCode() != HttpStatus.OK.value()) {
+      return response;
+    }
+    HttpHeaders headers = response.getHeaders();
+    Directives directives = Directives.of(headers);
+    if (directives.noStore()
+        || headers.getVary().contains("*")
+        || headers.getContentLength() > maxEntryBytes) {
+      return response;
+    }
+    if (directives.maxAgeSeconds() < 0
+        && date(headers, HttpHeaders.EXPIRES) < 0
+        && headers.getETag() == null
+        && date(headers, HttpHeaders.LAST_MODIFIED) < 0) {
+      return response;
+    }
+    byte[] bytes;
+    try {
+      bytes = response.getBody().readNBytes(maxEntryBytes + 1);
+    } catch (IOException | RuntimeException e) {
+      response.close();
+      throw e;
+    }
+    if (bytes.length > maxEntryBytes) {
+      return new PartiallyReadResponse(response, bytes);
+    }
+    Entry entry;
+    try {
+      entry =
+          entry(
+              requestHeaders,
+              response.getRawStatusCode(),
+              response.getStatusText(),
+              headers,
+              ByteBuffer.wrap(bytes));
+    } finally {
+      response.close();
+    }
+    store.put(uri, entry);
+    return new CachedResponse(entry);
+  }
+
+  /** Cache-Control directives that affect storing and reusing responses. */
+  @Value
+  @Builder
+  static class Directives {
+    boolean noStore;
+
+    boolean noCache;
+
+    long maxAgeSeconds;
+
+    static Directives of(HttpHeaders headers) {
+      DirectivesBuilder directives = builder().maxAgeSeconds(-1);
+      for (String value : headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)) {
+        for (String directive : value.split(",", -1)) {
+          String[] nameAndArgument = directive.split("=", 2);
+          String name = nameAndArgument[0].trim().toLowerCase(Locale.ENGLISH);
+          if ("no-store".equals(name)) {
+            directives.noStore(true);
+          } else if ("no-cache".equals(name)) {
+            directives.noCache(true);
+          } else if ("max-age".equals(name) && nameAndArgument.length == 2) {
+            directives.maxAgeSeconds(seconds(nameAndArgument[1].replace("\"", "")));
+          }
+        }
+      }
+      return directives.build();
+    }
+  }
+
+  /** Response served from a stored entry. */
+  private static final class CachedResponse implements ClientHttpResponse {
+    private final Entry entry;
+
+    CachedResponse(Entry entry) {
+      this.entry = entry;
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public InputStream getBody() {
+      ByteBuffer body = entry.body();
+      if (body.hasArray()) {
+        return new ByteArrayInputStream(
+            body.array(), body.arrayOffset() + body.position(), body.remaining());
+      }
+      byte[] bytes = new byte[body.remaining()];
+      body.duplicate().get(bytes);
+      return new ByteArrayInputStream(bytes);
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return entry.headers();
+    }
+
+    @Override
+    public int getRawStatusCode() {
+      return entry.status();
+    }
+
+    @Override
+    public HttpStatus getStatusCode() {
+      return HttpStatus.valueOf(entry.status());
+    }
+
+    @Override
+    public String getStatusText() {
+      return entry.statusText();
+    }
+  }
+}
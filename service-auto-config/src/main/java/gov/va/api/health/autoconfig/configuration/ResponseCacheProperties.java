@@ -0,0 +1,47 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Application properties for caching GET responses received by rest templates. Values shown are the
+ * defaults.
+ *
+ * <pre>
+ * response-cache.enabled=true
+ * response-cache.max-size=16MB
+ * response-cache.max-entry-size=1MB
+ * response-cache.off-heap-max-size=0
+ * </pre>
+ */
+@SuppressWarnings("DefaultAnnotationParam")
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties("response-cache")
+@Data
+@Accessors(fluent = false)
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+public class ResponseCacheProperties {
+  private boolean enabled;
+
+  /** Total size of cached responses held on the heap. */
+  @Builder.Default private DataSize maxSize = DataSize.ofMegabytes(16);
+
+  /** Responses with larger bodies are not cached. */
+  @Builder.Default private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+
+  /**
+   * Total size of responses evicted from the heap that are kept in direct buffers, outside the
+   * heap. Zero disables the off-heap tier.
+   */
+  @Builder.Default private DataSize offHeapMaxSize = DataSize.ofBytes(0);
+}
@@ -0,0 +1,162 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Bounded storage for cached responses, keyed by URI.
+ *
+ * <p>The heap tier is a Caffeine cache, which admits and evicts entries with W-TinyLFU so that
+ * frequently requested responses are not displaced by a burst of responses requested once. Entries
+ * are weighed by the size of their bodies and headers.
+ *
+ * <p>When an off-heap size is configured, entries evicted from the heap for size are copied into
+ * direct buffers and held in a second, separately bounded Caffeine cache. An entry found there is
+ * promoted back to the heap.
+ *
+ * <p>Store metrics are published with the Micrometer Caffeine binder as {@value #HEAP_CACHE} and
+ * {@value #OFF_HEAP_CACHE}.
+ */
+final class ResponseCacheStore {
+  static final String HEAP_CACHE = "http.client.responses";
+
+  static final String OFF_HEAP_CACHE = "http.client.responses.off-heap";
+
+  private final Cache<String, Entry> heap;
+
+  private final Cache<String, Entry> offHeap;
+
+  @Builder
+  ResponseCacheStore(long maxBytes, long offHeapMaxBytes, @NonNull MeterRegistry meterRegistry) {
+    offHeap =
+        offHeapMaxBytes <= 0
+            ? null
+            : Caffeine.newBuilder()
+                .maximumWeight(offHeapMaxBytes)
+                .weigher((String uri, Entry entry) -> entry.weight())
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+    heap =
+        Caffeine.newBuilder()
+            .maximumWeight(Math.max(0, maxBytes))
+            .weigher((String uri, Entry entry) -> entry.weight())
+            .removalListener(this::demote)
+            .executor(Runnable::run)
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, heap, HEAP_CACHE);
+    if (offHeap != null) {
+      CaffeineCacheMetrics.monitor(meterRegistry, offHeap, OFF_HEAP_CACHE);
+    }
+  }
+
+  private static ByteBuffer copy(ByteBuffer body, boolean direct) {
+    ByteBuffer copy =
+        direct
+            ? ByteBuffer.allocateDirect(body.remaining())
+            : ByteBuffer.allocate(body.remaining());
+    copy.put(body.duplicate()).flip();
+    return copy;
+  }
+
+  private void demote(String uri, Entry entry, RemovalCause cause) {
+    if (offHeap != null && uri != null && entry != null && cause == RemovalCause.SIZE) {
+      offHeap.put(uri, entry.withBody(copy(entry.body(), true)));
+    }
+  }
+
+  /** Return the entry for the URI, or null. */
+  Entry get(String uri) {
+    Entry entry = heap.getIfPresent(uri);
+    if (entry != null || offHeap == null) {
+      return entry;
+    }
+    entry = offHeap.getIfPresent(uri);
+    if (entry != null) {
+      offHeap.invalidate(uri);
+      entry = entry.withBody(copy(entry.body(), false));
+      heap.put(uri, entry);
+    }
+    return entry;
+  }
+
+  void invalidate(String uri) {
+    heap.invalidate(uri);
+    if (offHeap != null) {
+      offHeap.invalidate(uri);
+    }
+  }
+
+  void put(String uri, Entry entry) {
+    if (offHeap != null) {
+      offHeap.invalidate(uri);
+    }
+    heap.put(uri, entry);
+  }
+
+  /** A stored response and what is needed to decide whether it may be reused. */
+  @Value
+  @Builder(toBuilder = true)
+  static class Entry {
+    int status;
+
+    String statusText;
+
+    /** Read only response headers. */
+    HttpHeaders headers;
+
+    /** Shared by all readers, which must not change its position. */
+    ByteBuffer body;
+
+    /** Authorization of the request, which must match for the entry to be used. */
+    String authorization;
+
+    /** Values of the request headers named by the Vary response header. */
+    Map<String, List<String>> varied;
+
+    /** When the response was received, in epoch millis. */
+    long receivedMillis;
+
+    /** Age of the response when it was received. */
+    long initialAgeMillis;
+
+    long freshnessMillis;
+
+    /** The response may not be used without revalidation. */
+    boolean noCache;
+
+    long ageMillis(long nowMillis) {
+      return initialAgeMillis + Math.max(0, nowMillis - receivedMillis);
+    }
+
+    boolean isFresh(long nowMillis) {
+      return !noCache && ageMillis(nowMillis) < freshnessMillis;
+    }
+
+    int weight() {
+      long weight = body.remaining();
+      for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+        weight += header.getKey().length();
+        for (String value : header.getValue()) {
+          weight += value.length();
+        }
+      }
+      return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    Entry withBody(ByteBuffer replacement) {
+      return toBuilder().body(replacement).build();
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import lombok.Builder;
+
+/**
+ * Limits retries to a fraction of requests so that retries cannot multiply the load on a
+ * destination that is already struggling. Each request deposits a fraction of a retry and each
+ * retry withdraws a whole one. The balance is capped so that a long healthy period cannot bank an
+ * unlimited number of retries. A small number of retries per second is always permitted so that
+ * destinations receiving few requests can still be retried.
+ *
+ * <p>All state is updated with compare-and-set.
+ */
+final class RetryBudget {
+  private static final long SCALE = 1000;
+
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  private final long deposit;
+
+  private final long maxBalance;
+
+  private final int minimumPerSecond;
+
+  private final LongSupplier nanoClock;
+
+  private final AtomicLong balance = new AtomicLong();
+
+  /** The current second in the upper bits and the reserve retries used during it in the lower. */
+  private final AtomicLong reserve = new AtomicLong();
+
+  @Builder
+  RetryBudget(double ratio, int minimumPerSecond, LongSupplier nanoClock) {
+    this.deposit = Math.max(0, Math.round(ratio * SCALE));
+    this.maxBalance = Math.max(SCALE, deposit * SCALE);
+    this.minimumPerSecond = Math.max(0, minimumPerSecond);
+    this.nanoClock = nanoClock == null ? System::nanoTime : nanoClock;
+  }
+
+  /** Record a request, earning a fraction of a retry. */
+  void deposit() {
+    balance.accumulateAndGet(deposit, (current, amount) -> Math.min(maxBalance, current + amount));
+  }
+
+  /** Return true if a retry is permitted, spending from the budget. */
+  boolean tryWithdraw() {
+    while (true) {
+      long current = balance.get();
+      if (current < SCALE) {
+        break;
+      }
+      if (balance.compareAndSet(current, current - SCALE)) {
+        return true;
+      }
+    }
+    long second = Math.floorDiv(nanoClock.getAsLong(), NANOS_PER_SECOND) & 0xFFFF_FFFFL;
+    while (true) {
+      long current = reserve.get();
+      long used = (current >>> 32) == second ? current & 0xFFFF_FFFFL : 0;
+      if (used >= minimumPerSecond) {
+        return false;
+      }
+      if (reserve.compareAndSet(current, (second << 32) | (used + 1))) {
+        return true;
+      }
+    }
+  }
+}
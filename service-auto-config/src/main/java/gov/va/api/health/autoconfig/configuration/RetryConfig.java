@@ -0,0 +1,78 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+
+/**
+ * Adds retries of idempotent requests and optional hedging of GET requests, configured by {@link
+ * RetryProperties}, to rest templates created with the application's RestTemplateBuilder. This is
+ * enabled with retry.enabled=true.
+ *
+ * <p>The response cache and single flight interceptors see one request and its final response. The
+ * other interceptors of the rest template, such as call logging, failure dumps, and metrics, and
+ * the {@link ResilienceConfig} bulkheads and circuit breakers, are run around each attempt,
+ * including hedges, so that every request sent to a destination is limited, logged, and measured.
+ * All rest templates share the same retry budgets for each destination. Interceptors added by
+ * customizers that run after this one are run once per request, after the retries, and so only see
+ * the first attempt.
+ */
+@Configuration
+@ConditionalOnProperty(name = "retry.enabled", havingValue = "true")
+public class RetryConfig implements DisposableBean {
+  private final List<RetryInterceptor> interceptors = new CopyOnWriteArrayList<>();
+
+  private static boolean isOncePerRequest(ClientHttpRequestInterceptor interceptor) {
+    return interceptor instanceof ResponseCacheInterceptor
+        || interceptor instanceof SingleFlightInterceptor;
+  }
+
+  @Override
+  public void destroy() {
+    interceptors.forEach(RetryInterceptor::close);
+  }
+
+  /** Create a customizer that adds the retry interceptor to rest templates. */
+  @Bean
+  public RestTemplateCustomizer retryRestTemplateCustomizer(
+      RetryProperties properties,
+      ObjectProvider<MeterRegistry> meterRegistry,
+      ObjectProvider<ResilienceInterceptor> resilience) {
+    RetryInterceptor interceptor =
+        RetryInterceptor.builder()
+            .properties(properties)
+            .meterRegistry(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry))
+            .build();
+    interceptors.add(interceptor);
+    return restTemplate -> {
+      List<ClientHttpRequestInterceptor> oncePerRequest = new ArrayList<>();
+      List<ClientHttpRequestInterceptor> perAttempt = new ArrayList<>();
+      for (ClientHttpRequestInterceptor existing : restTemplate.getInterceptors()) {
+        if (existing instanceof RetryInterceptor.AttemptChain) {
+          perAttempt.addAll(((RetryInterceptor.AttemptChain) existing).attemptInterceptors());
+        } else if (isOncePerRequest(existing)) {
+          oncePerRequest.add(existing);
+        } else {
+          perAttempt.add(existing);
+        }
+      }
+      resilience.ifAvailable(
+          r -> {
+            if (!perAttempt.contains(r)) {
+              perAttempt.add(0, r);
+            }
+          });
+      oncePerRequest.add(interceptor.withAttemptInterceptors(perAttempt));
+      restTemplate.setInterceptors(oncePerRequest);
+    };
+  }
+}
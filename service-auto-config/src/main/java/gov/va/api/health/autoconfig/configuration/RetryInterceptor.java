@@ -0,0 +1,465 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Interceptor that retries idempotent requests and optionally hedges GET requests.
+ *
+ * <p>Requests using GET, HEAD, OPTIONS, PUT, DELETE, or TRACE are retried when they throw an
+ * IOException or receive one of the retryable statuses. Other methods are sent once. The delay
+ * between attempts uses decorrelated jitter, i.e. a random delay between the base backoff and three
+ * times the previous delay, capped at the max backoff, so that clients that failed together do not
+ * retry together. Retries to each destination host are limited by a {@link RetryBudget}.
+ *
+ * <p>When hedging is enabled, a GET that has not completed after a high percentile of the recent
+ * latency to its destination is sent a second time and whichever response arrives first is used.
+ * The other is closed. Hedges spend from the same budget as retries. Hedged requests are sent on a
+ * bounded pool of daemon threads. If the pool is busy, requests are sent without a hedge on the
+ * calling thread.
+ *
+ * <p>This interceptor must be the last interceptor of a rest template. The request execution only
+ * sends a new request after all interceptors have been invoked, so executing the request more than
+ * once from an earlier position would skip the interceptors that follow. Interceptors that should
+ * see each attempt, including hedges, are instead run by {@link #withAttemptInterceptors(List)}
+ * around every attempt. Responses rejected by a {@link ResilienceInterceptor} around an attempt are
+ * not retried, and a rejected hedge does not replace the original request.
+ *
+ * <p>Metrics, tagged by destination: {@value #RETRY_METRIC} (tagged by outcome, retried or
+ * budget-exhausted) and {@value #HEDGE_METRIC} (tagged by outcome, won or lost).
+ */
+@Slf4j
+class RetryInterceptor implements ClientHttpRequestInterceptor, AutoCloseable {
+  static final String RETRY_METRIC = "http.client.retries";
+
+  static final String HEDGE_METRIC = "http.client.hedges";
+
+  private static final Set<HttpMethod> IDEMPOTENT =
+      EnumSet.of(
+          HttpMethod.GET,
+          HttpMethod.HEAD,
+          HttpMethod.OPTIONS,
+          HttpMethod.PUT,
+          HttpMethod.DELETE,
+          HttpMethod.TRACE);
+
+  private final RetryProperties properties;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Set<Integer> retryableStatuses;
+
+  private final long baseBackoffNanos;
+
+  private final long maxBackoffNanos;
+
+  private final ThreadPoolExecutor hedgeExecutor;
+
+  private final Map<String, Destination> destinations = new ConcurrentHashMap<>();
+
+  @Builder
+  RetryInterceptor(@NonNull RetryProperties properties, @NonNull MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    this.retryableStatuses = new HashSet<>(properties.getRetryableStatuses());
+    this.baseBackoffNanos = Math.max(0, properties.getBaseBackoff().toNanos());
+    this.maxBackoffNanos = Math.max(baseBackoffNanos, properties.getMaxBackoff().toNanos());
+    this.hedgeExecutor = properties.getHedge().isEnabled() ? hedgeExecutor(properties) : null;
+  }
+
+  /**
+   * Return a random delay between the base and three times the previous delay, capped at the max.
+   */
+  static long decorrelatedJitter(long base, long max, long previous) {
+    long upper = Math.min(max, Math.max(base, previous) * 3);
+    if (upper <= base) {
+      return Math.min(base, max);
+    }
+    return ThreadLocalRandom.current().nextLong(base, upper + 1);
+  }
+
+  private static ThreadPoolExecutor hedgeExecutor(RetryProperties properties) {
+    CustomizableThreadFactory threads = new CustomizableThreadFactory("rest-template-hedge-");
+    threads.setDaemon(true);
+    return new ThreadPoolExecutor(
+        0,
+        Math.max(2, properties.getHedge().getMaxThreads()),
+        60,
+        TimeUnit.SECONDS,
+        new SynchronousQueue<>(),
+        threads);
+  }
+
+  private static IOException unwrap(ExecutionException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof IOException) {
+      return (IOException) cause;
+    }
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return new IOException(cause);
+  }
+
+  /** Wait out a backoff, returning the delay to base the next one on. */
+  private long backoff(long previous) throws InterruptedIOException {
+    long delay = decorrelatedJitter(baseBackoffNanos, maxBackoffNanos, previous);
+    try {
+      TimeUnit.NANOSECONDS.sleep(delay);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to retry");
+    }
+    return delay;
+  }
+
+  @Override
+  public void close() {
+    if (hedgeExecutor != null) {
+      hedgeExecutor.shutdownNow();
+    }
+  }
+
+  private Destination destination(String host) {
+    return destinations.computeIfAbsent(
+        host == null ? "" : host.toLowerCase(Locale.ENGLISH), h -> new Destination(h));
+  }
+
+  private ClientHttpResponse hedged(
+      Destination destination,
+      long delayNanos,
+      HttpRequest request,
+      byte[] body,
+      ClientHttpRequestExecution execution)
+      throws IOException {
+    Race race = new Race(destination, request, body, execution);
+    if (!race.start(false)) {
+      return timed(destination, request, body, execution);
+    }
+    try {
+      try {
+        return race.winner.get(delayNanos, TimeUnit.NANOSECONDS);
+      } catch (TimeoutException e) {
+        if (!race.winner.isDone() && destination.budget.tryWithdraw()) {
+          race.start(true);
+        }
+        return race.winner.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      race.abandon();
+      throw new InterruptedIOException("Interrupted while waiting for response");
+    } catch (ExecutionException e) {
+      throw unwrap(e);
+    }
+  }
+
+  @Override
+  public ClientHttpResponse intercept(
+      HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+    if (!IDEMPOTENT.contains(request.getMethod())) {
+      return execution.execute(request, body);
+    }
+    Destination destination = destination(request.getURI().getHost());
+    destination.budget.deposit();
+    long delay = baseBackoffNanos;
+    for (int attempt = 1; true; attempt++) {
+      boolean lastAttempt = attempt >= properties.getMaxAttempts();
+      ClientHttpResponse response;
+      try {
+        response = send(destination, request, body, execution);
+      } catch (IOException e) {
+        if (lastAttempt || !destination.permitRetry()) {
+          throw e;
+        }
+        log.debug("Retrying {} {}: {}", request.getMethod(), request.getURI(), e.getMessage());
+        delay = backoff(delay);
+        continue;
+      }
+      if (!isRetryable(response) || lastAttempt || !destination.permitRetry()) {
+        return response;
+      }
+      log.debug(
+          "Retrying {} {}: {}", request.getMethod(), request.getURI(), response.getRawStatusCode());
+      response.close();
+      delay = backoff(delay);
+    }
+  }
+
+  private static boolean isFastFail(ClientHttpResponse response) {
+    return response.getHeaders().containsKey(ResilienceInterceptor.FAST_FAIL_HEADER);
+  }
+
+  private boolean isRetryable(ClientHttpResponse response) throws IOException {
+    try {
+      return retryableStatuses.contains(response.getRawStatusCode()) && !isFastFail(response);
+    } catch (IOException | RuntimeException e) {
+      response.close();
+      throw e;
+    }
+  }
+
+  private ClientHttpResponse send(
+      Destination destination,
+      HttpRequest request,
+      byte[] body,
+      ClientHttpRequestExecution execution)
+      throws IOException {
+    if (hedgeExecutor == null || request.getMethod() != HttpMethod.GET) {
+      return execution.execute(request, body);
+    }
+    long hedgeDelay = destination.latency.hedgeDelayNanos();
+    if (hedgeDelay < 0) {
+      return timed(destination, request, body, execution);
+    }
+    return hedged(destination, hedgeDelay, request, body, execution);
+  }
+
+  private ClientHttpResponse timed(
+      Destination destination,
+      HttpRequest request,
+      byte[] body,
+      ClientHttpRequestExecution execution)
+      throws IOException {
+    long start = System.nanoTime();
+    ClientHttpResponse response = execution.execute(request, body);
+    if (!isFastFail(response)) {
+      destination.latency.record(System.nanoTime() - start);
+    }
+    return response;
+  }
+
+  /**
+   * Return an interceptor that retries requests through the given interceptors, so that each
+   * attempt, including hedges, passes through each of them in order. It shares the budgets,
+   * latency, and hedge pool of this interceptor.
+   */
+  ClientHttpRequestInterceptor withAttemptInterceptors(
+      List<ClientHttpRequestInterceptor> attemptInterceptors) {
+    return new AttemptChain(List.copyOf(attemptInterceptors));
+  }
+
+  /** Retries requests, sending each attempt through a chain of interceptors. */
+  final class AttemptChain implements ClientHttpRequestInterceptor {
+    private final List<ClientHttpRequestInterceptor> attemptInterceptors;
+
+    private AttemptChain(List<ClientHttpRequestInterceptor> attemptInterceptors) {
+      this.attemptInterceptors = attemptInterceptors;
+    }
+
+    private ClientHttpResponse attempt(
+        int index, HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+        throws IOException {
+      if (index >= attemptInterceptors.size()) {
+        return execution.execute(request, body);
+      }
+      return attemptInterceptors
+          .get(index)
+          .intercept(request, body, (r, b) -> attempt(index + 1, r, b, execution));
+    }
+
+    List<ClientHttpRequestInterceptor> attemptInterceptors() {
+      return attemptInterceptors;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(
+        HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+      return RetryInterceptor.this.intercept(request, body, (r, b) -> attempt(0, r, b, execution));
+    }
+  }
+
+  /** Retry budget, latency, and metrics for one host. */
+  private final class Destination {
+    private final RetryBudget budget;
+
+    private final Latency latency;
+
+    private final Counter retried;
+
+    private final Counter budgetExhausted;
+
+    private final Counter hedgeWon;
+
+    private final Counter hedgeLost;
+
+    Destination(String host) {
+      budget =
+          RetryBudget.builder()
+              .ratio(properties.getBudgetRatio())
+              .minimumPerSecond(properties.getBudgetMinimumPerSecond())
+              .build();
+      latency =
+          new Latency(
+              properties.getHedge().getPercentile(),
+              properties.getHedge().getMinimumSamples(),
+              properties.getHedge().getMinimumDelay().toNanos());
+      Tags tags = Tags.of("destination", host);
+      retried = meterRegistry.counter(RETRY_METRIC, tags.and("outcome", "retried"));
+      budgetExhausted =
+          meterRegistry.counter(RETRY_METRIC, tags.and("outcome", "budget-exhausted"));
+      hedgeWon = meterRegistry.counter(HEDGE_METRIC, tags.and("outcome", "won"));
+      hedgeLost = meterRegistry.counter(HEDGE_METRIC, tags.and("outcome", "lost"));
+    }
+
+    boolean permitRetry() {
+      if (budget.tryWithdraw()) {
+        retried.increment();
+        return true;
+      }
+      budgetExhausted.increment();
+      return false;
+    }
+  }
+
+  /**
+   * Recent latency of GET requests to one destination. The hedge delay is recomputed from each
+   * batch of minimum samples recorded.
+   */
+  private static final class Latency {
+    private final double percentile;
+
+    private final int samples;
+
+    private final long minimumDelayNanos;
+
+    private final Recorder recorder = new Recorder(2);
+
+    private final AtomicLong recorded = new AtomicLong();
+
+    private Histogram interval;
+
+    private volatile long hedgeDelayNanos = -1;
+
+    Latency(double percentile, int samples, long minimumDelayNanos) {
+      this.percentile = percentile;
+      this.samples = Math.max(1, samples);
+      this.minimumDelayNanos = Math.max(0, minimumDelayNanos);
+    }
+
+    /** The delay before a hedge is sent, or -1 if too few requests have been measured. */
+    long hedgeDelayNanos() {
+      return hedgeDelayNanos;
+    }
+
+    void record(long nanos) {
+      recorder.recordValue(Math.max(0, nanos));
+      if (recorded.incrementAndGet() % samples == 0) {
+        refresh();
+      }
+    }
+
+    private synchronized void refresh() {
+      interval = recorder.getIntervalHistogram(interval);
+      hedgeDelayNanos = Math.max(minimumDelayNanos, interval.getValueAtPercentile(percentile));
+    }
+  }
+
+  /** The original request and its hedge, racing to complete a single response. */
+  private final class Race {
+    private final Destination destination;
+
+    private final HttpRequest request;
+
+    private final byte[] body;
+
+    private final ClientHttpRequestExecution execution;
+
+    private final CompletableFuture<ClientHttpResponse> winner = new CompletableFuture<>();
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    Race(
+        Destination destination,
+        HttpRequest request,
+        byte[] body,
+        ClientHttpRequestExecution execution) {
+      this.destination = destination;
+      this.request = request;
+      this.body = body;
+      this.execution = execution;
+    }
+
+    /** Stop waiting, closing the response if one has already arrived. */
+    void abandon() {
+      if (!winner.cancel(false) && !winner.isCompletedExceptionally()) {
+        winner.join().close();
+      }
+    }
+
+    private void finish(boolean hedge, ClientHttpResponse response) {
+      if (winner.complete(response)) {
+        if (hedge) {
+          destination.hedgeWon.increment();
+        }
+        return;
+      }
+      if (hedge) {
+        destination.hedgeLost.increment();
+      }
+      response.close();
+    }
+
+    private void run(boolean hedge) {
+      try {
+        ClientHttpResponse response = timed(destination, request, body, execution);
+        if (hedge && isFastFail(response) && running.decrementAndGet() > 0) {
+          /* The hedge was rejected, so wait for the original request instead. */
+          response.close();
+          return;
+        }
+        finish(hedge, response);
+      } catch (IOException | RuntimeException e) {
+        if (running.decrementAndGet() == 0) {
+          winner.completeExceptionally(e);
+        }
+      }
+    }
+
+    /** Send the request on the hedge pool, returning false if the pool is busy. */
+    boolean start(boolean hedge) {
+      running.incrementAndGet();
+      try {
+        hedgeExecutor.execute(() -> run(hedge));
+        return true;
+      } catch (RejectedExecutionException e) {
+        running.decrementAndGet();
+        return false;
+      }
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import java.time.Duration;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Application properties for retrying idempotent requests made with rest templates. Values shown
+ * are the defaults.
+ *
+ * <pre>
+ * retry.enabled=true
+ * retry.max-attempts=3
+ * retry.base-backoff=50ms
+ * retry.max-backoff=1s
+ * retry.retryable-statuses=502,503,504
+ * retry.budget-ratio=0.2
+ * retry.budget-minimum-per-second=10
+ * retry.hedge.enabled=false
+ * retry.hedge.percentile=95
+ * retry.hedge.minimum-samples=100
+ * retry.hedge.minimum-delay=10ms
+ * retry.hedge.max-threads=16
+ * </pre>
+ */
+@SuppressWarnings("DefaultAnnotationParam")
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties("retry")
+@Data
+@Accessors(fluent = false)
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+public class RetryProperties {
+  private boolean enabled;
+
+  /** Total attempts, including the first. */
+  @Builder.Default private int maxAttempts = 3;
+
+  /** Smallest delay between attempts. */
+  @Builder.Default private Duration baseBackoff = Duration.ofMillis(50);
+
+  /** Largest delay between attempts. */
+  @Builder.Default private Duration maxBackoff = Duration.ofSeconds(1);
+
+  /** Response statuses that are retried. Connection failures are always retried. */
+  @Builder.Default private List<Integer> retryableStatuses = List.of(502, 503, 504);
+
+  /** Retries earned per request to a destination, e.g. 0.2 permits one retry per 5 requests. */
+  @Builder.Default private double budgetRatio = 0.2;
+
+  /** Retries per second that are permitted for a destination regardless of the budget. */
+  @Builder.Default private int budgetMinimumPerSecond = 10;
+
+  @Builder.Default private Hedge hedge = new Hedge();
+
+  /** Hedged GET requests. */
+  @Data
+  @Accessors(fluent = false)
+  @NoArgsConstructor
+  @Builder
+  @AllArgsConstructor
+  public static class Hedge {
+    private boolean enabled;
+
+    /** Latency percentile of recent GETs to the destination after which a hedge is sent. */
+    @Builder.Default private double percentile = 95;
+
+    /**
+     * GETs to the destination measured for each percentile calculation. Hedging begins once this
+     * many have been measured.
+     */
+    @Builder.Default private int minimumSamples = 100;
+
+    /** Hedges are never sent sooner than this. */
+    @Builder.Default private Duration minimumDelay = Duration.ofMillis(10);
+
+    /** Maximum number of threads used to send hedged requests. */
+    @Builder.Default private int maxThreads = 16;
+  }
+}
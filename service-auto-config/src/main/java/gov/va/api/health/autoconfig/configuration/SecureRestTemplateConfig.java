@@ -1,30 +1,40 @@
 package gov.va.api.health.autoconfig.configuration;
 
 import gov.va.api.health.autoconfig.encryption.BasicEncryption;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.security.KeyManagementException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Supplier;
+import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
-import lombok.AllArgsConstructor;
-import lombok.SneakyThrows;
+import javax.net.ssl.SSLSessionContext;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.client.HttpClient;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.ssl.DefaultHostnameVerifier;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.TrustAllStrategy;
+import org.apache.http.conn.util.PublicSuffixMatcherLoader;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.ssl.SSLContextBuilder;
+import org.apache.http.ssl.SSLContexts;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
@@ -33,66 +43,77 @@ import org.springframework.http.HttpRequest;
 import org.springframework.http.client.BufferingClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.util.ResourceUtils;
-import org.springframework.util.StreamUtils;
 import org.springframework.web.client.RestTemplate;
 
 /**
  * This factory provides rest template that are configured for SSL communication per {@link
  * SslClientProperties}. Additionally this attaches an interceptor that will provide logging on
- * failed requests.
+ * failed requests and a sample of successful requests, see {@link DownstreamCallLogger}, and
+ * encrypted details of failed requests, see {@link FailureDumpCapture}.
+ *
+ * <p>TLS handshakes are recorded with the {@value
+ * InstrumentedSslConnectionSocketFactory#HANDSHAKE_METRIC} timer in the application's meter
+ * registry, or the global registry if the application does not provide one. When a registry is
+ * present, calls are measured by {@link HttpClientMetricsInterceptor} and the connection pool by
+ * {@link ReloadableSslConnectionManager}.
+ *
+ * <p>If {@link SslClientProperties#isReloadKeyStores()} is enabled, key stores loaded from files
+ * are watched and, when changed, a new SSL context is swapped in for new connections. Open
+ * connections, including those with requests in flight, are not interrupted. Idle pooled
+ * connections are closed so that subsequent requests use the new certificates. Reloads are recorded
+ * with the {@value #RELOAD_METRIC} counter.
  */
 @Configuration
 @Slf4j
-@AllArgsConstructor(onConstructor = @__({@Autowired}))
-public class SecureRestTemplateConfig {
+public class SecureRestTemplateConfig implements DisposableBean {
+  static final String RELOAD_METRIC = "ssl.client.reload";
+
   private final SslClientProperties config;
 
-  @SneakyThrows
-  private static ClientHttpResponse executeAndLog(
-      HttpRequest request,
-      byte[] body,
-      ClientHttpRequestExecution execution,
-      String loggingEncryptionKey) {
-    log.info("{} {}", request.getMethod(), request.getURI());
-    ClientHttpResponse response = execution.execute(request, body);
+  private final MeterRegistry meterRegistry;
 
-    log.info(
-        "Response from {} {} is {}",
-        request.getMethod(),
-        request.getURI(),
-        response.getStatusCode());
+  private final List<KeyStoreWatcher> watchers = new CopyOnWriteArrayList<>();
 
-    if (response.getStatusCode().isError()) {
-      Map<String, Object> requestInfo = new HashMap<>();
-      requestInfo.put("method", request.getMethodValue());
-      requestInfo.put("uri", request.getURI());
-      requestInfo.put("headers", request.getHeaders());
-      requestInfo.put("body", new String(body, StandardCharsets.UTF_8));
+  private final List<FailureDumpCapture> failureDumps = new CopyOnWriteArrayList<>();
 
-      Map<String, Object> responseInfo = new HashMap<>();
-      responseInfo.put("statusCode", response.getStatusCode());
-      responseInfo.put("statusCodeReason", response.getStatusCode().getReasonPhrase());
-      responseInfo.put("headers", response.getHeaders());
-      responseInfo.put(
-          "body", StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8));
+  public SecureRestTemplateConfig(SslClientProperties config) {
+    this(config, Metrics.globalRegistry);
+  }
 
-      String json =
-          JacksonConfig.createMapper()
-              .writeValueAsString(Map.of("request", requestInfo, "response", responseInfo));
+  SecureRestTemplateConfig(SslClientProperties config, MeterRegistry meterRegistry) {
+    this.config = config;
+    this.meterRegistry = meterRegistry;
+  }
 
-      String logMessage =
-          loggingEncryptionKey == null
-              ? "For more information, "
-                  + "please set the property ssl.logging-encryption-key in the future."
-              : BasicEncryption.forKey(loggingEncryptionKey).encrypt(json);
+  /** Create a configuration that records metrics in the application meter registry, if any. */
+  @Autowired
+  public SecureRestTemplateConfig(
+      SslClientProperties config, ObjectProvider<MeterRegistry> meterRegistry) {
+    this(config, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+  }
 
-      log.error("REQUEST FAILED: {}", logMessage);
+  private static ClientHttpResponse executeAndLog(
+      HttpRequest request,
+      byte[] body,
+      ClientHttpRequestExecution execution,
+      DownstreamCallLogger callLogger,
+      FailureDumpCapture failureDumps)
+      throws IOException {
+    ClientHttpResponse response = callLogger.execute(request, body, execution);
+    if (response.getRawStatusCode() < 400) {
+      return response;
     }
-
-    return response;
+    if (failureDumps == null) {
+      log.error(
+          "REQUEST FAILED: For more information, "
+              + "please set the property ssl.logging-encryption-key in the future.");
+      return response;
+    }
+    return failureDumps.capture(request, body, response);
   }
 
   private Supplier<ClientHttpRequestFactory> bufferingRequestFactory(HttpClient client) {
@@ -100,6 +121,25 @@ public class SecureRestTemplateConfig {
         new BufferingClientHttpRequestFactory(new HttpComponentsClientHttpRequestFactory(client));
   }
 
+  /** Apply the session cache settings, if specified, to client connections. */
+  private void configureSessionCache(SSLContext context) {
+    SSLSessionContext sessions = context.getClientSessionContext();
+    if (config.getSessionCacheSize() != null) {
+      sessions.setSessionCacheSize(config.getSessionCacheSize());
+    }
+    if (config.getSessionTimeout() != null) {
+      sessions.setSessionTimeout(Math.toIntExact(config.getSessionTimeout().toSeconds()));
+    }
+  }
+
+  @Override
+  public void destroy() {
+    watchers.forEach(KeyStoreWatcher::close);
+    watchers.clear();
+    failureDumps.forEach(FailureDumpCapture::close);
+    failureDumps.clear();
+  }
+
   private String fileOrClasspath(String path) {
     if (StringUtils.startsWith(path, "file:") || StringUtils.startsWith(path, "classpath:")) {
       return path;
@@ -107,17 +147,32 @@ public class SecureRestTemplateConfig {
     throw new IllegalArgumentException("Expected file or classpath resources. Got " + path);
   }
 
+  /**
+   * Connection state is disabled so that pooled connections can be reused. Otherwise, the client
+   * certificate principal becomes the state of each mutual TLS connection and, since requests are
+   * not made on behalf of a particular user, those connections are never leased again.
+   */
   private CloseableHttpClient httpClientWithSsl() {
-    HttpClientBuilder builder = HttpClients.custom();
-    if (config.isEnableClient()) {
-      builder.setSSLContext(sslContext());
-    }
-    if (!config.isVerify()) {
-      builder.setSSLHostnameVerifier(new NoopHostnameVerifier());
+    ReloadableSslConnectionManager connectionManager =
+        ReloadableSslConnectionManager.create(
+            sslSocketFactory(), isMeterRegistryPresent() ? meterRegistry : null);
+    if (config.isEnableClient() && config.isReloadKeyStores()) {
+      watchKeyStores(() -> reload(connectionManager));
     }
+    HttpClientBuilder builder =
+        HttpClients.custom().disableConnectionState().setConnectionManager(connectionManager);
     return builder.build();
   }
 
+  /**
+   * Return true unless the meter registry is the global registry without any registries added to
+   * it, in which case nothing would be published.
+   */
+  private boolean isMeterRegistryPresent() {
+    return !(meterRegistry instanceof CompositeMeterRegistry)
+        || !((CompositeMeterRegistry) meterRegistry).getRegistries().isEmpty();
+  }
+
   private KeyStore loadKeyStore(String path, char[] password) {
     try {
       KeyStore keyStore = KeyStore.getInstance("JKS");
@@ -130,20 +185,66 @@ public class SecureRestTemplateConfig {
     }
   }
 
+  /**
+   * Swap a new SSL context into the connection manager. On failure, e.g. a key store is only
+   * partially written, the current context remains in use until the next change.
+   */
+  private void reload(ReloadableSslConnectionManager connectionManager) {
+    LayeredConnectionSocketFactory replacement;
+    try {
+      replacement = sslSocketFactory();
+    } catch (RuntimeException e) {
+      log.warn("Failed to reload key stores, continuing with current key stores", e);
+      meterRegistry.counter(RELOAD_METRIC, "outcome", "failure").increment();
+      return;
+    }
+    connectionManager.reload(replacement);
+    meterRegistry.counter(RELOAD_METRIC, "outcome", "success").increment();
+    log.info("Reloaded key stores");
+  }
+
   /**
    * Creates a RestTemplate that is configured to SSL. It will also have a logging interceptor that
    * will record information on a service call failure.
    */
   @Bean
   public RestTemplate restTemplate(@Autowired RestTemplateBuilder restTemplateBuilder) {
+    FailureDumpCapture failureDump =
+        config.getLoggingEncryptionKey() == null
+            ? null
+            : FailureDumpCapture.builder()
+                .encryption(BasicEncryption.forKey(config.getLoggingEncryptionKey()))
+                .properties(config.getFailureDumps())
+                .meterRegistry(meterRegistry)
+                .build();
+    if (failureDump != null) {
+      failureDumps.add(failureDump);
+    }
+    DownstreamCallLogger callLogger =
+        DownstreamCallLogger.builder().sampleRate(config.getCallLogSampleRate()).build();
+    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
+    interceptors.add((req, body, exec) -> executeAndLog(req, body, exec, callLogger, failureDump));
+    if (isMeterRegistryPresent()) {
+      interceptors.add(HttpClientMetricsInterceptor.builder().meterRegistry(meterRegistry).build());
+    }
     return restTemplateBuilder
         .requestFactory(bufferingRequestFactory(httpClientWithSsl()))
-        .additionalInterceptors(
-            (req, body, exec) -> executeAndLog(req, body, exec, config.getLoggingEncryptionKey()))
+        .additionalInterceptors(interceptors)
         .build();
   }
 
-  private SSLContext sslContext() {
+  /**
+   * Create the SSL context used by clients. If client SSL is not enabled, a context with the
+   * default key and trust material is used.
+   */
+  SSLContext sslContext() {
+    SSLContext context =
+        config.isEnableClient() ? sslContextWithKeyMaterial() : SSLContexts.createDefault();
+    configureSessionCache(context);
+    return context;
+  }
+
+  private SSLContext sslContextWithKeyMaterial() {
     try {
       SSLContextBuilder builder =
           SSLContextBuilder.create()
@@ -164,6 +265,38 @@ public class SecureRestTemplateConfig {
     }
   }
 
+  private LayeredConnectionSocketFactory sslSocketFactory() {
+    HostnameVerifier hostnameVerifier =
+        config.isVerify()
+            ? new DefaultHostnameVerifier(PublicSuffixMatcherLoader.getDefault())
+            : new NoopHostnameVerifier();
+    return new InstrumentedSslConnectionSocketFactory(
+        sslContext(), config.protocols(), config.cipherSuites(), hostnameVerifier, meterRegistry);
+  }
+
+  /** Watch the key stores that are loaded from files, ignoring those on the classpath. */
+  private void watchKeyStores(Runnable onChange) {
+    KeyStoreWatcher.KeyStoreWatcherBuilder watcher =
+        KeyStoreWatcher.builder().interval(config.getReloadInterval()).onChange(onChange);
+    List<String> keyStores = new ArrayList<>();
+    keyStores.add(config.getKeyStore());
+    if (config.isUseTrustStore()) {
+      keyStores.add(config.getTrustStore());
+    }
+    boolean watching = false;
+    for (String keyStore : keyStores) {
+      if (StringUtils.startsWith(keyStore, "file:")) {
+        watcher.file(Path.of(keyStore.substring("file:".length())));
+        watching = true;
+      }
+    }
+    if (!watching) {
+      log.warn("Key stores are not files and will not be reloaded: {}", keyStores);
+      return;
+    }
+    watchers.add(watcher.build().start());
+  }
+
   public static class FailedToConfigureSsl extends RuntimeException {
     FailedToConfigureSsl(Exception cause) {
       super(cause);
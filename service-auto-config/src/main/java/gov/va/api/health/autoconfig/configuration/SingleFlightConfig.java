@@ -0,0 +1,41 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+
+/**
+ * Combines concurrent identical GET and HEAD requests, configured by {@link
+ * SingleFlightProperties}, made by rest templates created with the application's
+ * RestTemplateBuilder, including the rest template provided by {@link SecureRestTemplateConfig}.
+ * This is enabled with single-flight.enabled=true.
+ *
+ * <p>All rest templates share the same in flight requests.
+ */
+@Configuration
+@ConditionalOnProperty(name = "single-flight.enabled", havingValue = "true")
+public class SingleFlightConfig {
+  /** Create a customizer that adds the single flight interceptor to rest templates. */
+  @Bean
+  public RestTemplateCustomizer singleFlightRestTemplateCustomizer(
+      SingleFlightProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+    SingleFlightInterceptor interceptor =
+        SingleFlightInterceptor.builder()
+            .properties(properties)
+            .meterRegistry(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry))
+            .build();
+    return restTemplate -> {
+      List<ClientHttpRequestInterceptor> interceptors =
+          new ArrayList<>(restTemplate.getInterceptors());
+      interceptors.add(0, interceptor);
+      restTemplate.setInterceptors(interceptors);
+    };
+  }
+}
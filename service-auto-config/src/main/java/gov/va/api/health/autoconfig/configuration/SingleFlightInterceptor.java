@@ -0,0 +1,246 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Interceptor that sends one request for concurrent identical GET and HEAD requests.
+ *
+ * <p>Requests are identical if they have the same method, URI, and values of the key headers. The
+ * first request is sent and its response is buffered. Identical requests that arrive while it is in
+ * flight wait for it and receive copies of the buffered response, or the exception it failed with.
+ * Requests that arrive after it completes are sent again, so no response is reused after it was
+ * received.
+ *
+ * <p>Once the max number of requests are waiting, further identical requests are sent separately.
+ * If the response body is larger than the max body size, the first request receives it unbuffered
+ * and waiting requests are sent separately.
+ *
+ * <p>This interceptor is ordered after {@link ResponseCacheInterceptor} so that only cache misses
+ * are combined, and before other interceptors so that combined requests are limited and logged
+ * once.
+ *
+ * <p>Metrics: {@value #METRIC} (tagged by outcome, shared, overflow, or not-shared).
+ */
+class SingleFlightInterceptor implements ClientHttpRequestInterceptor, Ordered {
+  static final String METRIC = "http.client.single-flight";
+
+  private final List<String> keyHeaders;
+
+  private final int maxWaiters;
+
+  private final int maxBodyBytes;
+
+  private final Map<Key, Flight> flights = new ConcurrentHashMap<>();
+
+  private final Counter shared;
+
+  private final Counter overflow;
+
+  private final Counter notShared;
+
+  @Builder
+  SingleFlightInterceptor(
+      @NonNull SingleFlightProperties properties, @NonNull MeterRegistry meterRegistry) {
+    this.keyHeaders = List.copyOf(properties.getKeyHeaders());
+    this.maxWaiters = properties.getMaxWaiters();
+    this.maxBodyBytes =
+        (int) Math.max(0, Math.min(Integer.MAX_VALUE - 8, properties.getMaxBodySize().toBytes()));
+    shared = meterRegistry.counter(METRIC, "outcome", "shared");
+    overflow = meterRegistry.counter(METRIC, "outcome", "overflow");
+    notShared = meterRegistry.counter(METRIC, "outcome", "not-shared");
+  }
+
+  @Override
+  public int getOrder() {
+    return Ordered.HIGHEST_PRECEDENCE + 1;
+  }
+
+  @Override
+  public ClientHttpResponse intercept(
+      HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+    if (request.getMethod() != HttpMethod.GET && request.getMethod() != HttpMethod.HEAD) {
+      return execution.execute(request, body);
+    }
+    Key key = key(request);
+    Flight flight = new Flight();
+    Flight inFlight = flights.putIfAbsent(key, flight);
+    if (inFlight == null) {
+      return lead(key, flight, request, body, execution);
+    }
+    if (!inFlight.join()) {
+      overflow.increment();
+      return execution.execute(request, body);
+    }
+    SharedResponse response = inFlight.await();
+    if (response == null) {
+      notShared.increment();
+      return execution.execute(request, body);
+    }
+    shared.increment();
+    return response;
+  }
+
+  private Key key(HttpRequest request) {
+    List<List<String>> values = new ArrayList<>(keyHeaders.size());
+    for (String header : keyHeaders) {
+      values.add(request.getHeaders().getOrEmpty(header));
+    }
+    return new Key(request.getMethod(), request.getURI().toString(), values);
+  }
+
+  private ClientHttpResponse lead(
+      Key key,
+      Flight flight,
+      HttpRequest request,
+      byte[] body,
+      ClientHttpRequestExecution execution)
+      throws IOException {
+    try {
+      ClientHttpResponse response = execution.execute(request, body);
+      SharedResponse buffered;
+      try {
+        byte[] bytes = response.getBody().readNBytes(maxBodyBytes + 1);
+        if (bytes.length > maxBodyBytes) {
+          flights.remove(key, flight);
+          flight.result.complete(null);
+          return new PartiallyReadResponse(response, bytes);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(response.getHeaders());
+        buffered =
+            new SharedResponse(
+                response.getRawStatusCode(),
+                response.getStatusText(),
+                HttpHeaders.readOnlyHttpHeaders(headers),
+                bytes);
+      } finally {
+        if (!flight.result.isDone()) {
+          response.close();
+        }
+      }
+      flights.remove(key, flight);
+      flight.result.complete(buffered);
+      return buffered;
+    } catch (IOException | RuntimeException e) {
+      flights.remove(key, flight);
+      flight.result.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /** Identifies identical requests. */
+  @Value
+  private static class Key {
+    HttpMethod method;
+
+    String uri;
+
+    List<List<String>> headers;
+  }
+
+  /** A request in flight and the requests waiting for it. */
+  private final class Flight {
+    /** The buffered response, or null if it is not shared. */
+    private final CompletableFuture<SharedResponse> result = new CompletableFuture<>();
+
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    /** Wait for the response, returning a copy, or null if it is not shared. */
+    SharedResponse await() throws IOException {
+      try {
+        return result.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for shared request");
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new IOException("Shared request failed: " + cause.getMessage(), cause);
+      }
+    }
+
+    /** Return true if there is room to wait. */
+    boolean join() {
+      while (true) {
+        int current = waiters.get();
+        if (current >= maxWaiters) {
+          return false;
+        }
+        if (waiters.compareAndSet(current, current + 1)) {
+          return true;
+        }
+      }
+    }
+  }
+
+  /** Buffered response, which may be read by any number of requests. */
+  private static final class SharedResponse implements ClientHttpResponse {
+    private final int status;
+
+    private final String statusText;
+
+    private final HttpHeaders headers;
+
+    private final byte[] body;
+
+    SharedResponse(int status, String statusText, HttpHeaders headers, byte[] body) {
+      this.status = status;
+      this.statusText = statusText;
+      this.headers = headers;
+      this.body = body;
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public InputStream getBody() {
+      return new ByteArrayInputStream(body);
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+
+    @Override
+    public int getRawStatusCode() {
+      return status;
+    }
+
+    @Override
+    public HttpStatus getStatusCode() {
+      return HttpStatus.valueOf(status);
+    }
+
+    @Override
+    public String getStatusText() {
+      return statusText;
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Application properties for sharing one response between concurrent identical GET and HEAD
+ * requests made with rest templates. Values shown are the defaults.
+ *
+ * <pre>
+ * single-flight.enabled=true
+ * single-flight.key-headers=Accept,Authorization
+ * single-flight.max-waiters=100
+ * single-flight.max-body-size=1MB
+ * </pre>
+ */
+@SuppressWarnings("DefaultAnnotationParam")
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties("single-flight")
+@Data
+@Accessors(fluent = false)
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+public class SingleFlightProperties {
+  private boolean enabled;
+
+  /**
+   * Request headers that, with the method and URI, identify identical requests. Requests that
+   * differ only in other headers share a response. Headers that change the response, such as
+   * Authorization, must be included.
+   */
+  @Builder.Default private List<String> keyHeaders = List.of("Accept", "Authorization");
+
+  /** Requests that may wait for one in flight request. Further requests are sent separately. */
+  @Builder.Default private int maxWaiters = 100;
+
+  /** Responses with larger bodies are not shared. Waiting requests are sent separately instead. */
+  @Builder.Default private DataSize maxBodySize = DataSize.ofMegabytes(1);
+}
@@ -1,5 +1,7 @@
 package gov.va.api.health.autoconfig.configuration;
 
+import java.time.Duration;
+import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -8,6 +10,7 @@ import lombok.experimental.Accessors;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Application properties for SSL client configuration.
@@ -21,7 +24,36 @@ import org.springframework.context.annotation.Configuration;
  * ssl.trust-store=file:certs/system/DVP-NONPROD-truststore.jks
  * ssl.trust-store-password=secret
  * ssl.logging-encryption-key=shanktopus
+ * ssl.session-cache-size=1000
+ * ssl.session-timeout=8h
+ * ssl.protocols=TLSv1.3,TLSv1.2
+ * ssl.cipher-suites=TLS_AES_128_GCM_SHA256,TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256
+ * ssl.reload-key-stores=true
+ * ssl.reload-interval=1m
+ * ssl.call-log-sample-rate=0.01
+ * ssl.failure-dumps.max-body-size=64KB
+ * ssl.failure-dumps.permits-per-second=1
+ * ssl.failure-dumps.burst=5
+ * ssl.failure-dumps.dedup-window=1m
+ * ssl.failure-dumps.dedup-max-size=10000
+ * ssl.failure-dumps.queue-size=100
  * </pre>
+ *
+ * <p>Session caching, protocols, and cipher suites use the JVM defaults when not specified. Cached
+ * sessions allow new connections to the same server to resume a session with an abbreviated
+ * handshake instead of repeating the full mutual TLS handshake.
+ *
+ * <p>When reloading is enabled, key stores specified with file: locations are watched for changes
+ * and reloaded without restarting the application. Changes are noticed immediately on file systems
+ * that support watching, and otherwise within the reload interval.
+ *
+ * <p>Each downstream call that fails is logged. Successful calls are logged at the call log sample
+ * rate, between 0 (none) and 1 (all).
+ *
+ * <p>When a logging encryption key is set, encrypted details of failed requests are also logged.
+ * These failure dumps are limited per destination, truncated to the max body size, and skipped for
+ * failures identical to one captured within the dedup window. The failure dumps values shown are
+ * the defaults.
  */
 @SuppressWarnings("DefaultAnnotationParam")
 @Configuration
@@ -43,16 +75,70 @@ public class SslClientProperties {
   private boolean useTrustStore;
   private String trustStore;
   private String trustStorePassword;
+  /** Maximum number of client sessions to cache. 0 means no limit. */
+  private Integer sessionCacheSize;
+  /** How long cached client sessions may be resumed. 0 means no limit. */
+  private Duration sessionTimeout;
+  /** Enabled protocols, e.g. TLSv1.3 and TLSv1.2. The highest supported by both sides is used. */
+  private List<String> protocols;
+  /** Enabled cipher suites. */
+  private List<String> cipherSuites;
+  /** Whether file based key stores are reloaded when they change. */
+  private boolean reloadKeyStores;
+  /** How often key stores are checked for changes that were not reported by the file system. */
+  @Builder.Default private Duration reloadInterval = Duration.ofMinutes(1);
+  /** Fraction of successful downstream calls that are logged. */
+  @Builder.Default private double callLogSampleRate = 0.01;
+
+  @Builder.Default private FailureDumps failureDumps = new FailureDumps();
 
   char[] clientKeyPassword() {
     return getClientKeyPassword().toCharArray();
   }
 
+  String[] cipherSuites() {
+    return toArrayOrNull(getCipherSuites());
+  }
+
   char[] keyStorePassword() {
     return getKeyStorePassword().toCharArray();
   }
 
+  String[] protocols() {
+    return toArrayOrNull(getProtocols());
+  }
+
+  private String[] toArrayOrNull(List<String> values) {
+    return values == null || values.isEmpty() ? null : values.toArray(new String[0]);
+  }
+
   char[] trustStorePassword() {
     return getTrustStorePassword().toCharArray();
   }
+
+  /** Limits on capturing details of failed requests. */
+  @Data
+  @Accessors(fluent = false)
+  @NoArgsConstructor
+  @Builder
+  @AllArgsConstructor
+  public static class FailureDumps {
+    /** Request and response bodies are truncated to this size. */
+    @Builder.Default private DataSize maxBodySize = DataSize.ofKilobytes(64);
+
+    /** Failures captured per second for each destination, after the burst is used. */
+    @Builder.Default private double permitsPerSecond = 1;
+
+    /** Failures that may be captured at once for each destination. */
+    @Builder.Default private int burst = 5;
+
+    /** Failures identical to one captured within this window are skipped. */
+    @Builder.Default private Duration dedupWindow = Duration.ofMinutes(1);
+
+    /** Maximum number of captured failures remembered for deduplication. */
+    @Builder.Default private long dedupMaxSize = 10_000;
+
+    /** Failures waiting to be encrypted. Further failures are dropped. */
+    @Builder.Default private int queueSize = 100;
+  }
 }
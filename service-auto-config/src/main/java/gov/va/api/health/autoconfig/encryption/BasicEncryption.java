@@ -1,53 +1,129 @@
 package gov.va.api.health.autoconfig.encryption;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.security.MessageDigest;
 import java.security.SecureRandom;
-import java.util.Arrays;
 import java.util.Base64;
 import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
-import lombok.AllArgsConstructor;
+import lombok.NonNull;
 import lombok.SneakyThrows;
-import org.apache.commons.lang3.ArrayUtils;
 
-@AllArgsConstructor(staticName = "forKey")
+/**
+ * AES/GCM encryption using a key derived from a shared secret. The derived key is computed once per
+ * instance. Ciphers are not thread safe, so each thread reuses its own cipher instance. Random IVs
+ * are produced by a shared SecureRandom, which is thread safe.
+ *
+ * <p>In addition to whole strings, large payloads can be encrypted or decrypted as streams to avoid
+ * holding multiple copies of the payload in memory. Both forms use the same Base64 encoded
+ * IV-plus-cipher-text format and are interchangeable.
+ */
 public class BasicEncryption {
-  private final String encryptionKey;
+  private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+  private static final int TAG_LENGTH_BITS = 128;
+
+  private static final ThreadLocal<Cipher> CIPHERS =
+      ThreadLocal.withInitial(BasicEncryption::newCipher);
+
+  private static final SecureRandom SECURE_RANDOM = newSecureRandom();
+
+  private final Key key;
+
+  private BasicEncryption(String encryptionKey) {
+    key = generateKey(encryptionKey);
+  }
+
+  /** Create a new instance that will encrypt and decrypt using the given key. */
+  public static BasicEncryption forKey(@NonNull String encryptionKey) {
+    return new BasicEncryption(encryptionKey);
+  }
+
+  /** Takes the bytes from the encryptionKey and makes sure it is the correct size. */
+  @SneakyThrows
+  private static Key generateKey(String encryptionKey) {
+    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+    digest.update(encryptionKey.getBytes(StandardCharsets.UTF_8));
+    return new SecretKeySpec(digest.digest(), "AES");
+  }
+
+  @SneakyThrows
+  private static Cipher newCipher() {
+    return Cipher.getInstance(TRANSFORMATION);
+  }
+
+  @SneakyThrows
+  private static SecureRandom newSecureRandom() {
+    return SecureRandom.getInstance("SHA1PRNG");
+  }
 
   /** Decrypts a plain-text AES encoded string. */
   @SneakyThrows
   public String decrypt(String cipherText) {
-    Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+    Cipher cipher = CIPHERS.get();
     byte[] allBytes = Base64.getDecoder().decode(cipherText);
-    byte[] iv = Arrays.copyOfRange(allBytes, 0, cipher.getBlockSize());
-    Key key = generateKey();
-    cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(128, iv));
-    byte[] enBytes = Arrays.copyOfRange(allBytes, cipher.getBlockSize(), allBytes.length);
-    return new String(cipher.doFinal(enBytes), StandardCharsets.UTF_8);
+    int ivLength = cipher.getBlockSize();
+    cipher.init(
+        Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, allBytes, 0, ivLength));
+    byte[] plainBytes = cipher.doFinal(allBytes, ivLength, allBytes.length - ivLength);
+    return new String(plainBytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Wrap a stream of Base64 encoded cipher text, as produced by {@link #encrypt(String)} or {@link
+   * #encryptingOutputStream(OutputStream)}, so that reads produce plain text. The IV is consumed
+   * from the stream immediately. Note that GCM authenticates the entire message, so the underlying
+   * cipher may hold decrypted bytes until the authentication tag at the end of the stream has been
+   * verified. A tag mismatch is reported as an IOException.
+   */
+  @SneakyThrows
+  public InputStream decryptingInputStream(@NonNull InputStream cipherText) {
+    InputStream decoded = Base64.getDecoder().wrap(cipherText);
+    Cipher cipher = newCipher();
+    byte[] iv = decoded.readNBytes(cipher.getBlockSize());
+    if (iv.length != cipher.getBlockSize()) {
+      throw new IOException("Cipher text is too short to contain an initialization vector");
+    }
+    cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+    return new CipherInputStream(decoded, cipher);
   }
 
   /** Encrypts a plain-text string. */
   @SneakyThrows
   public String encrypt(String plainText) {
-    Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-    Key key = generateKey();
-    SecureRandom secureRandom = SecureRandom.getInstance("SHA1PRNG");
-    byte[] iv = new byte[cipher.getBlockSize()];
-    secureRandom.nextBytes(iv);
-    cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, iv));
-    byte[] enBytes = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
-    byte[] combined = ArrayUtils.addAll(iv, enBytes);
+    Cipher cipher = CIPHERS.get();
+    byte[] plainBytes = plainText.getBytes(StandardCharsets.UTF_8);
+    int ivLength = cipher.getBlockSize();
+    byte[] iv = new byte[ivLength];
+    SECURE_RANDOM.nextBytes(iv);
+    cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+    byte[] combined = new byte[ivLength + cipher.getOutputSize(plainBytes.length)];
+    System.arraycopy(iv, 0, combined, 0, ivLength);
+    cipher.doFinal(plainBytes, 0, plainBytes.length, combined, ivLength);
     return Base64.getEncoder().encodeToString(combined);
   }
 
-  /** Takes the bytes from the encryptionKey and makes sure it is the correct size. */
+  /**
+   * Wrap a stream so that plain text written to the returned stream is encrypted and Base64 encoded
+   * as it is written. The output is compatible with {@link #decrypt(String)}. The returned stream
+   * must be closed to write the authentication tag and Base64 padding, which also closes the given
+   * stream. Each stream uses its own cipher and may be handed off between threads.
+   */
   @SneakyThrows
-  private Key generateKey() {
-    MessageDigest digest = MessageDigest.getInstance("SHA-256");
-    digest.update(encryptionKey.getBytes(StandardCharsets.UTF_8));
-    return new SecretKeySpec(digest.digest(), "AES");
+  public OutputStream encryptingOutputStream(@NonNull OutputStream cipherText) {
+    OutputStream encoded = Base64.getEncoder().wrap(cipherText);
+    Cipher cipher = newCipher();
+    byte[] iv = new byte[cipher.getBlockSize()];
+    SECURE_RANDOM.nextBytes(iv);
+    cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+    encoded.write(iv);
+    return new CipherOutputStream(encoded, cipher);
   }
 }
@@ -0,0 +1,237 @@
+package gov.va.api.health.autoconfig.encryption;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import gov.va.api.health.autoconfig.configuration.JacksonConfig;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.Builder;
+import lombok.NonNull;
+
+/**
+ * Command line tool that finds the encrypted "REQUEST FAILED: ..." lines written by the
+ * SecureRestTemplateConfig logging interceptor and decrypts them. Log files, or standard input, are
+ * read once with large buffers so that multi-gigabyte archives can be processed in a single pass.
+ * Decryption is performed in parallel, but output is written in the same order as the input.
+ *
+ * <p>Each match produces one JSON line on standard output with the source, line number, the log
+ * line text preceding the cipher text, and either the decrypted failure details ("failure" if they
+ * are a JSON object, otherwise "text") or an error.
+ *
+ * <pre>
+ * java -cp service-auto-config.jar \
+ *   gov.va.api.health.autoconfig.encryption.FailedRequestLogDecrypter \
+ *   [--key &lt;key&gt;] [--threads &lt;n&gt;] [file ...]
+ * </pre>
+ *
+ * If --key is not specified, the SSL_LOGGING_ENCRYPTION_KEY environment variable is used. If no
+ * files are specified, or a file is "-", standard input is read.
+ */
+public class FailedRequestLogDecrypter {
+  static final String MARKER = "REQUEST FAILED: ";
+
+  private static final int BUFFER_SIZE = 1 << 20;
+
+  private static final ObjectMapper MAPPER =
+      JacksonConfig.createMapper().enable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+
+  private final BasicEncryption encryption;
+
+  private final int threads;
+
+  private final int maxInFlight;
+
+  @Builder
+  FailedRequestLogDecrypter(@NonNull BasicEncryption encryption, int threads) {
+    this.encryption = encryption;
+    this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.maxInFlight = this.threads * 256;
+  }
+
+  /** Failure details are written as JSON objects, anything else is reported as text. */
+  private static JsonNode failure(String decrypted) {
+    try {
+      JsonNode failure = MAPPER.readTree(decrypted);
+      return failure != null && failure.isObject() ? failure : null;
+    } catch (JsonProcessingException e) {
+      return null;
+    }
+  }
+
+  private static boolean isCipherText(String candidate) {
+    if (candidate.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < candidate.length(); i++) {
+      char c = candidate.charAt(i);
+      boolean base64 =
+          (c >= 'A' && c <= 'Z')
+              || (c >= 'a' && c <= 'z')
+              || (c >= '0' && c <= '9')
+              || c == '+'
+              || c == '/'
+              || c == '=';
+      if (!base64) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Decrypt the given files, or standard input, writing JSON lines to standard output. */
+  public static void main(String[] args) {
+    int status =
+        run(args, System.getenv("SSL_LOGGING_ENCRYPTION_KEY"), System.in, System.out, System.err);
+    if (status != 0) {
+      System.exit(status);
+    }
+  }
+
+  /** Parse arguments and process all sources. Returns the process exit status. */
+  static int run(
+      String[] args, String defaultKey, InputStream in, PrintStream out, PrintStream err) {
+    String key = defaultKey;
+    int threads = 0;
+    List<String> sources = new ArrayList<>();
+    try {
+      for (int i = 0; i < args.length; i++) {
+        switch (args[i]) {
+          case "--key":
+            key = args[++i];
+            break;
+          case "--threads":
+            threads = Integer.parseInt(args[++i]);
+            break;
+          default:
+            sources.add(args[i]);
+        }
+      }
+    } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+      err.println("Usage: [--key <key>] [--threads <n>] [file ...]");
+      return 2;
+    }
+    if (key == null || key.isBlank()) {
+      err.println("Encryption key not specified. Use --key or SSL_LOGGING_ENCRYPTION_KEY.");
+      return 2;
+    }
+    if (sources.isEmpty()) {
+      sources.add("-");
+    }
+    var decrypter =
+        FailedRequestLogDecrypter.builder()
+            .encryption(BasicEncryption.forKey(key))
+            .threads(threads)
+            .build();
+    Writer writer =
+        new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    try {
+      for (String source : sources) {
+        if ("-".equals(source)) {
+          decrypter.decrypt(
+              "-",
+              new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE),
+              writer);
+        } else {
+          try (BufferedReader reader =
+              new BufferedReader(
+                  new InputStreamReader(
+                      Files.newInputStream(Path.of(source)), StandardCharsets.UTF_8),
+                  BUFFER_SIZE)) {
+            decrypter.decrypt(source, reader, writer);
+          }
+        }
+      }
+      writer.flush();
+    } catch (IOException e) {
+      err.println("Failed to process logs: " + e.getMessage());
+      return 1;
+    }
+    return 0;
+  }
+
+  /**
+   * Read the given source line by line, writing a JSON line for each encrypted failure found.
+   * Decryption is spread across the configured number of threads, with a bounded number of lines in
+   * flight, so memory use does not depend on the size of the input.
+   */
+  public void decrypt(String source, BufferedReader in, Writer out) throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    Deque<Future<String>> inFlight = new ArrayDeque<>(maxInFlight);
+    try {
+      long lineNumber = 0;
+      String line;
+      while ((line = in.readLine()) != null) {
+        lineNumber++;
+        int marker = line.indexOf(MARKER);
+        if (marker < 0) {
+          continue;
+        }
+        String candidate = line.substring(marker + MARKER.length()).trim();
+        if (!isCipherText(candidate)) {
+          continue;
+        }
+        String prefix = line.substring(0, marker).trim();
+        long number = lineNumber;
+        inFlight.addLast(executor.submit(() -> toJson(source, number, prefix, candidate)));
+        if (inFlight.size() >= maxInFlight) {
+          write(inFlight.removeFirst(), out);
+        }
+      }
+      while (!inFlight.isEmpty()) {
+        write(inFlight.removeFirst(), out);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private String toJson(String source, long lineNumber, String prefix, String cipherText)
+      throws JsonProcessingException {
+    ObjectNode json = MAPPER.createObjectNode();
+    json.put("source", source).put("line", lineNumber).put("log", prefix);
+    try {
+      String decrypted = encryption.decrypt(cipherText).trim();
+      JsonNode failure = failure(decrypted);
+      if (failure != null) {
+        json.set("failure", failure);
+      } else {
+        json.put("text", decrypted);
+      }
+    } catch (Exception e) {
+      json.put("error", e.getClass().getSimpleName() + ": " + e.getMessage());
+    }
+    return MAPPER.writeValueAsString(json);
+  }
+
+  private void write(Future<String> result, Writer out) throws IOException {
+    try {
+      out.write(result.get());
+      out.write('\n');
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while decrypting", e);
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    }
+  }
+}
@@ -49,6 +49,12 @@ public class MethodExecutionLogger {
    */
   private static final ThreadLocal<SharedState> sharedState = new ThreadLocal<>();
 
+  /** Return the ID shared by the loggable methods executing on this thread, if any. */
+  public static Optional<String> currentId() {
+    SharedState state = sharedState.get();
+    return state == null ? Optional.empty() : Optional.of(state.id());
+  }
+
   /** Log enter and leave messages based on the presence of Loggable or GetMapping annotations. */
   @Around(
       "within(@gov.va.api.health.autoconfig.logging.Loggable *)"
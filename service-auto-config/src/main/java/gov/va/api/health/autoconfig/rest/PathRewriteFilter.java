@@ -6,6 +6,7 @@ import java.util.stream.Collectors;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
 import javax.servlet.http.HttpServletResponse;
 import lombok.Builder;
 import lombok.Singular;
@@ -14,7 +15,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 /**
  * This filter can be used to strip leading path elements from requests, allow the application to
  * service different endpoints on a load balancer without having to specify each path on every
- * controller.
+ * controller. If more than one leading path matches a request, the longest is removed.
  *
  * <p>To use, create a Configuration object that produces this filter as a Bean.
  *
@@ -34,21 +35,56 @@ import org.springframework.web.filter.OncePerRequestFilter;
  *   }
  * }
  * </pre>
+ *
+ * <p>By default, rewritten requests are forwarded using the request dispatcher, which dispatches
+ * the request a second time. Set <code>rewriteInPlace(true)</code> to instead wrap the request so
+ * that it reports the rewritten URI, servlet path, and path info, and continue down the same filter
+ * chain.
+ *
+ * <p>Rewrite rules support versioned and tenant-style paths that a fixed leading path cannot, e.g.
+ * <code>rewriteRule(RewriteRule.template("/{tenant}/fhir/v0/r4/", "/r4/"))</code>. All rules are
+ * compiled into a single matcher that is evaluated once per request, after leading paths. The first
+ * matching rule wins. Values captured by the rule, e.g. tenant, are available as request attributes
+ * prefixed with {@link #ATTRIBUTE_PREFIX}. Since rules may begin with a variable, filters using
+ * rules are typically registered with the <code>/*</code> URL pattern.
  */
 public class PathRewriteFilter extends OncePerRequestFilter {
+  /** Values captured by rewrite rules are available as request attributes with this prefix. */
+  public static final String ATTRIBUTE_PREFIX = PathRewriteFilter.class.getName() + ".";
 
   /** List of paths that must end with "/". */
   private final List<String> removeLeadingPath;
 
+  /** The removeLeadingPath entries compiled for longest-prefix-wins lookups. */
+  private final PrefixTrie leadingPaths;
+
+  /** Templated and regular expression rules compiled into a single matcher, if any. */
+  private final RewriteRules rewriteRules;
+
+  /** Wrap and continue the filter chain instead of forwarding rewritten requests. */
+  private final boolean rewriteInPlace;
+
+  /** Create a new instance that enforces paths end with a / and forwards rewritten requests. */
+  public PathRewriteFilter(List<String> removeLeadingPath) {
+    this(removeLeadingPath, null, false);
+  }
+
   /** Create a new instance that enforces paths end with a /. */
   @Builder
-  public PathRewriteFilter(@Singular("removeLeadingPath") List<String> removeLeadingPath) {
+  public PathRewriteFilter(
+      @Singular("removeLeadingPath") List<String> removeLeadingPath,
+      @Singular List<RewriteRule> rewriteRules,
+      boolean rewriteInPlace) {
     this.removeLeadingPath = removeLeadingPath == null ? List.of() : removeLeadingPath;
+    this.rewriteRules =
+        RewriteRules.of(rewriteRules == null ? List.of() : rewriteRules, ATTRIBUTE_PREFIX);
+    this.rewriteInPlace = rewriteInPlace;
     for (String prefix : this.removeLeadingPath) {
       if (!prefix.endsWith("/")) {
         throw new IllegalArgumentException("Remove leading path must end with /, got: " + prefix);
       }
     }
+    leadingPaths = PrefixTrie.of(this.removeLeadingPath);
   }
 
   @Override
@@ -56,16 +92,27 @@ public class PathRewriteFilter extends OncePerRequestFilter {
       HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
 
-    String uri = request.getRequestURI();
-    for (String prefix : removeLeadingPath) {
-      if (uri.startsWith(prefix)) {
-        String newUri = uri.substring(prefix.length() - 1);
-        request.getRequestDispatcher(newUri).forward(request, response);
-        return;
-      }
+    String newUri = rewrite(request);
+    if (newUri == null) {
+      filterChain.doFilter(request, response);
+    } else if (rewriteInPlace) {
+      filterChain.doFilter(new RewrittenRequest(request, newUri), response);
+    } else {
+      request.getRequestDispatcher(newUri).forward(request, response);
     }
+  }
 
-    filterChain.doFilter(request, response);
+  /**
+   * Return the rewritten URI, or null if the request should not be rewritten. Leading paths are
+   * checked first, then rewrite rules.
+   */
+  private String rewrite(HttpServletRequest request) {
+    String uri = request.getRequestURI();
+    String prefix = leadingPaths.longestPrefixOf(uri);
+    if (prefix != null) {
+      return uri.substring(prefix.length() - 1);
+    }
+    return rewriteRules == null ? null : rewriteRules.rewrite(uri, request);
   }
 
   /**
@@ -78,4 +125,67 @@ public class PathRewriteFilter extends OncePerRequestFilter {
         .collect(Collectors.toList())
         .toArray(new String[removeLeadingPath.size()]);
   }
+
+  /**
+   * Request that reports a rewritten URI. The servlet path and path info are adjusted to match, so
+   * that handler mapping sees the same path it would for a forwarded request.
+   */
+  static final class RewrittenRequest extends HttpServletRequestWrapper {
+    private final String requestUri;
+
+    private final String servletPath;
+
+    private final String pathInfo;
+
+    RewrittenRequest(HttpServletRequest request, String requestUri) {
+      super(request);
+      this.requestUri = requestUri;
+      String contextPath = request.getContextPath() == null ? "" : request.getContextPath();
+      String withinApplication =
+          requestUri.startsWith(contextPath)
+              ? requestUri.substring(contextPath.length())
+              : requestUri;
+      String originalServletPath = request.getServletPath();
+      if (request.getPathInfo() != null
+          && originalServletPath != null
+          && !originalServletPath.isEmpty()
+          && withinApplication.startsWith(originalServletPath)) {
+        String remaining = withinApplication.substring(originalServletPath.length());
+        servletPath = originalServletPath;
+        pathInfo = remaining.isEmpty() ? null : remaining;
+      } else {
+        servletPath = withinApplication;
+        pathInfo = null;
+      }
+    }
+
+    @Override
+    public String getPathInfo() {
+      return pathInfo;
+    }
+
+    @Override
+    public String getRequestURI() {
+      return requestUri;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+      StringBuffer url = super.getRequestURL();
+      String originalUri = super.getRequestURI();
+      if (url == null || originalUri == null) {
+        return url;
+      }
+      int start = url.lastIndexOf(originalUri);
+      if (start >= 0) {
+        url.replace(start, start + originalUri.length(), requestUri);
+      }
+      return url;
+    }
+
+    @Override
+    public String getServletPath() {
+      return servletPath;
+    }
+  }
 }
@@ -0,0 +1,102 @@
+package gov.va.api.health.autoconfig.rest;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Radix trie of path prefixes. Lookups walk the path once, so the cost depends on the length of the
+ * path and not on the number of prefixes. When more than one prefix matches, the longest wins.
+ *
+ * <p>Prefixes are first collected into a simple character trie, then compiled into an immutable
+ * form where chains of single-child nodes are collapsed into one edge and children are kept in
+ * sorted arrays. Lookups compare whole edges with {@link String#startsWith(String, int)} and do not
+ * allocate.
+ */
+final class PrefixTrie {
+  private final Node root;
+
+  private PrefixTrie(Collection<String> prefixes) {
+    Builder builder = new Builder();
+    for (String prefix : prefixes) {
+      Builder node = builder;
+      for (int i = 0; i < prefix.length(); i++) {
+        node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Builder());
+      }
+      node.prefix = prefix;
+    }
+    root = builder.compile("");
+  }
+
+  static PrefixTrie of(Collection<String> prefixes) {
+    return new PrefixTrie(prefixes);
+  }
+
+  /** Return the longest prefix that the path starts with, or null if none match. */
+  String longestPrefixOf(String path) {
+    Node node = root;
+    String longest = null;
+    int position = 0;
+    while (position < path.length()) {
+      int index = Arrays.binarySearch(node.firstCharacters, path.charAt(position));
+      if (index < 0) {
+        break;
+      }
+      node = node.children[index];
+      if (!path.startsWith(node.edge, position)) {
+        break;
+      }
+      position += node.edge.length();
+      if (node.prefix != null) {
+        longest = node.prefix;
+      }
+    }
+    return longest;
+  }
+
+  /** Mutable node used only while the trie is being constructed. */
+  private static final class Builder {
+    private final Map<Character, Builder> children = new TreeMap<>();
+
+    private String prefix;
+
+    /** Compile this node, which is reached by the given edge, collapsing single-child chains. */
+    Node compile(String edge) {
+      StringBuilder collapsed = new StringBuilder(edge);
+      Builder node = this;
+      while (node.prefix == null && node.children.size() == 1 && collapsed.length() > 0) {
+        Map.Entry<Character, Builder> only = node.children.entrySet().iterator().next();
+        collapsed.append(only.getKey().charValue());
+        node = only.getValue();
+      }
+      char[] firstCharacters = new char[node.children.size()];
+      Node[] compiledChildren = new Node[node.children.size()];
+      int index = 0;
+      for (Map.Entry<Character, Builder> child : node.children.entrySet()) {
+        firstCharacters[index] = child.getKey();
+        compiledChildren[index] = child.getValue().compile(String.valueOf(child.getKey()));
+        index++;
+      }
+      return new Node(collapsed.toString(), node.prefix, firstCharacters, compiledChildren);
+    }
+  }
+
+  /** Immutable node. The edge is the text that must match to move from the parent to this node. */
+  private static final class Node {
+    private final String edge;
+
+    private final String prefix;
+
+    private final char[] firstCharacters;
+
+    private final Node[] children;
+
+    Node(String edge, String prefix, char[] firstCharacters, Node[] children) {
+      this.edge = edge;
+      this.prefix = prefix;
+      this.firstCharacters = firstCharacters;
+      this.children = children;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package gov.va.api.health.autoconfig.rest;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * A rule used by the PathRewriteFilter to rewrite the leading portion of a request URI. The rule
+ * matches the start of the URI and the matched portion is replaced, with the remainder of the URI
+ * appended unchanged. Named values captured by the rule may be used in the replacement as <code>
+ * {name}</code> and are exposed as request attributes.
+ *
+ * <pre>
+ * RewriteRule.template("/{tenant}/fhir/v0/r4/", "/r4/")
+ * RewriteRule.regex("/(?&lt;tenant>[^/]+)/fhir/v0/(?&lt;version>r4|dstu2)/", "/{version}/")
+ * </pre>
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class RewriteRule {
+  private static final Pattern TEMPLATE_VARIABLE = Pattern.compile("\\{([a-zA-Z][a-zA-Z0-9]*)}");
+
+  /** Regular expression matching the leading portion of the URI. */
+  String regex;
+
+  /** Replacement for the matched portion, which may include {name} references. */
+  String replacement;
+
+  /**
+   * Create a rule from a regular expression. Named groups, e.g. <code>(?&lt;tenant>[^/]+)</code>,
+   * are available to the replacement and as request attributes.
+   */
+  public static RewriteRule regex(@NonNull String regex, @NonNull String replacement) {
+    checkReplacement(replacement);
+    try {
+      Pattern.compile(regex);
+    } catch (PatternSyntaxException e) {
+      throw new IllegalArgumentException("Invalid rewrite rule: " + regex, e);
+    }
+    return new RewriteRule(regex, replacement);
+  }
+
+  /**
+   * Create a rule from a path template. Each <code>{name}</code> matches exactly one path segment.
+   * Like leading paths, templates must start and end with "/".
+   */
+  public static RewriteRule template(@NonNull String template, @NonNull String replacement) {
+    if (!template.startsWith("/") || !template.endsWith("/")) {
+      throw new IllegalArgumentException(
+          "Rewrite template must start and end with /, got: " + template);
+    }
+    checkReplacement(replacement);
+    StringBuilder regex = new StringBuilder();
+    Matcher variables = TEMPLATE_VARIABLE.matcher(template);
+    int literalStart = 0;
+    while (variables.find()) {
+      regex.append(Pattern.quote(template.substring(literalStart, variables.start())));
+      regex.append("(?<").append(variables.group(1)).append(">[^/]+)");
+      literalStart = variables.end();
+    }
+    regex.append(Pattern.quote(template.substring(literalStart)));
+    return regex(regex.toString(), replacement);
+  }
+
+  private static void checkReplacement(String replacement) {
+    if (!replacement.startsWith("/")) {
+      throw new IllegalArgumentException(
+          "Rewrite replacement must start with /, got: " + replacement);
+    }
+  }
+}
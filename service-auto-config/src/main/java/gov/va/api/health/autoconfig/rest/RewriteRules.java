@@ -0,0 +1,235 @@
+package gov.va.api.health.autoconfig.rest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.servlet.ServletRequest;
+
+/**
+ * Rewrite rules compiled into a single regular expression, with one alternative per rule, so that a
+ * URI is evaluated against every rule in one pass. Rules are tried in declaration order and the
+ * first to match wins. Group names are renamed per rule so that rules may reuse names, and numbered
+ * back references, e.g. <code>\1</code>, are renumbered to the rule's groups in the combined
+ * pattern. Matchers are reused per thread to keep evaluation allocation-light.
+ */
+final class RewriteRules {
+  private static final Pattern NAMED_GROUP =
+      Pattern.compile("(?<!\\\\)\\(\\?<([a-zA-Z][a-zA-Z0-9]*)>");
+
+  private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\k<([a-zA-Z][a-zA-Z0-9]*)>");
+
+  private final CompiledRule[] rules;
+
+  private final ThreadLocal<Matcher> matchers;
+
+  private RewriteRules(List<RewriteRule> rules, String attributePrefix) {
+    this.rules = new CompiledRule[rules.size()];
+    StringBuilder combined = new StringBuilder("(?:");
+    int groups = 0;
+    for (int i = 0; i < rules.size(); i++) {
+      groups++;
+      CompiledRule rule = new CompiledRule(i, rules.get(i), attributePrefix, groups);
+      groups += rule.groupCount;
+      this.rules[i] = rule;
+      if (i > 0) {
+        combined.append('|');
+      }
+      combined.append("(?<").append(rule.marker).append('>').append(rule.regex).append(')');
+    }
+    Pattern pattern = Pattern.compile(combined.append(')').toString());
+    matchers = ThreadLocal.withInitial(() -> pattern.matcher(""));
+  }
+
+  private static boolean isCapturingGroup(String regex, int open) {
+    if (open + 1 >= regex.length() || regex.charAt(open + 1) != '?') {
+      return true;
+    }
+    return regex.startsWith("(?<", open)
+        && open + 3 < regex.length()
+        && Character.isLetter(regex.charAt(open + 3));
+  }
+
+  /**
+   * Compile the rules, or return null if there are none. Captured values will be exposed as request
+   * attributes named with the given prefix followed by the group name.
+   */
+  static RewriteRules of(List<RewriteRule> rules, String attributePrefix) {
+    return rules.isEmpty() ? null : new RewriteRules(rules, attributePrefix);
+  }
+
+  /**
+   * Add the offset of the rule's groups in the combined pattern to each numbered back reference.
+   * Like the regex parser, a multi-digit reference is only read as far as it names a group opened
+   * before it. References are wrapped in a non-capturing group so that digits that follow are not
+   * read as part of the renumbered reference, and references to groups the rule does not have still
+   * never match.
+   */
+  private static String renumberBackReferences(String regex, int offset, int groupCount) {
+    StringBuilder renumbered = new StringBuilder(regex.length());
+    int opened = 0;
+    int classDepth = 0;
+    int i = 0;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      if (c == '\\' && i + 1 < regex.length()) {
+        char next = regex.charAt(i + 1);
+        int end = i + 2;
+        if (next == 'Q') {
+          int quoteEnd = regex.indexOf("\\E", end);
+          end = quoteEnd < 0 ? regex.length() : quoteEnd + 2;
+          renumbered.append(regex, i, end);
+        } else if (classDepth == 0 && next >= '1' && next <= '9') {
+          int reference = next - '0';
+          while (end < regex.length() && Character.isDigit(regex.charAt(end))) {
+            int longer = reference * 10 + (regex.charAt(end) - '0');
+            if (longer > opened) {
+              break;
+            }
+            reference = longer;
+            end++;
+          }
+          renumbered.append(reference > groupCount ? "(?!)" : "(?:\\" + (offset + reference) + ")");
+        } else {
+          renumbered.append(c).append(next);
+        }
+        i = end;
+        continue;
+      }
+      if (c == '[') {
+        classDepth++;
+      } else if (c == ']' && classDepth > 0) {
+        classDepth--;
+      } else if (c == '(' && classDepth == 0 && isCapturingGroup(regex, i)) {
+        opened++;
+      }
+      renumbered.append(c);
+      i++;
+    }
+    return renumbered.toString();
+  }
+
+  /**
+   * Return the rewritten URI, or null if no rule matches. Values captured by the matching rule are
+   * set as attributes of the request.
+   */
+  String rewrite(String uri, ServletRequest request) {
+    Matcher matcher = matchers.get().reset(uri);
+    try {
+      if (!matcher.lookingAt()) {
+        return null;
+      }
+      for (CompiledRule rule : rules) {
+        if (matcher.start(rule.marker) >= 0) {
+          return rule.rewrite(matcher, uri, request);
+        }
+      }
+      return null;
+    } finally {
+      matcher.reset("");
+    }
+  }
+
+  private static final class CompiledRule {
+    private final String marker;
+
+    private final String regex;
+
+    /** The number of capturing groups in the rule, not including the marker. */
+    private final int groupCount;
+
+    /** Group names as declared in the rule. */
+    private final String[] names;
+
+    /** Group names in the combined pattern, parallel to names. */
+    private final String[] combinedNames;
+
+    /** Request attribute names, parallel to names. */
+    private final String[] attributeNames;
+
+    /** Literal replacement text, with a group index following each part, or -1 for none. */
+    private final String[] literals;
+
+    private final int[] references;
+
+    CompiledRule(int index, RewriteRule rule, String attributePrefix, int groupOffset) {
+      marker = "r" + index;
+      groupCount = Pattern.compile(rule.regex()).matcher("").groupCount();
+      Map<String, String> groups = new LinkedHashMap<>();
+      Matcher named = NAMED_GROUP.matcher(rule.regex());
+      StringBuilder renamed = new StringBuilder();
+      while (named.find()) {
+        String combinedName =
+            groups.computeIfAbsent(named.group(1), n -> marker + "g" + groups.size());
+        named.appendReplacement(renamed, Matcher.quoteReplacement("(?<" + combinedName + ">"));
+      }
+      named.appendTail(renamed);
+      Matcher backReferences = BACK_REFERENCE.matcher(renamed);
+      StringBuilder referenced = new StringBuilder();
+      while (backReferences.find()) {
+        String combinedName = groups.getOrDefault(backReferences.group(1), backReferences.group(1));
+        backReferences.appendReplacement(
+            referenced, Matcher.quoteReplacement("\\k<" + combinedName + ">"));
+      }
+      backReferences.appendTail(referenced);
+      regex = renumberBackReferences(referenced.toString(), groupOffset, groupCount);
+      names = groups.keySet().toArray(new String[0]);
+      combinedNames = groups.values().toArray(new String[0]);
+      attributeNames = new String[names.length];
+      for (int i = 0; i < names.length; i++) {
+        attributeNames[i] = attributePrefix + names[i];
+      }
+      List<String> literalParts = new ArrayList<>();
+      List<Integer> referenceParts = new ArrayList<>();
+      String text = rule.replacement();
+      int literalStart = 0;
+      int open = text.indexOf('{');
+      while (open >= 0) {
+        int close = text.indexOf('}', open);
+        if (close < 0) {
+          break;
+        }
+        String name = text.substring(open + 1, close);
+        int group = List.of(names).indexOf(name);
+        if (group < 0) {
+          throw new IllegalArgumentException(
+              "Rewrite replacement references unknown value {" + name + "}: " + text);
+        }
+        literalParts.add(text.substring(literalStart, open));
+        referenceParts.add(group);
+        literalStart = close + 1;
+        open = text.indexOf('{', literalStart);
+      }
+      literalParts.add(text.substring(literalStart));
+      referenceParts.add(-1);
+      literals = literalParts.toArray(new String[0]);
+      references = referenceParts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    String rewrite(Matcher matcher, String uri, ServletRequest request) {
+      for (int i = 0; i < combinedNames.length; i++) {
+        String value = matcher.group(combinedNames[i]);
+        if (value != null) {
+          request.setAttribute(attributeNames[i], value);
+        }
+      }
+      StringBuilder rewritten = new StringBuilder(uri.length());
+      for (int i = 0; i < literals.length; i++) {
+        rewritten.append(literals[i]);
+        if (references[i] >= 0) {
+          String value = matcher.group(combinedNames[references[i]]);
+          rewritten.append(value == null ? "" : value);
+        }
+      }
+      int remainder = matcher.end();
+      if (rewritten.charAt(rewritten.length() - 1) == '/'
+          && remainder < uri.length()
+          && uri.charAt(remainder) == '/') {
+        remainder++;
+      }
+      return rewritten.append(uri, remainder, uri.length()).toString();
+    }
+  }
+}
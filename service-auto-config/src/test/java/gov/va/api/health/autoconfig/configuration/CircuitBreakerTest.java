@@ -0,0 +1,160 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gov.va.api.health.autoconfig.configuration.CircuitBreaker.Phase;
+import gov.va.api.health.autoconfig.configuration.CircuitBreaker.State;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+public class CircuitBreakerTest {
+  private final AtomicLong now = new AtomicLong(-5_000_000_000L);
+
+  private CircuitBreaker breaker(int threshold) {
+    return CircuitBreaker.builder()
+        .failureRateThreshold(threshold)
+        .minimumRequests(4)
+        .window(Duration.ofSeconds(10))
+        .openDuration(Duration.ofSeconds(30))
+        .halfOpenRequests(2)
+        .nanoClock(now::get)
+        .build();
+  }
+
+  @Test
+  public void circuitClosesAfterTrialRequestsSucceed() {
+    CircuitBreaker breaker = open(breaker(50));
+    advance(Duration.ofSeconds(30));
+    Phase first = breaker.acquire();
+    Phase second = breaker.acquire();
+    assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+    assertThat(first).isNotNull().isSameAs(second);
+    assertThat(breaker.acquire()).isNull();
+    breaker.record(first, true);
+    assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+    breaker.record(second, true);
+    assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    /* The window starts empty. */
+    Phase closed = breaker.acquire();
+    breaker.record(closed, false);
+    assertThat(breaker.state()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  public void circuitOpensWhenFailureRateReachesThreshold() {
+    CircuitBreaker breaker = breaker(50);
+    record(breaker, true, true, false);
+    assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    record(breaker, false);
+    assertThat(breaker.state()).isEqualTo(State.OPEN);
+    assertThat(breaker.acquire()).isNull();
+    advance(Duration.ofSeconds(29));
+    assertThat(breaker.acquire()).isNull();
+  }
+
+  @Test
+  public void circuitReopensWhenTrialRequestFails() {
+    CircuitBreaker breaker = open(breaker(50));
+    advance(Duration.ofSeconds(30));
+    Phase trial = breaker.acquire();
+    breaker.record(trial, false);
+    assertThat(breaker.state()).isEqualTo(State.OPEN);
+    advance(Duration.ofSeconds(29));
+    assertThat(breaker.acquire()).isNull();
+    advance(Duration.ofSeconds(1));
+    assertThat(breaker.acquire()).isNotNull();
+  }
+
+  @Test
+  @SneakyThrows
+  public void concurrentOutcomesAreCounted() {
+    CircuitBreaker breaker =
+        CircuitBreaker.builder()
+            .failureRateThreshold(50)
+            .minimumRequests(100_000)
+            .window(Duration.ofMinutes(10))
+            .openDuration(Duration.ofSeconds(30))
+            .halfOpenRequests(1)
+            .build();
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch done = new CountDownLatch(threads);
+    for (int t = 0; t < threads; t++) {
+      executor.submit(
+          () -> {
+            for (int i = 0; i < 12_499; i++) {
+              breaker.record(breaker.acquire(), false);
+            }
+            done.countDown();
+          });
+    }
+    assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+    executor.shutdown();
+    assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    record(breaker, false, false, false, false, false, false, false, false);
+    assertThat(breaker.state()).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  public void failuresOutsideTheWindowAreForgotten() {
+    CircuitBreaker breaker = breaker(50);
+    record(breaker, false, false, false);
+    advance(Duration.ofSeconds(11));
+    record(breaker, true, true, true, false);
+    assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    advance(Duration.ofSeconds(5));
+    record(breaker, false, false);
+    assertThat(breaker.state()).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  public void outcomesFromEarlierPhasesAreIgnored() {
+    CircuitBreaker breaker = breaker(50);
+    Phase closed = breaker.acquire();
+    record(breaker, false, false, false, false);
+    assertThat(breaker.state()).isEqualTo(State.OPEN);
+    advance(Duration.ofSeconds(30));
+    Phase trial = breaker.acquire();
+    breaker.record(closed, true);
+    breaker.record(closed, true);
+    assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+    breaker.record(trial, true);
+    breaker.record(trial, true);
+    assertThat(breaker.state()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  public void thresholdOfZeroNeverOpens() {
+    CircuitBreaker breaker = breaker(0);
+    record(breaker, false, false, false, false, false, false);
+    assertThat(breaker.state()).isEqualTo(State.CLOSED);
+  }
+
+  private void advance(Duration duration) {
+    now.addAndGet(duration.toNanos());
+  }
+
+  private CircuitBreaker open(CircuitBreaker breaker) {
+    record(breaker, false, false, false, false);
+    assertThat(breaker.state()).isEqualTo(State.OPEN);
+    return breaker;
+  }
+
+  private void record(CircuitBreaker breaker, boolean... outcomes) {
+    List<Phase> phases = new ArrayList<>();
+    for (int i = 0; i < outcomes.length; i++) {
+      phases.add(breaker.acquire());
+    }
+    for (int i = 0; i < outcomes.length; i++) {
+      breaker.record(phases.get(i), outcomes[i]);
+    }
+  }
+}
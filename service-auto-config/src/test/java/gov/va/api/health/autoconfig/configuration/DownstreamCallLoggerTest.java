@@ -0,0 +1,140 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+@ExtendWith(OutputCaptureExtension.class)
+public class DownstreamCallLoggerTest {
+  private final ClientHttpRequestExecution execution = mock(ClientHttpRequestExecution.class);
+
+  private final MockClientHttpRequest request =
+      new MockClientHttpRequest(HttpMethod.POST, URI.create("http://fugazi.com/call"));
+
+  private static DownstreamCallLogger logger(double sampleRate, double random) {
+    return DownstreamCallLogger.builder().sampleRate(sampleRate).random(() -> random).build();
+  }
+
+  private static MockClientHttpResponse response(String body, HttpStatus status) {
+    return new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), status);
+  }
+
+  private static String lineFor(CapturedOutput output, String uri) {
+    return output.getOut().lines().filter(l -> l.contains(uri)).findFirst().orElseThrow();
+  }
+
+  @Test
+  @SneakyThrows
+  public void exceptionsAreLogged(CapturedOutput output) {
+    doThrow(new IOException("nope")).when(execution).execute(any(), any());
+    assertThrows(IOException.class, () -> logger(0, 0.5).execute(request, new byte[3], execution));
+    assertThat(lineFor(output, "http://fugazi.com/call"))
+        .contains("WARN")
+        .contains("\"outcome\":\"exception\"")
+        .contains("\"exception\":\"IOException\"")
+        .contains("\"message\":\"nope\"")
+        .contains("\"requestBytes\":3")
+        .contains("\"durationNanos\":")
+        .doesNotContain("\"status\"");
+  }
+
+  @Test
+  @SneakyThrows
+  public void failuresAreAlwaysLoggedWhenClosed(CapturedOutput output) {
+    doReturn(response("kaboom", HttpStatus.INTERNAL_SERVER_ERROR))
+        .when(execution)
+        .execute(any(), any());
+    ClientHttpResponse response = logger(0, 0.5).execute(request, new byte[0], execution);
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+    assertThat(response.getRawStatusCode()).isEqualTo(500);
+    assertThat(response.getStatusText()).isEqualTo("Internal Server Error");
+    assertThat(response.getHeaders()).isEmpty();
+    assertThat(output.getOut()).doesNotContain("http://fugazi.com/call");
+    response.getBody().readAllBytes();
+    response.close();
+    response.close();
+    String line = lineFor(output, "http://fugazi.com/call");
+    assertThat(line)
+        .contains("WARN")
+        .contains("\"method\":\"POST\"")
+        .contains("\"outcome\":\"failure\"")
+        .contains("\"status\":500")
+        .contains("\"headersNanos\":")
+        .contains("\"responseBytes\":6")
+        .doesNotContain("\"id\"");
+    assertThat(output.getOut().lines().filter(l -> l.contains("fugazi.com")).count()).isEqualTo(1);
+  }
+
+  @Test
+  @SneakyThrows
+  public void rereadBodiesAreCountedOnce(CapturedOutput output) {
+    MockClientHttpResponse mockResponse = response("hello", HttpStatus.OK);
+    doReturn(mockResponse).when(execution).execute(any(), any());
+    ClientHttpResponse response = logger(1, 0.5).execute(request, null, execution);
+    try (InputStream first = response.getBody()) {
+      assertThat(first.read()).isEqualTo('h');
+      assertThat(first.skip(2)).isEqualTo(2);
+      assertThat(first.read(new byte[10], 0, 10)).isEqualTo(2);
+      assertThat(first.read()).isEqualTo(-1);
+    }
+    mockResponse.getBody().reset();
+    assertThat(response.getBody().readAllBytes()).hasSize(5);
+    response.close();
+    assertThat(lineFor(output, "http://fugazi.com/call"))
+        .contains("INFO")
+        .contains("\"outcome\":\"success\"")
+        .contains("\"requestBytes\":0")
+        .contains("\"responseBytes\":5");
+  }
+
+  @Test
+  @SneakyThrows
+  public void sampledSuccessesAreLogged(CapturedOutput output) {
+    doReturn(response("ok", HttpStatus.OK)).when(execution).execute(any(), any());
+    logger(0.25, 0.2).execute(request, new byte[0], execution).close();
+    assertThat(lineFor(output, "http://fugazi.com/call"))
+        .contains("INFO")
+        .contains("\"status\":200");
+  }
+
+  @Test
+  @SneakyThrows
+  public void statusFailuresCloseTheResponse() {
+    ClientHttpResponse broken = mock(ClientHttpResponse.class);
+    doThrow(new IOException("bad status")).when(broken).getRawStatusCode();
+    doReturn(broken).when(execution).execute(any(), any());
+    assertThrows(IOException.class, () -> logger(1, 0).execute(request, null, execution));
+    verify(broken).close();
+  }
+
+  @Test
+  @SneakyThrows
+  public void unsampledSuccessesAreNotWrapped(CapturedOutput output) {
+    MockClientHttpResponse mockResponse = response("ok", HttpStatus.OK);
+    doReturn(mockResponse).when(execution).execute(any(), any());
+    assertThat(logger(0.25, 0.25).execute(request, null, execution)).isSameAs(mockResponse);
+    assertThat(logger(0, 0).execute(request, null, execution)).isSameAs(mockResponse);
+    mockResponse.close();
+    assertThat(output.getOut()).doesNotContain("http://fugazi.com/call");
+  }
+}
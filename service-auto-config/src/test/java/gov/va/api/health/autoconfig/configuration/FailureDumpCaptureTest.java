@@ -0,0 +1,171 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import gov.va.api.health.autoconfig.encryption.BasicEncryption;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+@ExtendWith(OutputCaptureExtension.class)
+public class FailureDumpCaptureTest {
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+
+  private final AtomicLong now = new AtomicLong();
+
+  private FailureDumpCapture capture;
+
+  private static MockClientHttpRequest request(String uri) {
+    MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST, URI.create(uri));
+    request.getHeaders().add("X-Request", "yes");
+    return request;
+  }
+
+  private static MockClientHttpResponse response(String body) {
+    MockClientHttpResponse response =
+        new MockClientHttpResponse(
+            body.getBytes(StandardCharsets.UTF_8), HttpStatus.INTERNAL_SERVER_ERROR);
+    response.getHeaders().add("X-Response", "yes");
+    return response;
+  }
+
+  @AfterEach
+  void _close() {
+    if (capture != null) {
+      capture.close();
+    }
+  }
+
+  @SneakyThrows
+  private ClientHttpResponse capture(String uri, String requestBody, ClientHttpResponse response) {
+    return capture.capture(request(uri), requestBody.getBytes(StandardCharsets.UTF_8), response);
+  }
+
+  private double count(String outcome) {
+    return registry.get(FailureDumpCapture.METRIC).tag("outcome", outcome).counter().count();
+  }
+
+  @SneakyThrows
+  private List<JsonNode> dumps(CapturedOutput output) {
+    capture.close();
+    BasicEncryption encryption = BasicEncryption.forKey("shh");
+    return output
+        .getOut()
+        .lines()
+        .filter(l -> l.contains("REQUEST FAILED: "))
+        .map(l -> l.substring(l.indexOf("REQUEST FAILED: ") + 16).trim())
+        .map(encryption::decrypt)
+        .map(this::readTree)
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  @SneakyThrows
+  public void identicalFailuresAreCapturedOncePerWindow(CapturedOutput output) {
+    start(SslClientProperties.FailureDumps.builder().dedupWindow(Duration.ofSeconds(10)).build());
+    capture("http://fugazi.com/a", "", response("kaboom"));
+    capture("http://fugazi.com/a", "", response("kaboom"));
+    capture("http://fugazi.com/a", "", response("different"));
+    capture("http://fugazi.com/b", "", response("kaboom"));
+    now.addAndGet(Duration.ofSeconds(11).toNanos());
+    capture("http://fugazi.com/a", "", response("kaboom"));
+    assertThat(dumps(output)).hasSize(4);
+    assertThat(count("captured")).isEqualTo(4);
+    assertThat(count("duplicate")).isEqualTo(1);
+  }
+
+  @Test
+  @SneakyThrows
+  public void largeBodiesAreTruncated(CapturedOutput output) {
+    start(SslClientProperties.FailureDumps.builder().maxBodySize(DataSize.ofBytes(4)).build());
+    ClientHttpResponse response = capture("http://fugazi.com/a", "request", response("kaboom"));
+    assertThat(StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8))
+        .isEqualTo("kaboom");
+    JsonNode dump = dumps(output).get(0);
+    assertThat(dump.at("/request/method").asText()).isEqualTo("POST");
+    assertThat(dump.at("/request/uri").asText()).isEqualTo("http://fugazi.com/a");
+    assertThat(dump.at("/request/headers/X-Request/0").asText()).isEqualTo("yes");
+    assertThat(dump.at("/request/body").asText()).isEqualTo("requ");
+    assertThat(dump.at("/request/bodyTruncated").asBoolean()).isTrue();
+    assertThat(dump.at("/response/statusCode").asText()).isEqualTo("INTERNAL_SERVER_ERROR");
+    assertThat(dump.at("/response/headers/X-Response/0").asText()).isEqualTo("yes");
+    assertThat(dump.at("/response/body").asText()).isEqualTo("kabo");
+    assertThat(dump.at("/response/bodyTruncated").asBoolean()).isTrue();
+  }
+
+  @Test
+  @SneakyThrows
+  public void failuresAreRateLimitedPerDestination(CapturedOutput output) {
+    start(SslClientProperties.FailureDumps.builder().permitsPerSecond(1).burst(2).build());
+    for (int i = 0; i < 4; i++) {
+      capture("http://fugazi.com/a/" + i, "", response("kaboom"));
+      capture("http://other.com/a/" + i, "", response("kaboom"));
+    }
+    assertThat(count("rate-limited")).isEqualTo(4);
+    now.addAndGet(Duration.ofSeconds(1).toNanos());
+    /* Rate limited failures are not remembered as duplicates. */
+    capture("http://fugazi.com/a/3", "", response("kaboom"));
+    capture("http://fugazi.com/a/4", "", response("kaboom"));
+    assertThat(dumps(output)).hasSize(5);
+    assertThat(count("rate-limited")).isEqualTo(5);
+    assertThat(count("duplicate")).isZero();
+  }
+
+  @SneakyThrows
+  private JsonNode readTree(String json) {
+    return JacksonConfig.createMapper().readTree(json);
+  }
+
+  @Test
+  @SneakyThrows
+  public void unmarkableBodiesAreReturnedInFull(CapturedOutput output) {
+    start(SslClientProperties.FailureDumps.builder().maxBodySize(DataSize.ofBytes(2)).build());
+    ClientHttpResponse unmarkable =
+        new MockClientHttpResponse(
+            new FilterInputStream(new ByteArrayInputStream("kaboom".getBytes())) {
+              @Override
+              public boolean markSupported() {
+                return false;
+              }
+            },
+            HttpStatus.BAD_GATEWAY);
+    ClientHttpResponse response = capture("http://fugazi.com/a", "", unmarkable);
+    try (InputStream body = response.getBody()) {
+      assertThat(StreamUtils.copyToString(body, StandardCharsets.UTF_8)).isEqualTo("kaboom");
+    }
+    assertThat(response.getRawStatusCode()).isEqualTo(502);
+    assertThat(dumps(output).get(0).at("/response/body").asText()).isEqualTo("ka");
+  }
+
+  private void start(SslClientProperties.FailureDumps properties) {
+    capture =
+        FailureDumpCapture.builder()
+            .encryption(BasicEncryption.forKey("shh"))
+            .properties(properties)
+            .meterRegistry(registry)
+            .nanoClock(now::get)
+            .build();
+  }
+}
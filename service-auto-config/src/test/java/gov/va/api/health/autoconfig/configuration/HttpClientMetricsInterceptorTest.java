@@ -0,0 +1,97 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+public class HttpClientMetricsInterceptorTest {
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+
+  private final ClientHttpRequestExecution execution = mock(ClientHttpRequestExecution.class);
+
+  private final HttpClientMetricsInterceptor interceptor =
+      HttpClientMetricsInterceptor.builder().meterRegistry(registry).build();
+
+  private final MockClientHttpRequest request =
+      new MockClientHttpRequest(HttpMethod.POST, URI.create("http://fugazi.com/call"));
+
+  private Timer calls(String status) {
+    return registry
+        .get(HttpClientMetricsInterceptor.CALLS_METRIC)
+        .tag("host", "fugazi.com")
+        .tag("method", "POST")
+        .tag("status", status)
+        .timer();
+  }
+
+  @Test
+  @SneakyThrows
+  public void callsAreMeasuredWhenClosed() {
+    doReturn(
+            new MockClientHttpResponse(
+                "nope".getBytes(StandardCharsets.UTF_8), HttpStatus.NOT_FOUND))
+        .when(execution)
+        .execute(any(), any());
+    ClientHttpResponse response = interceptor.intercept(request, new byte[3], execution);
+    assertThat(response.getBody().readAllBytes()).hasSize(4);
+    assertThat(calls("4xx").count()).isZero();
+    response.close();
+    response.close();
+    assertThat(calls("4xx").count()).isEqualTo(1);
+    assertThat(
+            registry
+                .get(HttpClientMetricsInterceptor.REQUEST_SIZE_METRIC)
+                .tag("host", "fugazi.com")
+                .summary()
+                .totalAmount())
+        .isEqualTo(3);
+    assertThat(
+            registry
+                .get(HttpClientMetricsInterceptor.RESPONSE_SIZE_METRIC)
+                .tag("host", "fugazi.com")
+                .summary()
+                .totalAmount())
+        .isEqualTo(4);
+  }
+
+  @Test
+  @SneakyThrows
+  public void exceptionsAreMeasured() {
+    doThrow(new IOException("nope")).when(execution).execute(any(), any());
+    assertThrows(IOException.class, () -> interceptor.intercept(request, null, execution));
+    ClientHttpResponse broken = mock(ClientHttpResponse.class);
+    doThrow(new IOException("bad status")).when(broken).getRawStatusCode();
+    doReturn(broken).when(execution).execute(any(), any());
+    assertThrows(IOException.class, () -> interceptor.intercept(request, null, execution));
+    verify(broken).close();
+    assertThat(calls("exception").count()).isEqualTo(2);
+  }
+
+  @Test
+  public void statusesAreClassified() {
+    assertThat(HttpClientMetricsInterceptor.statusClass(101)).isEqualTo("1xx");
+    assertThat(HttpClientMetricsInterceptor.statusClass(204)).isEqualTo("2xx");
+    assertThat(HttpClientMetricsInterceptor.statusClass(599)).isEqualTo("5xx");
+    assertThat(HttpClientMetricsInterceptor.statusClass(600)).isEqualTo("unknown");
+    assertThat(HttpClientMetricsInterceptor.statusClass(99)).isEqualTo("unknown");
+  }
+}
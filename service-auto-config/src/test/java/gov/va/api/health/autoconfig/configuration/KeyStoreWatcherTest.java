@@ -0,0 +1,119 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class KeyStoreWatcherTest {
+  @TempDir Path dir;
+
+  private final AtomicInteger changes = new AtomicInteger();
+
+  @SneakyThrows
+  private void awaitChanges(int expected) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (changes.get() < expected && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+    assertThat(changes.get()).isEqualTo(expected);
+  }
+
+  @Test
+  @SneakyThrows
+  public void changesAreDetectedByPolling() {
+    Path file = Files.writeString(dir.resolve("a.jks"), "a");
+    try (KeyStoreWatcher watcher = watcher(Duration.ofMillis(50), true, file)) {
+      replace(file, "b");
+      awaitChanges(1);
+      Files.delete(file);
+      awaitChanges(2);
+      replace(file, "c");
+      awaitChanges(3);
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  public void changesAreDetectedByWatchingDirectories() {
+    Path file = Files.writeString(dir.resolve("a.jks"), "a");
+    Path other = Files.writeString(dir.resolve("b.jks"), "b");
+    /* The interval is long enough that only file system events can trigger a check. */
+    try (KeyStoreWatcher watcher = watcher(Duration.ofMinutes(5), false, file, other)) {
+      replace(file, "aa");
+      awaitChanges(1);
+      replace(other, "bb");
+      awaitChanges(2);
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  public void failuresHandlingChangesAreTolerated() {
+    Path file = Files.writeString(dir.resolve("a.jks"), "a");
+    try (KeyStoreWatcher watcher =
+        KeyStoreWatcher.builder()
+            .file(file)
+            .interval(Duration.ofMinutes(5))
+            .onChange(
+                () -> {
+                  changes.incrementAndGet();
+                  throw new IllegalStateException("fugazi");
+                })
+            .pollOnly(true)
+            .build()) {
+      Files.writeString(file, "b");
+      watcher.checkForChanges();
+      Files.writeString(file, "c");
+      watcher.checkForChanges();
+      watcher.checkForChanges();
+      assertThat(changes.get()).isEqualTo(2);
+    }
+  }
+
+  /** Replace the file atomically so that checks never see partially written content. */
+  @SneakyThrows
+  private void replace(Path file, String content) {
+    Path temp = Files.writeString(dir.resolve(file.getFileName() + ".tmp"), content);
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  @Test
+  @SneakyThrows
+  public void unchangedFilesAreIgnored() {
+    Path file = Files.writeString(dir.resolve("a.jks"), "a");
+    try (KeyStoreWatcher watcher = watcher(Duration.ofMinutes(5), true, file)) {
+      Files.writeString(file, "a");
+      watcher.checkForChanges();
+      assertThat(changes.get()).isZero();
+    }
+  }
+
+  @Test
+  public void watchingFallsBackToPollingWhenDirectoriesCannotBeWatched() {
+    Path missing = dir.resolve("missing/a.jks");
+    try (KeyStoreWatcher watcher = watcher(Duration.ofMinutes(5), false, missing)) {
+      watcher.checkForChanges();
+      assertThat(changes.get()).isZero();
+    }
+  }
+
+  private KeyStoreWatcher watcher(Duration interval, boolean pollOnly, Path... files) {
+    KeyStoreWatcher.KeyStoreWatcherBuilder builder =
+        KeyStoreWatcher.builder()
+            .interval(interval)
+            .onChange(changes::incrementAndGet)
+            .pollOnly(pollOnly);
+    for (Path file : files) {
+      builder.file(file);
+    }
+    return builder.build().start();
+  }
+}
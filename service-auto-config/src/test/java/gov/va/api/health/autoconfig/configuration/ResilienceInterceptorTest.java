@@ -0,0 +1,209 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import gov.va.api.health.autoconfig.configuration.ResilienceProperties.Policy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+public class ResilienceInterceptorTest {
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+
+  private final ClientHttpRequestExecution execution = mock(ClientHttpRequestExecution.class);
+
+  private ResilienceInterceptor interceptor(Policy defaults, Map<String, Policy> destinations) {
+    return ResilienceInterceptor.builder()
+        .properties(
+            ResilienceProperties.builder()
+                .enabled(true)
+                .defaults(defaults)
+                .destinations(destinations)
+                .build())
+        .meterRegistry(registry)
+        .build();
+  }
+
+  private double metric(String name, String destination) {
+    return registry.get(name).tag("destination", destination).gauge().value();
+  }
+
+  private double rejected(String destination, String reason) {
+    return registry
+        .get(ResilienceInterceptor.REJECTED_METRIC)
+        .tag("destination", destination)
+        .tag("reason", reason)
+        .counter()
+        .count();
+  }
+
+  private MockClientHttpRequest request(String uri) {
+    return new MockClientHttpRequest(HttpMethod.GET, URI.create(uri));
+  }
+
+  @Test
+  @SneakyThrows
+  public void bulkheadLimitsConcurrentRequestsPerDestination() {
+    when(execution.execute(any(), any()))
+        .thenAnswer(i -> new MockClientHttpResponse(new byte[0], HttpStatus.OK));
+    ResilienceInterceptor interceptor =
+        interceptor(Policy.builder().maxConcurrentRequests(2).build(), Map.of());
+    ClientHttpResponse first = interceptor.intercept(request("http://a.com/1"), null, execution);
+    ClientHttpResponse second = interceptor.intercept(request("http://A.com/2"), null, execution);
+    ClientHttpResponse other = interceptor.intercept(request("http://b.com/1"), null, execution);
+    assertThat(metric(ResilienceInterceptor.ACTIVE_METRIC, "a.com")).isEqualTo(2);
+    ClientHttpResponse rejected = interceptor.intercept(request("http://a.com/3"), null, execution);
+    assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    assertThat(rejected.getHeaders().getFirst(ResilienceInterceptor.FAST_FAIL_HEADER))
+        .isEqualTo(ResilienceInterceptor.BULKHEAD_FULL);
+    assertThat(StreamUtils.copyToString(rejected.getBody(), StandardCharsets.UTF_8))
+        .isEqualTo(ResilienceInterceptor.BULKHEAD_FULL);
+    assertThat(rejected.getRawStatusCode()).isEqualTo(503);
+    assertThat(rejected.getStatusText()).isEqualTo("Service Unavailable");
+    rejected.close();
+    assertThat(rejected("a.com", ResilienceInterceptor.BULKHEAD_FULL)).isEqualTo(1);
+    verify(execution, times(3)).execute(any(), any());
+    first.close();
+    first.close();
+    assertThat(metric(ResilienceInterceptor.ACTIVE_METRIC, "a.com")).isEqualTo(1);
+    ClientHttpResponse third = interceptor.intercept(request("http://a.com/3"), null, execution);
+    assertThat(third.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(third.getRawStatusCode()).isEqualTo(200);
+    assertThat(third.getStatusText()).isEqualTo("OK");
+    assertThat(third.getHeaders()).isNotNull();
+    assertThat(third.getBody()).isNotNull();
+    second.close();
+    third.close();
+    other.close();
+    assertThat(metric(ResilienceInterceptor.ACTIVE_METRIC, "a.com")).isZero();
+  }
+
+  @Test
+  @SneakyThrows
+  public void circuitOpensForFailingDestination() {
+    when(execution.execute(any(), any()))
+        .thenAnswer(
+            i ->
+                new MockClientHttpResponse(
+                    new byte[0],
+                    ((MockClientHttpRequest) i.getArgument(0)).getURI().getPath().equals("/ok")
+                        ? HttpStatus.OK
+                        : HttpStatus.BAD_GATEWAY));
+    ResilienceInterceptor interceptor =
+        interceptor(
+            Policy.builder().failureRateThreshold(50).minimumRequests(2).build(),
+            Map.of("flaky.com", Policy.builder().openDuration(Duration.ofMinutes(5)).build()));
+    interceptor.intercept(request("http://flaky.com/boom"), null, execution).close();
+    assertThat(metric(ResilienceInterceptor.STATE_METRIC, "flaky.com")).isZero();
+    interceptor.intercept(request("http://flaky.com/boom"), null, execution).close();
+    assertThat(metric(ResilienceInterceptor.STATE_METRIC, "flaky.com")).isEqualTo(2);
+    ClientHttpResponse rejected =
+        interceptor.intercept(request("http://flaky.com/ok"), null, execution);
+    assertThat(rejected.getHeaders().getFirst(ResilienceInterceptor.FAST_FAIL_HEADER))
+        .isEqualTo(ResilienceInterceptor.CIRCUIT_OPEN);
+    assertThat(rejected("flaky.com", ResilienceInterceptor.CIRCUIT_OPEN)).isEqualTo(1);
+    verify(execution, times(2)).execute(any(), any());
+    /* Other destinations are unaffected and rejected requests release the bulkhead. */
+    assertThat(metric(ResilienceInterceptor.ACTIVE_METRIC, "flaky.com")).isZero();
+    ClientHttpResponse ok = interceptor.intercept(request("http://fine.com/ok"), null, execution);
+    assertThat(ok.getStatusCode()).isEqualTo(HttpStatus.OK);
+  }
+
+  @Test
+  @SneakyThrows
+  public void exceptionsAreFailures() {
+    when(execution.execute(any(), any())).thenThrow(new IOException("fugazi"));
+    ResilienceInterceptor interceptor =
+        interceptor(
+            Policy.builder()
+                .maxConcurrentRequests(1)
+                .failureRateThreshold(100)
+                .minimumRequests(1)
+                .build(),
+            Map.of());
+    assertThrows(
+        IOException.class,
+        () -> interceptor.intercept(request("http://down.com/1"), null, execution));
+    assertThat(metric(ResilienceInterceptor.ACTIVE_METRIC, "down.com")).isZero();
+    assertThat(metric(ResilienceInterceptor.STATE_METRIC, "down.com")).isEqualTo(2);
+  }
+
+  @Test
+  @SneakyThrows
+  public void failureReadingStatusIsFailure() {
+    ClientHttpResponse broken = mock(ClientHttpResponse.class);
+    when(broken.getRawStatusCode()).thenThrow(new IOException("fugazi"));
+    when(execution.execute(any(), any())).thenReturn(broken);
+    ResilienceInterceptor interceptor =
+        interceptor(
+            Policy.builder()
+                .maxConcurrentRequests(1)
+                .failureRateThreshold(100)
+                .minimumRequests(1)
+                .build(),
+            Map.of());
+    assertThrows(
+        IOException.class,
+        () -> interceptor.intercept(request("http://broken.com/1"), null, execution));
+    verify(broken).close();
+    assertThat(metric(ResilienceInterceptor.ACTIVE_METRIC, "broken.com")).isZero();
+    assertThat(metric(ResilienceInterceptor.STATE_METRIC, "broken.com")).isEqualTo(2);
+  }
+
+  @Test
+  @SneakyThrows
+  public void unlimitedBulkheadNeverRejects() {
+    when(execution.execute(any(), any()))
+        .thenAnswer(i -> new MockClientHttpResponse(new byte[0], HttpStatus.OK));
+    ResilienceInterceptor interceptor =
+        interceptor(Policy.builder().maxConcurrentRequests(0).build(), Map.of());
+    for (int i = 0; i < 100; i++) {
+      interceptor.intercept(request("http://many.com/" + i), null, execution);
+    }
+    assertThat(metric(ResilienceInterceptor.ACTIVE_METRIC, "many.com")).isZero();
+    verify(execution, times(100)).execute(any(), any());
+  }
+
+  @Test
+  @SneakyThrows
+  public void waitingForBulkheadCanTimeOut() {
+    when(execution.execute(any(), any()))
+        .thenAnswer(i -> new MockClientHttpResponse(new byte[0], HttpStatus.OK));
+    ResilienceInterceptor interceptor =
+        interceptor(
+            Policy.builder().maxConcurrentRequests(1).maxWait(Duration.ofMillis(10)).build(),
+            Map.of());
+    ClientHttpResponse held = interceptor.intercept(request("http://wait.com/1"), null, execution);
+    ClientHttpResponse rejected =
+        interceptor.intercept(request("http://wait.com/2"), null, execution);
+    assertThat(rejected.getHeaders().getFirst(ResilienceInterceptor.FAST_FAIL_HEADER))
+        .isEqualTo(ResilienceInterceptor.BULKHEAD_FULL);
+    held.close();
+    Thread.currentThread().interrupt();
+    ClientHttpResponse interrupted =
+        interceptor.intercept(request("http://wait.com/3"), null, execution);
+    assertThat(Thread.interrupted()).isTrue();
+    assertThat(interrupted.getHeaders().getFirst(ResilienceInterceptor.FAST_FAIL_HEADER))
+        .isEqualTo(ResilienceInterceptor.BULKHEAD_FULL);
+    verify(execution, times(1)).execute(any(), any());
+  }
+}
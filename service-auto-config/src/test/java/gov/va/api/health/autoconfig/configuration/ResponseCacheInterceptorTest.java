@@ -0,0 +1,335 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+public class ResponseCacheInterceptorTest {
+  private static final long START = 1_600_000_000_000L;
+
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+
+  private final ClientHttpRequestExecution execution = mock(ClientHttpRequestExecution.class);
+
+  private final AtomicLong now = new AtomicLong(START);
+
+  private final List<HttpHeaders> sent = new ArrayList<>();
+
+  private final ResponseCacheInterceptor interceptor = interceptor(DataSize.ofKilobytes(1));
+
+  private static HttpHeaders headers(String... namesAndValues) {
+    HttpHeaders headers = new HttpHeaders();
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      headers.add(namesAndValues[i], namesAndValues[i + 1]);
+    }
+    return headers;
+  }
+
+  private static MockClientHttpResponse response(
+      HttpStatus status, String body, HttpHeaders headers) {
+    MockClientHttpResponse response =
+        new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), status);
+    response.getHeaders().putAll(headers);
+    return response;
+  }
+
+  private void advance(Duration duration) {
+    now.addAndGet(duration.toMillis());
+  }
+
+  @Test
+  public void authorizationAndVaryMustMatch() {
+    respond(() -> response(HttpStatus.OK, "a", headers("Cache-Control", "max-age=60")));
+    get(headers("Authorization", "Bearer one"));
+    get(headers("Authorization", "Bearer two"));
+    get(headers("Authorization", "Bearer two"));
+    respond(
+        () ->
+            response(HttpStatus.OK, "a", headers("Cache-Control", "max-age=60", "Vary", "Accept")));
+    get(headers("Accept", "application/json"));
+    get(headers("Accept", "application/json"));
+    get(headers("Accept", "application/xml"));
+    respond(
+        () -> response(HttpStatus.OK, "a", headers("Cache-Control", "max-age=60", "Vary", "*")));
+    get(headers());
+    get(headers());
+    assertThat(sent).hasSize(6);
+  }
+
+  @Test
+  public void conditionalAndNoStoreRequestsBypassTheCache() {
+    respond(() -> response(HttpStatus.OK, "a", headers("Cache-Control", "max-age=60")));
+    get(headers());
+    get(headers("If-None-Match", "\"v1\""));
+    get(headers("Range", "bytes=0-1"));
+    get(headers("Cache-Control", "no-store"));
+    get(headers());
+    assertThat(sent).hasSize(4);
+    assertThat(count("hit")).isEqualTo(1);
+  }
+
+  private double count(String result) {
+    return registry
+        .get(ResponseCacheInterceptor.REQUESTS_METRIC)
+        .tag("result", result)
+        .counter()
+        .count();
+  }
+
+  @Test
+  public void expiresAndAgeDetermineFreshness() {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setDate(START - 10_000);
+    headers.setExpires(START + 50_000);
+    headers.set("Age", "20");
+    respond(() -> response(HttpStatus.OK, "a", headers));
+    get(headers());
+    advance(Duration.ofSeconds(39));
+    get(headers());
+    advance(Duration.ofSeconds(1));
+    get(headers());
+    assertThat(sent).hasSize(2);
+    /* Without a Date, Expires is relative to when the response was received. */
+    advance(Duration.ofSeconds(10));
+    HttpHeaders noDate = new HttpHeaders();
+    noDate.setExpires(now.get() + 10_000);
+    respond(() -> response(HttpStatus.OK, "a", noDate));
+    get(headers());
+    advance(Duration.ofSeconds(9));
+    get(headers());
+    assertThat(sent).hasSize(3);
+  }
+
+  @Test
+  public void freshResponsesAreServedFromTheCache() {
+    respond(() -> response(HttpStatus.OK, "hello", headers("Cache-Control", "public, max-age=60")));
+    assertThat(body(get(headers()))).isEqualTo("hello");
+    advance(Duration.ofSeconds(59));
+    ClientHttpResponse cached = get(headers());
+    assertThat(body(cached)).isEqualTo("hello");
+    assertThat(body(cached)).isEqualTo("hello");
+    assertThat(cached.getHeaders().getCacheControl()).isEqualTo("public, max-age=60");
+    assertThat(status(cached)).isEqualTo(HttpStatus.OK);
+    assertThat(statusText(cached)).isEqualTo("OK");
+    cached.close();
+    assertThat(sent).hasSize(1);
+    advance(Duration.ofSeconds(1));
+    get(headers());
+    assertThat(sent).hasSize(2);
+    assertThat(count("hit")).isEqualTo(1);
+    assertThat(count("miss")).isEqualTo(2);
+    /* Requests may ask for a younger response. */
+    advance(Duration.ofSeconds(10));
+    get(headers("Cache-Control", "max-age=5"));
+    assertThat(sent).hasSize(3);
+  }
+
+  private ClientHttpResponse get(HttpHeaders headers) {
+    return send(HttpMethod.GET, headers);
+  }
+
+  private ResponseCacheInterceptor interceptor(DataSize maxEntrySize) {
+    Clock clock = mock(Clock.class);
+    when(clock.millis()).thenAnswer(i -> now.get());
+    return ResponseCacheInterceptor.builder()
+        .properties(ResponseCacheProperties.builder().maxEntrySize(maxEntrySize).build())
+        .meterRegistry(registry)
+        .clock(clock)
+        .build();
+  }
+
+  @Test
+  public void interceptorIsFirst() {
+    assertThat(interceptor.getOrder()).isEqualTo(Ordered.HIGHEST_PRECEDENCE);
+  }
+
+  @Test
+  public void largeResponsesAreNotCached() {
+    ResponseCacheInterceptor small = interceptor(DataSize.ofBytes(4));
+    respond(() -> response(HttpStatus.OK, "hello world", headers("Cache-Control", "max-age=60")));
+    ClientHttpResponse response = send(small, HttpMethod.GET, headers());
+    assertThat(body(response)).isEqualTo("hello world");
+    assertThat(body(response)).isEmpty();
+    assertThat(response.getHeaders().getCacheControl()).isEqualTo("max-age=60");
+    assertThat(status(response)).isEqualTo(HttpStatus.OK);
+    assertThat(statusText(response)).isEqualTo("OK");
+    response.close();
+    respond(
+        () ->
+            response(
+                HttpStatus.OK,
+                "hello",
+                headers("Cache-Control", "max-age=60", "Content-Length", "5")));
+    assertThat(body(send(small, HttpMethod.GET, headers()))).isEqualTo("hello");
+    send(small, HttpMethod.GET, headers());
+    assertThat(sent).hasSize(3);
+  }
+
+  @Test
+  public void lastModifiedIsUsedToRevalidate() {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setLastModified(START - 60_000);
+    respond(() -> response(HttpStatus.OK, "a", headers));
+    get(headers());
+    respond(() -> response(HttpStatus.NOT_MODIFIED, "", headers()));
+    assertThat(body(get(headers()))).isEqualTo("a");
+    assertThat(sent.get(1).getIfModifiedSince()).isEqualTo(START - 60_000);
+    assertThat(sent.get(1).getIfNoneMatch()).isEmpty();
+  }
+
+  @Test
+  public void modifiedResponsesReplaceStoredResponses() {
+    respond(() -> response(HttpStatus.OK, "v1", headers("ETag", "\"v1\"")));
+    get(headers());
+    respond(
+        () ->
+            response(HttpStatus.OK, "v2", headers("ETag", "\"v2\"", "Cache-Control", "max-age=9")));
+    assertThat(body(get(headers()))).isEqualTo("v2");
+    assertThat(body(get(headers()))).isEqualTo("v2");
+    assertThat(sent).hasSize(2);
+  }
+
+  @Test
+  public void responsesThatCannotBeReusedAreNotStored() {
+    respond(() -> response(HttpStatus.OK, "a", headers("Cache-Control", "no-store, max-age=60")));
+    get(headers());
+    get(headers());
+    respond(() -> response(HttpStatus.OK, "a", headers()));
+    get(headers());
+    get(headers());
+    respond(() -> response(HttpStatus.NOT_FOUND, "a", headers("Cache-Control", "max-age=60")));
+    get(headers());
+    get(headers());
+    respond(() -> response(HttpStatus.OK, "a", headers("Cache-Control", "max-age=\"x\"")));
+    get(headers());
+    get(headers());
+    assertThat(sent).hasSize(8);
+  }
+
+  @SneakyThrows
+  private void respond(Supplier<ClientHttpResponse> responses) {
+    doAnswer(
+            i -> {
+              sent.add(((HttpRequest) i.getArgument(0)).getHeaders());
+              return responses.get();
+            })
+        .when(execution)
+        .execute(any(), any());
+  }
+
+  private ClientHttpResponse send(HttpMethod method, HttpHeaders headers) {
+    return send(interceptor, method, headers);
+  }
+
+  @SneakyThrows
+  private ClientHttpResponse send(
+      ResponseCacheInterceptor cache, HttpMethod method, HttpHeaders headers) {
+    MockClientHttpRequest request =
+        new MockClientHttpRequest(method, URI.create("http://a.com/metadata"));
+    request.getHeaders().putAll(headers);
+    return cache.intercept(request, new byte[0], execution);
+  }
+
+  @Test
+  public void staleResponsesAreRevalidated() {
+    respond(
+        () ->
+            response(
+                HttpStatus.OK, "hello", headers("ETag", "\"v1\"", "Cache-Control", "no-cache")));
+    get(headers());
+    respond(
+        () ->
+            response(
+                HttpStatus.NOT_MODIFIED,
+                "",
+                headers("Cache-Control", "max-age=60", "Content-Length", "0")));
+    ClientHttpResponse revalidated = get(headers());
+    assertThat(body(revalidated)).isEqualTo("hello");
+    assertThat(revalidated.getHeaders().getETag()).isEqualTo("\"v1\"");
+    assertThat(revalidated.getHeaders().getContentLength()).isEqualTo(-1);
+    assertThat(sent.get(1).getIfNoneMatch()).containsExactly("\"v1\"");
+    assertThat(count("revalidated")).isEqualTo(1);
+    get(headers());
+    assertThat(sent).hasSize(2);
+    assertThat(count("hit")).isEqualTo(1);
+    /* Requests may insist on revalidation. */
+    get(headers("Cache-Control", "no-cache"));
+    assertThat(sent).hasSize(3);
+  }
+
+  @SneakyThrows
+  private HttpStatus status(ClientHttpResponse response) {
+    assertThat(response.getRawStatusCode()).isEqualTo(response.getStatusCode().value());
+    return response.getStatusCode();
+  }
+
+  @SneakyThrows
+  private String statusText(ClientHttpResponse response) {
+    return response.getStatusText();
+  }
+
+  @SneakyThrows
+  private String body(ClientHttpResponse response) {
+    return StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void unsafeMethodsInvalidateStoredResponses() {
+    respond(() -> response(HttpStatus.OK, "a", headers("Cache-Control", "max-age=60")));
+    get(headers());
+    send(HttpMethod.HEAD, headers());
+    get(headers());
+    assertThat(sent).hasSize(2);
+    respond(() -> response(HttpStatus.INTERNAL_SERVER_ERROR, "", headers()));
+    send(HttpMethod.PUT, headers());
+    get(headers());
+    assertThat(sent).hasSize(3);
+    respond(() -> response(HttpStatus.OK, "a", headers("Cache-Control", "max-age=60")));
+    send(HttpMethod.POST, headers());
+    get(headers());
+    get(headers());
+    assertThat(sent).hasSize(5);
+  }
+
+  @Test
+  @SneakyThrows
+  public void failureReadingBodyClosesResponse() {
+    ClientHttpResponse broken = mock(ClientHttpResponse.class);
+    when(broken.getRawStatusCode()).thenReturn(200);
+    when(broken.getHeaders()).thenReturn(headers("Cache-Control", "max-age=60"));
+    when(broken.getBody()).thenThrow(new IOException("fugazi"));
+    when(execution.execute(any(), any())).thenReturn(broken);
+    assertThrows(IOException.class, () -> send(HttpMethod.GET, headers()));
+    verify(broken, times(1)).close();
+  }
+}
@@ -0,0 +1,77 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gov.va.api.health.autoconfig.configuration.ResponseCacheStore.Entry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+public class ResponseCacheStoreTest {
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+
+  private static Entry entry(int bodySize) {
+    return Entry.builder()
+        .status(200)
+        .statusText("OK")
+        .headers(HttpHeaders.readOnlyHttpHeaders(new HttpHeaders()))
+        .body(ByteBuffer.wrap(new byte[bodySize]))
+        .varied(Map.of())
+        .build();
+  }
+
+  private List<Entry> fill(ResponseCacheStore store) {
+    IntStream.range(0, 10).forEach(i -> store.put("http://a.com/" + i, entry(40)));
+    return IntStream.range(0, 10)
+        .mapToObj(i -> store.get("http://a.com/" + i))
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void entriesAreEvictedWhenFull() {
+    ResponseCacheStore store =
+        ResponseCacheStore.builder().maxBytes(100).meterRegistry(registry).build();
+    assertThat(fill(store)).containsNull();
+    assertThat(registry.get("cache.size").tag("cache", ResponseCacheStore.HEAP_CACHE).gauge())
+        .isNotNull();
+    assertThat(registry.find("cache.size").tag("cache", ResponseCacheStore.OFF_HEAP_CACHE).gauge())
+        .isNull();
+  }
+
+  @Test
+  public void evictedEntriesMoveOffHeapAndBack() {
+    ResponseCacheStore store =
+        ResponseCacheStore.builder()
+            .maxBytes(100)
+            .offHeapMaxBytes(1000)
+            .meterRegistry(registry)
+            .build();
+    List<Entry> entries = fill(store);
+    assertThat(entries).doesNotContainNull();
+    assertThat(entries).allMatch(e -> e.body().remaining() == 40 && e.body().hasArray());
+    assertThat(registry.get("cache.size").tag("cache", ResponseCacheStore.OFF_HEAP_CACHE).gauge())
+        .isNotNull();
+    store.invalidate("http://a.com/0");
+    assertThat(store.get("http://a.com/0")).isNull();
+  }
+
+  @Test
+  public void freshness() {
+    Entry entry =
+        entry(0).toBuilder()
+            .receivedMillis(1000)
+            .initialAgeMillis(500)
+            .freshnessMillis(1000)
+            .build();
+    assertThat(entry.ageMillis(1100)).isEqualTo(600);
+    assertThat(entry.isFresh(1499)).isTrue();
+    assertThat(entry.isFresh(1500)).isFalse();
+    assertThat(entry.toBuilder().noCache(true).build().isFresh(1000)).isFalse();
+  }
+}
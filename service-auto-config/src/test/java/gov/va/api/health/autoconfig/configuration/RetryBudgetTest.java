@@ -0,0 +1,56 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class RetryBudgetTest {
+  private final AtomicLong now = new AtomicLong(-1_500_000_000L);
+
+  private RetryBudget budget(double ratio, int minimumPerSecond) {
+    return RetryBudget.builder()
+        .ratio(ratio)
+        .minimumPerSecond(minimumPerSecond)
+        .nanoClock(now::get)
+        .build();
+  }
+
+  @Test
+  public void balanceIsCapped() {
+    RetryBudget budget = budget(0.5, 0);
+    for (int i = 0; i < 10_000; i++) {
+      budget.deposit();
+    }
+    int withdrawn = 0;
+    while (budget.tryWithdraw()) {
+      withdrawn++;
+    }
+    assertThat(withdrawn).isEqualTo(500);
+  }
+
+  @Test
+  public void minimumPerSecondIsAlwaysPermitted() {
+    RetryBudget budget = budget(0, 2);
+    assertThat(budget.tryWithdraw()).isTrue();
+    assertThat(budget.tryWithdraw()).isTrue();
+    assertThat(budget.tryWithdraw()).isFalse();
+    now.addAndGet(499_999_999L);
+    assertThat(budget.tryWithdraw()).isFalse();
+    now.incrementAndGet();
+    assertThat(budget.tryWithdraw()).isTrue();
+  }
+
+  @Test
+  public void retriesAreEarnedByRequests() {
+    RetryBudget budget = budget(0.2, 0);
+    assertThat(budget.tryWithdraw()).isFalse();
+    for (int i = 0; i < 4; i++) {
+      budget.deposit();
+    }
+    assertThat(budget.tryWithdraw()).isFalse();
+    budget.deposit();
+    assertThat(budget.tryWithdraw()).isTrue();
+    assertThat(budget.tryWithdraw()).isFalse();
+  }
+}
@@ -0,0 +1,362 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import gov.va.api.health.autoconfig.configuration.RetryProperties.Hedge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+
+public class RetryInterceptorTest {
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+
+  private final ClientHttpRequestExecution execution = mock(ClientHttpRequestExecution.class);
+
+  private RetryInterceptor interceptor;
+
+  private static ClientHttpResponse response(int status) {
+    return response(status, new HttpHeaders());
+  }
+
+  @SneakyThrows
+  private static ClientHttpResponse response(int status, HttpHeaders headers) {
+    ClientHttpResponse response = mock(ClientHttpResponse.class);
+    when(response.getRawStatusCode()).thenReturn(status);
+    when(response.getHeaders()).thenReturn(headers);
+    return response;
+  }
+
+  @AfterEach
+  void close() {
+    if (interceptor != null) {
+      interceptor.close();
+    }
+  }
+
+  @SneakyThrows
+  private void awaitCount(String metric, String outcome, double expected) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (count(metric, outcome) != expected && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(count(metric, outcome)).isEqualTo(expected);
+  }
+
+  private double count(String metric, String outcome) {
+    return registry
+        .get(metric)
+        .tag("destination", "a.com")
+        .tag("outcome", outcome)
+        .counter()
+        .count();
+  }
+
+  @Test
+  @SneakyThrows
+  public void attemptInterceptorsSeeEachAttempt() {
+    AtomicInteger seen = new AtomicInteger();
+    ClientHttpRequestInterceptor counting =
+        (request, body, next) -> {
+          seen.incrementAndGet();
+          return next.execute(request, body);
+        };
+    ClientHttpResponse unavailable = response(503);
+    ClientHttpResponse ok = response(200);
+    when(execution.execute(any(), any())).thenReturn(unavailable, ok);
+    ClientHttpRequestInterceptor chain =
+        interceptor(props()).withAttemptInterceptors(List.of(counting, counting));
+    assertThat(chain.intercept(request(HttpMethod.GET), null, execution)).isSameAs(ok);
+    assertThat(seen.get()).isEqualTo(4);
+    verify(execution, times(2)).execute(any(), any());
+  }
+
+  @Test
+  public void decorrelatedJitterStaysWithinBounds() {
+    for (int i = 0; i < 1000; i++) {
+      assertThat(RetryInterceptor.decorrelatedJitter(10, 100, 10)).isBetween(10L, 30L);
+      assertThat(RetryInterceptor.decorrelatedJitter(10, 100, 50)).isBetween(10L, 100L);
+    }
+    assertThat(RetryInterceptor.decorrelatedJitter(10, 100, 0)).isBetween(10L, 30L);
+    assertThat(RetryInterceptor.decorrelatedJitter(0, 0, 0)).isZero();
+  }
+
+  @Test
+  @SneakyThrows
+  public void exceptionsAreRetried() {
+    ClientHttpResponse ok = response(200);
+    when(execution.execute(any(), any())).thenThrow(new IOException("fugazi")).thenReturn(ok);
+    assertThat(interceptor(props()).intercept(request(HttpMethod.PUT), new byte[0], execution))
+        .isSameAs(ok);
+    doThrow(new IOException("fugazi")).when(execution).execute(any(), any());
+    assertThrows(
+        IOException.class,
+        () -> interceptor.intercept(request(HttpMethod.GET), new byte[0], execution));
+    verify(execution, times(5)).execute(any(), any());
+    assertThat(count(RetryInterceptor.RETRY_METRIC, "retried")).isEqualTo(3);
+  }
+
+  @Test
+  @SneakyThrows
+  public void exhaustedBudgetStopsRetries() {
+    ClientHttpResponse unavailable = response(503);
+    when(execution.execute(any(), any())).thenReturn(unavailable);
+    RetryProperties properties = props();
+    properties.setBudgetRatio(0);
+    properties.setBudgetMinimumPerSecond(0);
+    assertThat(interceptor(properties).intercept(request(HttpMethod.GET), null, execution))
+        .isSameAs(unavailable);
+    doThrow(new IOException("fugazi")).when(execution).execute(any(), any());
+    assertThrows(
+        IOException.class, () -> interceptor.intercept(request(HttpMethod.GET), null, execution));
+    verify(execution, times(2)).execute(any(), any());
+    verify(unavailable, never()).close();
+    assertThat(count(RetryInterceptor.RETRY_METRIC, "budget-exhausted")).isEqualTo(2);
+  }
+
+  @Test
+  @SneakyThrows
+  public void fastFailResponsesAreNotRetried() {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(ResilienceInterceptor.FAST_FAIL_HEADER, ResilienceInterceptor.CIRCUIT_OPEN);
+    ClientHttpResponse rejected = response(503, headers);
+    when(execution.execute(any(), any())).thenReturn(rejected);
+    assertThat(interceptor(props()).intercept(request(HttpMethod.GET), null, execution))
+        .isSameAs(rejected);
+    verify(execution).execute(any(), any());
+  }
+
+  @Test
+  @SneakyThrows
+  public void failureReadingStatusClosesResponse() {
+    ClientHttpResponse broken = mock(ClientHttpResponse.class);
+    when(broken.getRawStatusCode()).thenThrow(new IOException("fugazi"));
+    when(execution.execute(any(), any())).thenReturn(broken);
+    assertThrows(
+        IOException.class,
+        () -> interceptor(props()).intercept(request(HttpMethod.GET), null, execution));
+    verify(broken).close();
+  }
+
+  private RetryProperties hedging() {
+    RetryProperties properties = props();
+    properties.setHedge(
+        Hedge.builder()
+            .enabled(true)
+            .percentile(50)
+            .minimumSamples(2)
+            .minimumDelay(Duration.ofMillis(20))
+            .maxThreads(2)
+            .build());
+    return properties;
+  }
+
+  @Test
+  @SneakyThrows
+  public void hedgeIsSentForSlowGet() {
+    CountDownLatch release = new CountDownLatch(1);
+    ClientHttpResponse slow = response(200);
+    ClientHttpResponse fast = response(200);
+    AtomicInteger calls = new AtomicInteger();
+    when(execution.execute(any(), any()))
+        .thenAnswer(
+            i -> {
+              int call = calls.incrementAndGet();
+              if (call == 3) {
+                release.await(10, TimeUnit.SECONDS);
+                return slow;
+              }
+              return call == 4 ? fast : response(200);
+            });
+    interceptor(hedging());
+    interceptor.intercept(request(HttpMethod.GET), null, execution);
+    interceptor.intercept(request(HttpMethod.GET), null, execution);
+    assertThat(interceptor.intercept(request(HttpMethod.GET), null, execution)).isSameAs(fast);
+    release.countDown();
+    awaitCount(RetryInterceptor.HEDGE_METRIC, "won", 1);
+    verify(slow, timeout(5000)).close();
+    verify(fast, never()).close();
+    /* Other methods are never hedged. */
+    doReturn(fast).when(execution).execute(any(), any());
+    interceptor.intercept(request(HttpMethod.HEAD), null, execution);
+    verify(execution, times(5)).execute(any(), any());
+  }
+
+  @Test
+  @SneakyThrows
+  public void hedgeThatLosesIsClosed() {
+    ClientHttpResponse first = response(200);
+    ClientHttpResponse hedge = response(200);
+    CountDownLatch hedgeStarted = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger calls = new AtomicInteger();
+    when(execution.execute(any(), any()))
+        .thenAnswer(
+            i -> {
+              int call = calls.incrementAndGet();
+              if (call == 3) {
+                hedgeStarted.await(10, TimeUnit.SECONDS);
+                return first;
+              }
+              if (call == 4) {
+                hedgeStarted.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                return hedge;
+              }
+              return response(200);
+            });
+    interceptor(hedging());
+    interceptor.intercept(request(HttpMethod.GET), null, execution);
+    interceptor.intercept(request(HttpMethod.GET), null, execution);
+    assertThat(interceptor.intercept(request(HttpMethod.GET), null, execution)).isSameAs(first);
+    release.countDown();
+    verify(hedge, timeout(5000)).close();
+    awaitCount(RetryInterceptor.HEDGE_METRIC, "lost", 1);
+  }
+
+  @Test
+  @SneakyThrows
+  public void hedgedGetFailsWhenAllAttemptsFail() {
+    AtomicInteger calls = new AtomicInteger();
+    when(execution.execute(any(), any()))
+        .thenAnswer(
+            i -> {
+              if (calls.incrementAndGet() <= 2) {
+                return response(200);
+              }
+              throw new IOException("fugazi");
+            });
+    RetryProperties properties = hedging();
+    properties.setMaxAttempts(1);
+    interceptor(properties);
+    interceptor.intercept(request(HttpMethod.GET), null, execution);
+    interceptor.intercept(request(HttpMethod.GET), null, execution);
+    assertThrows(
+        IOException.class, () -> interceptor.intercept(request(HttpMethod.GET), null, execution));
+    doThrow(new IllegalStateException("fugazi")).when(execution).execute(any(), any());
+    assertThrows(
+        IllegalStateException.class,
+        () -> interceptor.intercept(request(HttpMethod.GET), null, execution));
+  }
+
+  @Test
+  @SneakyThrows
+  public void interruptedBackoffStopsRetrying() {
+    when(execution.execute(any(), any())).thenAnswer(i -> response(503));
+    RetryProperties properties = props();
+    properties.setBaseBackoff(Duration.ofSeconds(10));
+    properties.setMaxBackoff(Duration.ofSeconds(10));
+    interceptor(properties);
+    Thread.currentThread().interrupt();
+    assertThrows(
+        InterruptedIOException.class,
+        () -> interceptor.intercept(request(HttpMethod.GET), null, execution));
+    assertThat(Thread.interrupted()).isTrue();
+    verify(execution).execute(any(), any());
+  }
+
+  @Test
+  @SneakyThrows
+  public void interruptedWhileWaitingForHedgedGet() {
+    ClientHttpResponse late = response(200);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger calls = new AtomicInteger();
+    when(execution.execute(any(), any()))
+        .thenAnswer(
+            i -> {
+              if (calls.incrementAndGet() <= 2) {
+                return response(200);
+              }
+              release.await(10, TimeUnit.SECONDS);
+              return late;
+            });
+    interceptor(hedging());
+    interceptor.intercept(request(HttpMethod.GET), null, execution);
+    interceptor.intercept(request(HttpMethod.GET), null, execution);
+    Thread.currentThread().interrupt();
+    assertThrows(
+        InterruptedIOException.class,
+        () -> interceptor.intercept(request(HttpMethod.GET), null, execution));
+    assertThat(Thread.interrupted()).isTrue();
+    release.countDown();
+    verify(late, timeout(5000)).close();
+  }
+
+  private RetryInterceptor interceptor(RetryProperties properties) {
+    interceptor = RetryInterceptor.builder().properties(properties).meterRegistry(registry).build();
+    return interceptor;
+  }
+
+  @Test
+  @SneakyThrows
+  public void nonIdempotentRequestsAreNotRetried() {
+    ClientHttpResponse unavailable = response(503);
+    when(execution.execute(any(), any())).thenReturn(unavailable);
+    assertThat(interceptor(props()).intercept(request(HttpMethod.POST), null, execution))
+        .isSameAs(unavailable);
+    assertThat(interceptor.intercept(request(HttpMethod.PATCH), null, execution))
+        .isSameAs(unavailable);
+    verify(execution, times(2)).execute(any(), any());
+  }
+
+  private RetryProperties props() {
+    return RetryProperties.builder()
+        .enabled(true)
+        .baseBackoff(Duration.ofMillis(1))
+        .maxBackoff(Duration.ofMillis(5))
+        .build();
+  }
+
+  private MockClientHttpRequest request(HttpMethod method) {
+    return new MockClientHttpRequest(method, URI.create("http://A.com/fugazi"));
+  }
+
+  @Test
+  @SneakyThrows
+  public void retryableStatusesAreRetriedUntilAttemptsAreExhausted() {
+    ClientHttpResponse first = response(503);
+    ClientHttpResponse second = response(502);
+    ClientHttpResponse ok = response(200);
+    when(execution.execute(any(), any())).thenReturn(first, second, ok);
+    assertThat(interceptor(props()).intercept(request(HttpMethod.GET), null, execution))
+        .isSameAs(ok);
+    verify(first).close();
+    verify(second).close();
+    ClientHttpResponse timedOut = response(504);
+    ClientHttpResponse last = response(504);
+    doReturn(timedOut, timedOut, last).when(execution).execute(any(), any());
+    assertThat(interceptor.intercept(request(HttpMethod.DELETE), null, execution)).isSameAs(last);
+    verify(last, never()).close();
+    ClientHttpResponse error = response(500);
+    doReturn(error).when(execution).execute(any(), any());
+    assertThat(interceptor.intercept(request(HttpMethod.GET), null, execution).getRawStatusCode())
+        .isEqualTo(500);
+    verify(execution, times(7)).execute(any(), any());
+    assertThat(count(RetryInterceptor.RETRY_METRIC, "retried")).isEqualTo(4);
+  }
+}
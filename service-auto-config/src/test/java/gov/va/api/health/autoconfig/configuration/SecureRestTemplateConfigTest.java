@@ -1,17 +1,443 @@
 package gov.va.api.health.autoconfig.configuration;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
 
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsExchange;
+import com.sun.net.httpserver.HttpsParameters;
+import com.sun.net.httpserver.HttpsServer;
 import gov.va.api.health.autoconfig.configuration.SecureRestTemplateConfig.FailedToConfigureSsl;
+import gov.va.api.health.autoconfig.encryption.BasicEncryption;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 @Slf4j
+@ExtendWith(OutputCaptureExtension.class)
 public class SecureRestTemplateConfigTest {
+  private final Queue<SSLSession> serverSessions = new ConcurrentLinkedQueue<>();
+
+  private final CountDownLatch slowRequestReceived = new CountDownLatch(1);
+
+  private final CountDownLatch releaseSlowRequest = new CountDownLatch(1);
+
+  private HttpsServer server;
+
+  private ExecutorService serverExecutor;
+
+  @SneakyThrows
+  private static void await(BooleanSupplier condition) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!condition.getAsBoolean()) {
+      assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+      Thread.sleep(20);
+    }
+  }
+
+  /** Replace the file atomically so that it is never reloaded while partially written. */
+  @SneakyThrows
+  private static void copy(String resource, Path file) {
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (InputStream in = SecureRestTemplateConfigTest.class.getResourceAsStream(resource)) {
+      Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+    }
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static double reloads(MeterRegistry registry, String outcome) {
+    Counter counter =
+        registry.find(SecureRestTemplateConfig.RELOAD_METRIC).tag("outcome", outcome).counter();
+    return counter == null ? 0 : counter.count();
+  }
+
+  @AfterEach
+  void _stopServer() {
+    releaseSlowRequest.countDown();
+    if (server != null) {
+      server.stop(0);
+      serverExecutor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void classpathKeyStoresAreNotReloaded(CapturedOutput output) {
+    SecureRestTemplateConfig config =
+        new SecureRestTemplateConfig(mutualTls().reloadKeyStores(true).build());
+    config.restTemplate(new RestTemplateBuilder());
+    config.destroy();
+    assertThat(output.getOut()).contains("will not be reloaded");
+  }
+
+  @Test
+  @SneakyThrows
+  public void failedReloadsKeepCurrentKeyStores(@TempDir Path dir) {
+    Path keyStore = dir.resolve("client.jks");
+    copy("/test-server-keystore.jks", keyStore);
+    startServer(false, null);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    SecureRestTemplateConfig config = new SecureRestTemplateConfig(reloadable(keyStore), registry);
+    try {
+      RestTemplate rt = config.restTemplate(new RestTemplateBuilder());
+      Files.move(
+          Files.writeString(dir.resolve("nope.tmp"), "nope"),
+          keyStore,
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      await(() -> reloads(registry, "failure") == 1);
+      assertThat(rt.getForObject(url(), String.class)).isEqualTo("hello");
+      assertThat(peerName(serverSessions.poll())).contains("CN=localhost");
+      copy("/test-rotated-keystore.jks", keyStore);
+      await(() -> reloads(registry, "success") == 1);
+      assertThat(rt.getForObject(url(), String.class)).isEqualTo("hello");
+      assertThat(peerName(serverSessions.poll())).contains("CN=rotated");
+    } finally {
+      config.destroy();
+    }
+  }
+
+  private double handshakes(MeterRegistry registry, String outcome, String resumed) {
+    return registry
+        .get(InstrumentedSslConnectionSocketFactory.HANDSHAKE_METRIC)
+        .tag("outcome", outcome)
+        .tag("resumed", resumed)
+        .timer()
+        .count();
+  }
+
+  private SslClientProperties.SslClientPropertiesBuilder mutualTls() {
+    return SslClientProperties.builder()
+        .enableClient(true)
+        .verify(true)
+        .clientKeyPassword("secret")
+        .keyStore("classpath:test-server-keystore.jks")
+        .keyStorePassword("secret")
+        .useTrustStore(true)
+        .trustStore("classpath:test-truststore.jks")
+        .trustStorePassword("secret");
+  }
+
+  @Test
+  public void handshakeFailuresAreMeasured() {
+    startServer(false, "TLSv1.3");
+    MeterRegistry registry = new SimpleMeterRegistry();
+    RestTemplate rt =
+        new SecureRestTemplateConfig(mutualTls().protocols(List.of("TLSv1.2")).build(), registry)
+            .restTemplate(new RestTemplateBuilder());
+    assertThrows(ResourceAccessException.class, () -> rt.getForObject(url(), String.class));
+    assertThat(handshakes(registry, "failure", "false")).isEqualTo(1);
+    assertThat(handshakes(registry, "success", "false")).isZero();
+  }
+
+  @Test
+  @SneakyThrows
+  public void keyStoresAreReloadedWithoutInterruptingRequests(@TempDir Path dir) {
+    Path keyStore = dir.resolve("client.jks");
+    copy("/test-server-keystore.jks", keyStore);
+    startServer(false, null);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    SecureRestTemplateConfig config = new SecureRestTemplateConfig(reloadable(keyStore), registry);
+    try {
+      RestTemplate rt = config.restTemplate(new RestTemplateBuilder());
+      assertThat(rt.getForObject(url(), String.class)).isEqualTo("hello");
+      CompletableFuture<String> inFlight =
+          CompletableFuture.supplyAsync(() -> rt.getForObject(url() + "/slow", String.class));
+      assertThat(slowRequestReceived.await(10, TimeUnit.SECONDS)).isTrue();
+      copy("/test-rotated-keystore.jks", keyStore);
+      await(() -> reloads(registry, "success") == 1);
+      releaseSlowRequest.countDown();
+      assertThat(inFlight.get(10, TimeUnit.SECONDS)).isEqualTo("slow");
+      serverSessions.clear();
+      for (int i = 0; i < 3; i++) {
+        assertThat(rt.getForObject(url(), String.class)).isEqualTo("hello");
+      }
+      assertThat(serverSessions).hasSize(3);
+      for (SSLSession session : serverSessions) {
+        assertThat(peerName(session)).contains("CN=rotated");
+      }
+    } finally {
+      config.destroy();
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  public void mutualTlsConnectionsAreReused() {
+    startServer(false, null);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    RestTemplate rt =
+        new SecureRestTemplateConfig(mutualTls().build(), registry)
+            .restTemplate(new RestTemplateBuilder());
+    for (int i = 0; i < 3; i++) {
+      assertThat(rt.getForObject(url(), String.class)).isEqualTo("hello");
+    }
+    assertThat(serverSessions).hasSize(3);
+    assertThat(peerName(serverSessions.peek())).contains("CN=localhost");
+    assertThat(handshakes(registry, "success", "false")).isEqualTo(1);
+    assertThat(handshakes(registry, "success", "true")).isZero();
+  }
+
+  @Test
+  public void poolsAndCallsAreMeasured() {
+    startServer(false, null);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    RestTemplate rt =
+        new SecureRestTemplateConfig(mutualTls().build(), registry)
+            .restTemplate(new RestTemplateBuilder());
+    for (int i = 0; i < 2; i++) {
+      assertThat(rt.getForObject(url(), String.class)).isEqualTo("hello");
+    }
+    String target = "localhost:" + server.getAddress().getPort();
+    assertThat(
+            registry
+                .get(ReloadableSslConnectionManager.ACQUIRE_METRIC)
+                .tag("target", target)
+                .tag("outcome", "success")
+                .timer()
+                .count())
+        .isEqualTo(2);
+    assertThat(pool(registry, target, "available")).isEqualTo(1);
+    assertThat(pool(registry, target, "leased")).isZero();
+    assertThat(pool(registry, target, "pending")).isZero();
+    assertThat(
+            registry
+                .get(HttpClientMetricsInterceptor.CALLS_METRIC)
+                .tag("host", "localhost")
+                .tag("method", "GET")
+                .tag("status", "2xx")
+                .timer()
+                .count())
+        .isEqualTo(2);
+    assertThat(
+            registry
+                .get(HttpClientMetricsInterceptor.RESPONSE_SIZE_METRIC)
+                .tag("host", "localhost")
+                .summary()
+                .totalAmount())
+        .isEqualTo(10);
+  }
+
+  private double pool(MeterRegistry registry, String target, String state) {
+    return registry
+        .get(ReloadableSslConnectionManager.POOL_METRIC)
+        .tag("target", target)
+        .tag("state", state)
+        .gauge()
+        .value();
+  }
+
+  @Test
+  public void poolsAndCallsAreNotMeasuredWithoutRegistry() {
+    RestTemplate rt =
+        new SecureRestTemplateConfig(SslClientProperties.builder().enableClient(false).build())
+            .restTemplate(new RestTemplateBuilder());
+    assertThat(rt.getInterceptors()).hasSize(1);
+  }
+
+  @SneakyThrows
+  private String peerName(SSLSession session) {
+    return session.getPeerPrincipal().getName();
+  }
+
+  @Test
+  public void protocolsAndCipherSuitesAreConfigurable() {
+    startServer(false, null);
+    RestTemplate rt =
+        new SecureRestTemplateConfig(
+                mutualTls()
+                    .protocols(List.of("TLSv1.2"))
+                    .cipherSuites(List.of("TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256"))
+                    .build(),
+                new SimpleMeterRegistry())
+            .restTemplate(new RestTemplateBuilder());
+    assertThat(rt.getForObject(url(), String.class)).isEqualTo("hello");
+    SSLSession session = serverSessions.peek();
+    assertThat(session.getProtocol()).isEqualTo("TLSv1.2");
+    assertThat(session.getCipherSuite()).isEqualTo("TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256");
+  }
+
+  private SslClientProperties reloadable(Path keyStore) {
+    return mutualTls()
+        .keyStore("file:" + keyStore)
+        .reloadKeyStores(true)
+        .reloadInterval(Duration.ofMillis(100))
+        .build();
+  }
+
+  @Test
+  public void sessionCacheIsConfigurable() {
+    SSLContext context =
+        new SecureRestTemplateConfig(
+                SslClientProperties.builder()
+                    .enableClient(false)
+                    .sessionCacheSize(42)
+                    .sessionTimeout(Duration.ofMinutes(5))
+                    .build())
+            .sslContext();
+    assertThat(context.getClientSessionContext().getSessionCacheSize()).isEqualTo(42);
+    assertThat(context.getClientSessionContext().getSessionTimeout()).isEqualTo(300);
+  }
+
+  @Test
+  public void sessionsAreResumedForNewConnections() {
+    startServer(true, null);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    RestTemplate rt =
+        new SecureRestTemplateConfig(
+                mutualTls().protocols(List.of("TLSv1.3", "TLSv1.2")).build(), registry)
+            .restTemplate(new RestTemplateBuilder());
+    for (int i = 0; i < 3; i++) {
+      assertThat(rt.getForObject(url(), String.class)).isEqualTo("hello");
+    }
+    assertThat(handshakes(registry, "success", "false")).isEqualTo(1);
+    assertThat(handshakes(registry, "success", "true")).isEqualTo(2);
+  }
+
+  /**
+   * Start an HTTPS server that requires client certificates, but trusts any of them. If close is
+   * true, the server closes the connection after each response.
+   */
+  @SneakyThrows
+  private void startServer(boolean close, String protocol) {
+    KeyStore keyStore = KeyStore.getInstance("JKS");
+    try (InputStream in = getClass().getResourceAsStream("/test-server-keystore.jks")) {
+      keyStore.load(in, "secret".toCharArray());
+    }
+    KeyManagerFactory keyManagers =
+        KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+    keyManagers.init(keyStore, "secret".toCharArray());
+    SSLContext context = SSLContext.getInstance("TLS");
+    context.init(keyManagers.getKeyManagers(), new TrustManager[] {new TrustAll()}, null);
+    server = HttpsServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.setHttpsConfigurator(
+        new HttpsConfigurator(context) {
+          @Override
+          public void configure(HttpsParameters params) {
+            SSLParameters sslParameters = getSSLContext().getDefaultSSLParameters();
+            sslParameters.setNeedClientAuth(true);
+            if (protocol != null) {
+              sslParameters.setProtocols(new String[] {protocol});
+            }
+            params.setSSLParameters(sslParameters);
+          }
+        });
+    server.createContext(
+        "/hello/slow",
+        exchange -> {
+          slowRequestReceived.countDown();
+          try {
+            releaseSlowRequest.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          byte[] slow = "slow".getBytes(StandardCharsets.UTF_8);
+          exchange.sendResponseHeaders(200, slow.length);
+          exchange.getResponseBody().write(slow);
+          exchange.close();
+        });
+    server.createContext(
+        "/hello",
+        exchange -> {
+          serverSessions.add(((HttpsExchange) exchange).getSSLSession());
+          byte[] hello = "hello".getBytes(StandardCharsets.UTF_8);
+          if (close) {
+            exchange.getResponseHeaders().add("Connection", "close");
+          }
+          exchange.sendResponseHeaders(200, hello.length);
+          exchange.getResponseBody().write(hello);
+          exchange.close();
+        });
+    serverExecutor = Executors.newCachedThreadPool();
+    server.setExecutor(serverExecutor);
+    server.start();
+  }
+
+  private String url() {
+    return "https://localhost:" + server.getAddress().getPort() + "/hello";
+  }
+
+  @Test
+  public void errorDetailsAreEncryptedWhenKeyIsSet(CapturedOutput output) {
+    SecureRestTemplateConfig config =
+        new SecureRestTemplateConfig(
+            SslClientProperties.builder().enableClient(false).loggingEncryptionKey("shh").build());
+    RestTemplate rt = config.restTemplate(new RestTemplateBuilder());
+    MockRestServiceServer server = MockRestServiceServer.bindTo(rt).build();
+    server.expect(requestTo("http://fugazi.com/boom")).andRespond(withServerError().body("kaboom"));
+    HttpServerErrorException e =
+        assertThrows(
+            HttpServerErrorException.class,
+            () -> rt.getForEntity("http://fugazi.com/boom", String.class));
+    assertThat(e.getResponseBodyAsString()).isEqualTo("kaboom");
+    /* Failures are written in the background, until the configuration is destroyed. */
+    config.destroy();
+    String line =
+        output
+            .getOut()
+            .lines()
+            .filter(l -> l.contains("REQUEST FAILED: "))
+            .findFirst()
+            .orElseThrow();
+    String decrypted =
+        BasicEncryption.forKey("shh")
+            .decrypt(line.substring(line.indexOf("REQUEST FAILED: ") + 16).trim());
+    assertThat(decrypted).contains("http://fugazi.com/boom").contains("kaboom");
+  }
+
+  @Test
+  public void errorDetailsAreSuppressedWhenKeyIsNotSet(CapturedOutput output) {
+    RestTemplate rt = makeOne(SslClientProperties.builder().enableClient(false).build());
+    MockRestServiceServer server = MockRestServiceServer.bindTo(rt).build();
+    server.expect(requestTo("http://fugazi.com/boom")).andRespond(withServerError().body("kaboom"));
+    assertThrows(
+        HttpServerErrorException.class,
+        () -> rt.getForEntity("http://fugazi.com/boom", String.class));
+    assertThat(output.getOut())
+        .contains("please set the property ssl.logging-encryption-key")
+        .doesNotContain("kaboom");
+  }
+
   @Test
   @SneakyThrows
   public void errorAreLogged() {
@@ -183,4 +609,17 @@ public class SecureRestTemplateConfigTest {
           e.getMessage());
     }
   }
+
+  private static class TrustAll implements X509TrustManager {
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType) {}
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType) {}
+
+    @Override
+    public X509Certificate[] getAcceptedIssuers() {
+      return new X509Certificate[0];
+    }
+  }
 }
@@ -0,0 +1,295 @@
+package gov.va.api.health.autoconfig.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+public class SingleFlightInterceptorTest {
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+
+  private final ClientHttpRequestExecution execution = mock(ClientHttpRequestExecution.class);
+
+  private final CountDownLatch entered = new CountDownLatch(1);
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private final AtomicInteger calls = new AtomicInteger();
+
+  @SneakyThrows
+  private static void awaitWaiting(Thread thread) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    assertThat(thread.getState()).isEqualTo(Thread.State.WAITING);
+  }
+
+  @SneakyThrows
+  private static String body(ClientHttpResponse response) {
+    return StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8);
+  }
+
+  private static HttpHeaders headers(String... namesAndValues) {
+    HttpHeaders headers = new HttpHeaders();
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      headers.add(namesAndValues[i], namesAndValues[i + 1]);
+    }
+    return headers;
+  }
+
+  /** The first call blocks until released. Each call returns a body naming its number. */
+  @SneakyThrows
+  private void blockFirstCall(Exception failure) {
+    when(execution.execute(any(), any()))
+        .thenAnswer(
+            i -> {
+              int call = calls.incrementAndGet();
+              if (call == 1) {
+                entered.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                if (failure != null) {
+                  throw failure;
+                }
+              }
+              MockClientHttpResponse response =
+                  new MockClientHttpResponse(
+                      ("response " + call).getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+              response.getHeaders().set("X-Call", String.valueOf(call));
+              return response;
+            });
+  }
+
+  @Test
+  @SneakyThrows
+  public void concurrentIdenticalRequestsShareOneResponse() {
+    blockFirstCall(null);
+    SingleFlightInterceptor interceptor = interceptor(10, DataSize.ofKilobytes(1));
+    Call leader = new Call(interceptor, HttpMethod.GET, headers("Accept", "text/plain"));
+    assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+    List<Call> waiters =
+        List.of(
+            new Call(interceptor, HttpMethod.GET, headers("Accept", "text/plain", "X-Other", "1")),
+            new Call(interceptor, HttpMethod.GET, headers("Accept", "text/plain")),
+            new Call(interceptor, HttpMethod.GET, headers("Accept", "text/plain")));
+    waiters.forEach(w -> awaitWaiting(w.thread));
+    release.countDown();
+    ClientHttpResponse first = leader.response();
+    assertThat(body(first)).isEqualTo("response 1");
+    for (Call waiter : waiters) {
+      ClientHttpResponse response = waiter.response();
+      assertThat(body(response)).isEqualTo("response 1");
+      assertThat(response.getHeaders().getFirst("X-Call")).isEqualTo("1");
+      assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+      assertThat(response.getRawStatusCode()).isEqualTo(200);
+      assertThat(response.getStatusText()).isEqualTo("OK");
+      response.close();
+    }
+    verify(execution, times(1)).execute(any(), any());
+    assertThat(count("shared")).isEqualTo(3);
+    /* Completed requests are not reused. */
+    assertThat(body(send(interceptor, HttpMethod.GET, headers("Accept", "text/plain"))))
+        .isEqualTo("response 2");
+  }
+
+  private double count(String outcome) {
+    return registry.get(SingleFlightInterceptor.METRIC).tag("outcome", outcome).counter().count();
+  }
+
+  @Test
+  @SneakyThrows
+  public void differentRequestsAreNotShared() {
+    blockFirstCall(null);
+    SingleFlightInterceptor interceptor = interceptor(10, DataSize.ofKilobytes(1));
+    Call leader = new Call(interceptor, HttpMethod.GET, headers("Authorization", "Bearer one"));
+    assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(body(send(interceptor, HttpMethod.GET, headers("Authorization", "Bearer two"))))
+        .isEqualTo("response 2");
+    assertThat(body(send(interceptor, HttpMethod.HEAD, headers("Authorization", "Bearer one"))))
+        .isEqualTo("response 3");
+    assertThat(body(send(interceptor, HttpMethod.POST, headers("Authorization", "Bearer one"))))
+        .isEqualTo("response 4");
+    release.countDown();
+    assertThat(body(leader.response())).isEqualTo("response 1");
+  }
+
+  @Test
+  @SneakyThrows
+  public void failuresAreShared() {
+    blockFirstCall(new IOException("fugazi"));
+    SingleFlightInterceptor interceptor = interceptor(10, DataSize.ofKilobytes(1));
+    Call leader = new Call(interceptor, HttpMethod.GET, headers());
+    assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+    Call waiter = new Call(interceptor, HttpMethod.GET, headers());
+    awaitWaiting(waiter.thread);
+    release.countDown();
+    assertThat(leader.failure()).isInstanceOf(IOException.class).hasMessage("fugazi");
+    assertThat(waiter.failure())
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("fugazi")
+        .hasCauseInstanceOf(IOException.class);
+  }
+
+  @Test
+  @SneakyThrows
+  public void interruptedWaitersStopWaiting() {
+    blockFirstCall(null);
+    SingleFlightInterceptor interceptor = interceptor(10, DataSize.ofKilobytes(1));
+    Call leader = new Call(interceptor, HttpMethod.GET, headers());
+    assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+    Call waiter = new Call(interceptor, HttpMethod.GET, headers());
+    awaitWaiting(waiter.thread);
+    waiter.thread.interrupt();
+    assertThat(waiter.failure()).isInstanceOf(InterruptedIOException.class);
+    release.countDown();
+    assertThat(body(leader.response())).isEqualTo("response 1");
+  }
+
+  private SingleFlightInterceptor interceptor(int maxWaiters, DataSize maxBodySize) {
+    return SingleFlightInterceptor.builder()
+        .properties(
+            SingleFlightProperties.builder()
+                .maxWaiters(maxWaiters)
+                .maxBodySize(maxBodySize)
+                .build())
+        .meterRegistry(registry)
+        .build();
+  }
+
+  @Test
+  public void interceptorFollowsResponseCache() {
+    assertThat(interceptor(1, DataSize.ofBytes(1)).getOrder())
+        .isEqualTo(Ordered.HIGHEST_PRECEDENCE + 1);
+  }
+
+  @Test
+  @SneakyThrows
+  public void largeResponsesAreNotShared() {
+    blockFirstCall(null);
+    SingleFlightInterceptor interceptor = interceptor(10, DataSize.ofBytes(4));
+    Call leader = new Call(interceptor, HttpMethod.GET, headers());
+    assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+    Call waiter = new Call(interceptor, HttpMethod.GET, headers());
+    awaitWaiting(waiter.thread);
+    release.countDown();
+    ClientHttpResponse response = leader.response();
+    assertThat(body(response)).isEqualTo("response 1");
+    assertThat(response.getHeaders().getFirst("X-Call")).isEqualTo("1");
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(response.getRawStatusCode()).isEqualTo(200);
+    assertThat(response.getStatusText()).isEqualTo("OK");
+    response.close();
+    assertThat(body(waiter.response())).isEqualTo("response 2");
+    assertThat(count("not-shared")).isEqualTo(1);
+  }
+
+  @Test
+  @SneakyThrows
+  public void runtimeFailuresAreShared() {
+    blockFirstCall(new IllegalStateException("fugazi"));
+    SingleFlightInterceptor interceptor = interceptor(10, DataSize.ofKilobytes(1));
+    Call leader = new Call(interceptor, HttpMethod.GET, headers());
+    assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+    Call waiter = new Call(interceptor, HttpMethod.GET, headers());
+    awaitWaiting(waiter.thread);
+    release.countDown();
+    assertThat(leader.failure()).isInstanceOf(IllegalStateException.class);
+    assertThat(waiter.failure()).isInstanceOf(IllegalStateException.class);
+  }
+
+  @SneakyThrows
+  private ClientHttpResponse send(
+      SingleFlightInterceptor interceptor, HttpMethod method, HttpHeaders headers) {
+    MockClientHttpRequest request =
+        new MockClientHttpRequest(method, URI.create("http://a.com/metadata"));
+    request.getHeaders().putAll(headers);
+    return interceptor.intercept(request, new byte[0], execution);
+  }
+
+  @Test
+  @SneakyThrows
+  public void waitersAreCapped() {
+    blockFirstCall(null);
+    SingleFlightInterceptor interceptor = interceptor(1, DataSize.ofKilobytes(1));
+    Call leader = new Call(interceptor, HttpMethod.GET, headers());
+    assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+    Call waiter = new Call(interceptor, HttpMethod.GET, headers());
+    awaitWaiting(waiter.thread);
+    assertThat(body(send(interceptor, HttpMethod.GET, headers()))).isEqualTo("response 2");
+    assertThat(count("overflow")).isEqualTo(1);
+    release.countDown();
+    assertThat(body(leader.response())).isEqualTo("response 1");
+    assertThat(body(waiter.response())).isEqualTo("response 1");
+  }
+
+  @Test
+  @SneakyThrows
+  public void failureReadingLeaderResponseClosesIt() {
+    ClientHttpResponse broken = mock(ClientHttpResponse.class);
+    when(broken.getBody()).thenThrow(new IOException("fugazi"));
+    when(execution.execute(any(), any())).thenReturn(broken);
+    SingleFlightInterceptor interceptor = interceptor(1, DataSize.ofKilobytes(1));
+    assertThrows(IOException.class, () -> send(interceptor, HttpMethod.GET, headers()));
+    verify(broken).close();
+  }
+
+  /** A request sent on its own thread. */
+  private final class Call {
+    private final CompletableFuture<ClientHttpResponse> result = new CompletableFuture<>();
+
+    private final Thread thread;
+
+    Call(SingleFlightInterceptor interceptor, HttpMethod method, HttpHeaders headers) {
+      thread =
+          new Thread(
+              () -> {
+                try {
+                  result.complete(send(interceptor, method, headers));
+                } catch (Throwable e) {
+                  result.completeExceptionally(e);
+                }
+              });
+      thread.start();
+    }
+
+    @SneakyThrows
+    Throwable failure() {
+      ExecutionException e =
+          assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+      return e.getCause();
+    }
+
+    @SneakyThrows
+    ClientHttpResponse response() {
+      return result.get(5, TimeUnit.SECONDS);
+    }
+  }
+}
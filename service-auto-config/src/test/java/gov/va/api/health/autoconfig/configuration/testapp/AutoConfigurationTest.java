@@ -1,6 +1,9 @@
 package gov.va.api.health.autoconfig.configuration.testapp;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import gov.va.api.health.autoconfig.configuration.JacksonConfig;
+import gov.va.api.health.autoconfig.logging.MethodExecutionLogger;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -26,6 +29,12 @@ public class AutoConfigurationTest {
         RuntimeException.class, () -> rest.getForEntity("/boom?kaboom=kapow", Fugazi.class));
   }
 
+  @Test
+  public void currentIdIsAvailableToLoggableMethods() {
+    assertThat(component.currentId()).isNotBlank();
+    assertThat(MethodExecutionLogger.currentId()).isEmpty();
+  }
+
   @Test
   public void jacksonIsEnabled() {
     log.info("{}", Fugazi.FugaziBuilder.class.getName());
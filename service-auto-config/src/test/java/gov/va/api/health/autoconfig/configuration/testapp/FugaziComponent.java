@@ -1,6 +1,7 @@
 package gov.va.api.health.autoconfig.configuration.testapp;
 
 import gov.va.api.health.autoconfig.logging.Loggable;
+import gov.va.api.health.autoconfig.logging.MethodExecutionLogger;
 import gov.va.api.health.autoconfig.logging.Redact;
 import java.time.Instant;
 import org.springframework.stereotype.Component;
@@ -8,6 +9,10 @@ import org.springframework.stereotype.Component;
 @Component
 @Loggable
 public class FugaziComponent {
+  public String currentId() {
+    return MethodExecutionLogger.currentId().orElse(null);
+  }
+
   public Instant now() {
     return Instant.now();
   }
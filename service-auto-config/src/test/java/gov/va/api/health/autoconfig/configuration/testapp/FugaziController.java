@@ -3,7 +3,12 @@ package gov.va.api.health.autoconfig.configuration.testapp;
 import gov.va.api.health.autoconfig.configuration.testapp.Fugazi.CustomBuilder;
 import gov.va.api.health.autoconfig.configuration.testapp.Fugazi.Specified;
 import gov.va.api.health.autoconfig.logging.Redact;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.SneakyThrows;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -11,6 +16,9 @@ import org.springframework.web.bind.annotation.RestController;
 @SuppressWarnings("WeakerAccess")
 @RestController
 public class FugaziController {
+  static final AtomicInteger SLOW_ACTIVE = new AtomicInteger();
+
+  static final AtomicInteger SLOW_MAX_ACTIVE = new AtomicInteger();
 
   @Autowired FugaziComponent fuz;
 
@@ -20,6 +28,13 @@ public class FugaziController {
     throw new RuntimeException("FUGAZI " + fuz.now() + " " + kaboom);
   }
 
+  @GetMapping(path = "/cached")
+  public ResponseEntity<String> cached() {
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.maxAge(Duration.ofMinutes(1)))
+        .body("Cached " + fuz.now());
+  }
+
   @GetMapping(path = "/hello")
   public Fugazi hello() {
     return Fugazi.builder()
@@ -30,6 +45,18 @@ public class FugaziController {
         .build();
   }
 
+  @GetMapping(path = "/slow")
+  @SneakyThrows
+  public String slow(@RequestParam(name = "millis") long millis) {
+    SLOW_MAX_ACTIVE.accumulateAndGet(SLOW_ACTIVE.incrementAndGet(), Math::max);
+    try {
+      Thread.sleep(millis);
+      return "Slow " + millis;
+    } finally {
+      SLOW_ACTIVE.decrementAndGet();
+    }
+  }
+
   @GetMapping(path = "/say-hi")
   public String sayHi(
       @RequestParam("name") String name,
@@ -0,0 +1,71 @@
+package gov.va.api.health.autoconfig.configuration.testapp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gov.va.api.health.autoconfig.rest.PathRewriteFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.TestPropertySource;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {"ssl.enable-client=false"})
+@ExtendWith(OutputCaptureExtension.class)
+public class PathRewriteFilterIntegrationTest {
+  @Autowired TestRestTemplate rest;
+
+  private static FilterRegistrationBean<PathRewriteFilter> registration(
+      String prefix, boolean rewriteInPlace) {
+    var filter =
+        PathRewriteFilter.builder()
+            .removeLeadingPath(prefix)
+            .rewriteInPlace(rewriteInPlace)
+            .build();
+    var registration = new FilterRegistrationBean<>(filter);
+    registration.setName(prefix);
+    registration.addUrlPatterns(filter.removeLeadingPathsAsUrlPatterns());
+    return registration;
+  }
+
+  @Test
+  public void forwardedRequestsAreMapped(CapturedOutput output) {
+    var response =
+        rest.getForEntity("/forwarded/say-hi?name=fwd&secret=s&alsoSecret=a", String.class);
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(response.getBody()).isEqualTo("fwd:s");
+    assertThat(output.getOut()).contains("\"request\":\"/say-hi?name=fwd,secret=***");
+  }
+
+  @Test
+  public void requestsRewrittenInPlaceAreMapped(CapturedOutput output) {
+    var response =
+        rest.getForEntity("/wrapped/say-hi?name=wrap&secret=s&alsoSecret=a", String.class);
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(response.getBody()).isEqualTo("wrap:s");
+    assertThat(output.getOut())
+        .contains("\"request\":\"/say-hi?name=wrap,secret=***")
+        .doesNotContain("\"request\":\"/wrapped/");
+  }
+
+  @TestConfiguration
+  static class PathRewriteConfig {
+    @Bean
+    FilterRegistrationBean<PathRewriteFilter> forwardingFilter() {
+      return registration("/forwarded/", false);
+    }
+
+    @Bean
+    FilterRegistrationBean<PathRewriteFilter> wrappingFilter() {
+      return registration("/wrapped/", true);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package gov.va.api.health.autoconfig.configuration.testapp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource(
+    properties = {
+      "ssl.enable-client=false",
+      "resilience.enabled=true",
+      "resilience.destinations.[127.0.0.1].failure-rate-threshold=100",
+      "resilience.destinations.[127.0.0.1].minimum-requests=2",
+      "resilience.destinations.[127.0.0.1].open-duration=5m"
+    })
+public class ResilienceIntegrationTest {
+  @Autowired RestTemplate restTemplate;
+
+  @LocalServerPort int port;
+
+  @Test
+  public void failingDestinationIsRejectedWithoutBeingCalled() {
+    String boom = "http://127.0.0.1:" + port + "/boom";
+    for (int i = 0; i < 2; i++) {
+      var e =
+          assertThrows(
+              HttpServerErrorException.class, () -> restTemplate.getForObject(boom, String.class));
+      assertThat(e.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+    var e =
+        assertThrows(
+            HttpServerErrorException.class,
+            () -> restTemplate.getForObject("http://127.0.0.1:" + port + "/hello", String.class));
+    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    assertThat(e.getResponseHeaders().getFirst("X-Fast-Fail")).isEqualTo("circuit-open");
+    assertThat(restTemplate.getForObject("http://localhost:" + port + "/hello", String.class))
+        .contains("Howdy");
+  }
+}
@@ -0,0 +1,57 @@
+package gov.va.api.health.autoconfig.configuration.testapp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.client.RestTemplate;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource(
+    properties = {
+      "ssl.enable-client=false",
+      "resilience.enabled=true",
+      "resilience.destinations.[127.0.0.1].max-concurrent-requests=1",
+      "resilience.destinations.[127.0.0.1].max-wait=0ms",
+      "retry.enabled=true",
+      "retry.hedge.enabled=true",
+      "retry.hedge.percentile=50",
+      "retry.hedge.minimum-samples=1",
+      "retry.hedge.minimum-delay=1ms"
+    })
+public class ResilientRetryIntegrationTest {
+  @Autowired RestTemplate restTemplate;
+
+  @Autowired MeterRegistry meterRegistry;
+
+  @LocalServerPort int port;
+
+  @Test
+  public void hedgesAreLimitedByTheBulkhead() {
+    String slow = "http://127.0.0.1:" + port + "/slow?millis=";
+    assertThat(restTemplate.getForObject(slow + 1, String.class)).isEqualTo("Slow 1");
+    FugaziController.SLOW_MAX_ACTIVE.set(0);
+    assertThat(restTemplate.getForObject(slow + 500, String.class)).isEqualTo("Slow 500");
+    assertThat(FugaziController.SLOW_MAX_ACTIVE.get()).isEqualTo(1);
+    assertThat(
+            meterRegistry
+                .get("http.client.resilience.rejected")
+                .tag("destination", "127.0.0.1")
+                .tag("reason", "bulkhead-full")
+                .counter()
+                .count())
+        .isEqualTo(1);
+    assertThat(
+            meterRegistry
+                .get("http.client.bulkhead.active")
+                .tag("destination", "127.0.0.1")
+                .gauge()
+                .value())
+        .isZero();
+  }
+}
@@ -0,0 +1,49 @@
+package gov.va.api.health.autoconfig.configuration.testapp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.client.RestTemplate;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource(
+    properties = {
+      "ssl.enable-client=false",
+      "response-cache.enabled=true",
+      "single-flight.enabled=true",
+      "resilience.enabled=true",
+      "retry.enabled=true"
+    })
+public class ResponseCacheIntegrationTest {
+  @Autowired RestTemplate restTemplate;
+
+  @Autowired MeterRegistry meterRegistry;
+
+  @LocalServerPort int port;
+
+  @Test
+  public void cacheableResponsesAreReused() {
+    String url = "http://localhost:" + port + "/cached";
+    String first = restTemplate.getForObject(url, String.class);
+    assertThat(first).startsWith("Cached ");
+    assertThat(restTemplate.getForObject(url, String.class)).isEqualTo(first);
+    assertThat(
+            meterRegistry.get("http.client.cache.requests").tag("result", "hit").counter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void interceptorsAreOrdered() {
+    assertThat(restTemplate.getInterceptors())
+        .extracting(i -> i.getClass().getSimpleName())
+        .startsWith("ResponseCacheInterceptor", "SingleFlightInterceptor")
+        .doesNotContain("ResilienceInterceptor", "HttpClientMetricsInterceptor")
+        .endsWith("AttemptChain");
+  }
+}
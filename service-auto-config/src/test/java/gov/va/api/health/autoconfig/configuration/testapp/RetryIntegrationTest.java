@@ -0,0 +1,54 @@
+package gov.va.api.health.autoconfig.configuration.testapp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource(
+    properties = {
+      "ssl.enable-client=false",
+      "retry.enabled=true",
+      "retry.retryable-statuses=500",
+      "retry.base-backoff=1ms",
+      "retry.max-backoff=5ms",
+      "retry.hedge.enabled=true"
+    })
+public class RetryIntegrationTest {
+  @Autowired RestTemplate restTemplate;
+
+  @Autowired MeterRegistry meterRegistry;
+
+  @LocalServerPort int port;
+
+  @Test
+  public void failedGetsAreRetried() {
+    var e =
+        assertThrows(
+            HttpServerErrorException.class,
+            () ->
+                restTemplate.getForObject(
+                    "http://127.0.0.1:" + port + "/boom?kaboom=retry", String.class));
+    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+    assertThat(
+            meterRegistry
+                .get("http.client.retries")
+                .tag("destination", "127.0.0.1")
+                .tag("outcome", "retried")
+                .counter()
+                .count())
+        .isEqualTo(2);
+    assertThat(restTemplate.getForObject("http://127.0.0.1:" + port + "/hello", String.class))
+        .contains("Howdy");
+  }
+}
@@ -0,0 +1,64 @@
+package gov.va.api.health.autoconfig.encryption;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.apache.commons.lang3.ArrayUtils;
+
+/**
+ * Rough benchmark comparing BasicEncryption to encryption that derives the key and looks up the
+ * cipher and random number generator on every call, as was previously done.
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes:$CLASSPATH \
+ *   gov.va.api.health.autoconfig.encryption.BasicEncryptionBenchmark [iterations]
+ * </pre>
+ */
+public class BasicEncryptionBenchmark {
+  private static final String KEY = "benchmark";
+
+  private static final String PAYLOAD = "{\"request\":{},\"response\":{}}".repeat(32);
+
+  /** Run both implementations, warming each up first. */
+  public static void main(String[] args) throws Exception {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+    BasicEncryption cached = BasicEncryption.forKey(KEY);
+    for (int round = 0; round < 3; round++) {
+      long uncachedNanos = time(iterations, BasicEncryptionBenchmark::encryptUncached);
+      long cachedNanos = time(iterations, cached::encrypt);
+      System.out.printf(
+          "round %d: uncached %,d ns/op, cached %,d ns/op%n",
+          round, uncachedNanos / iterations, cachedNanos / iterations);
+    }
+  }
+
+  private static long time(int iterations, Encrypter encrypter) throws Exception {
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      encrypter.encrypt(PAYLOAD);
+    }
+    return System.nanoTime() - start;
+  }
+
+  private static String encryptUncached(String plainText) throws Exception {
+    Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+    digest.update(KEY.getBytes(StandardCharsets.UTF_8));
+    SecretKeySpec key = new SecretKeySpec(digest.digest(), "AES");
+    SecureRandom secureRandom = SecureRandom.getInstance("SHA1PRNG");
+    byte[] iv = new byte[cipher.getBlockSize()];
+    secureRandom.nextBytes(iv);
+    cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, iv));
+    byte[] enBytes = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+    return Base64.getEncoder().encodeToString(ArrayUtils.addAll(iv, enBytes));
+  }
+
+  @FunctionalInterface
+  private interface Encrypter {
+    String encrypt(String plainText) throws Exception;
+  }
+}
@@ -1,11 +1,59 @@
 package gov.va.api.health.autoconfig.encryption;
 
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.crypto.AEADBadTagException;
+import lombok.SneakyThrows;
 import org.junit.jupiter.api.Test;
 
 public class BasicEncryptionTest {
 
+  @Test
+  @SneakyThrows
+  void concurrentUseIsSafe() {
+    BasicEncryption e = BasicEncryption.forKey("foobar");
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Callable<Boolean>> tasks =
+          IntStream.range(0, 200)
+              .mapToObj(
+                  i ->
+                      (Callable<Boolean>)
+                          () -> {
+                            String og = "message " + i;
+                            return og.equals(e.decrypt(e.encrypt(og)));
+                          })
+              .collect(Collectors.toList());
+      for (Future<Boolean> f : pool.invokeAll(tasks)) {
+        assertThat(f.get()).isTrue();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  void differentInstancesWithTheSameKeyAreCompatible() {
+    String og = "The quick brown fox jumped over the lazy dog.";
+    String encrypted = BasicEncryption.forKey("foobar").encrypt(og);
+    assertThat(BasicEncryption.forKey("foobar").decrypt(encrypted)).isEqualTo(og);
+  }
+
   @Test
   void encrypterRoundTrip() {
     String og = "The quick brown fox jumped over the lazy dog.";
@@ -14,4 +62,56 @@ public class BasicEncryptionTest {
     assertThat(encrypted).isNotEqualTo(og);
     assertThat(e.decrypt(encrypted).equals(og));
   }
+
+  @Test
+  void encryptionUsesUniqueInitializationVectors() {
+    BasicEncryption e = BasicEncryption.forKey("foobar");
+    assertThat(e.encrypt("same")).isNotEqualTo(e.encrypt("same"));
+  }
+
+  @Test
+  @SneakyThrows
+  void streamsAreCompatibleWithStrings() {
+    BasicEncryption e = BasicEncryption.forKey("foobar");
+    String og = "The quick brown fox jumped over the lazy dog. ".repeat(1000);
+    ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+    try (OutputStream out = e.encryptingOutputStream(encrypted)) {
+      out.write(og.getBytes(UTF_8));
+    }
+    assertThat(e.decrypt(encrypted.toString(US_ASCII))).isEqualTo(og);
+    try (InputStream in =
+        e.decryptingInputStream(new ByteArrayInputStream(e.encrypt(og).getBytes(US_ASCII)))) {
+      assertThat(new String(in.readAllBytes(), UTF_8)).isEqualTo(og);
+    }
+  }
+
+  @Test
+  void truncatedStreamCannotBeDecrypted() {
+    assertThrows(
+        IOException.class,
+        () ->
+            BasicEncryption.forKey("foobar")
+                .decryptingInputStream(new ByteArrayInputStream("AAAA".getBytes(UTF_8))));
+  }
+
+  @Test
+  void wrongKeyCannotDecryptStream() {
+    String encrypted = BasicEncryption.forKey("foobar").encrypt("secret stuff");
+    assertThrows(
+        IOException.class,
+        () -> {
+          try (InputStream in =
+              BasicEncryption.forKey("nope")
+                  .decryptingInputStream(new ByteArrayInputStream(encrypted.getBytes(UTF_8)))) {
+            in.readAllBytes();
+          }
+        });
+  }
+
+  @Test
+  void wrongKeyCannotDecrypt() {
+    String encrypted = BasicEncryption.forKey("foobar").encrypt("secret stuff");
+    assertThrows(
+        AEADBadTagException.class, () -> BasicEncryption.forKey("nope").decrypt(encrypted));
+  }
 }
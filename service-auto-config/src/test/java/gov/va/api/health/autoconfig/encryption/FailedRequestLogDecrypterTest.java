@@ -0,0 +1,129 @@
+package gov.va.api.health.autoconfig.encryption;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FailedRequestLogDecrypterTest {
+  private static final BasicEncryption ENCRYPTION = BasicEncryption.forKey("shanktopus");
+
+  @TempDir Path tempDir;
+
+  private static String logs() {
+    return String.join(
+        "\n",
+        "12:00:00 INFO GET http://fugazi.com/ok",
+        "12:00:01 ERROR REQUEST FAILED: " + ENCRYPTION.encrypt("{\"uri\":\"/boom\"}"),
+        "12:00:02 ERROR REQUEST FAILED: For more information, please set the property.",
+        "12:00:03 ERROR REQUEST FAILED: " + ENCRYPTION.encrypt("plain \"text\"\n\t\u0001ok"),
+        "12:00:04 ERROR REQUEST FAILED: " + BasicEncryption.forKey("nope").encrypt("{}"),
+        "12:00:05 ERROR REQUEST FAILED: ");
+  }
+
+  @Test
+  void badArgumentsAreRejected() {
+    assertThat(run(new String[] {"--threads", "x"}, "k", "").status).isEqualTo(2);
+    assertThat(run(new String[] {"--key"}, null, "").status).isEqualTo(2);
+    assertThat(run(new String[] {}, null, "").status).isEqualTo(2);
+    assertThat(run(new String[] {}, " ", "").status).isEqualTo(2);
+  }
+
+  @Test
+  void malformedFailuresAreWrittenAsText() {
+    String input =
+        String.join(
+            "\n",
+            "REQUEST FAILED: " + ENCRYPTION.encrypt("{not json}"),
+            "REQUEST FAILED: " + ENCRYPTION.encrypt("{\"a\":1} {\"b\":2}"));
+    Result result = run(new String[0], "shanktopus", input);
+    assertThat(result.status).isEqualTo(0);
+    assertThat(result.out.lines().collect(Collectors.toList()))
+        .containsExactly(
+            "{\"source\":\"-\",\"line\":1,\"log\":\"\",\"text\":\"{not json}\"}",
+            "{\"source\":\"-\",\"line\":2,\"log\":\"\",\"text\":\"{\\\"a\\\":1} {\\\"b\\\":2}\"}");
+  }
+
+  @Test
+  void manyLinesAreWrittenInOrder() {
+    String input =
+        IntStream.range(0, 2000)
+            .mapToObj(i -> "REQUEST FAILED: " + ENCRYPTION.encrypt("{\"n\":" + i + "}"))
+            .collect(Collectors.joining("\n"));
+    Result result = run(new String[] {"--threads", "1"}, "shanktopus", input);
+    assertThat(result.status).isEqualTo(0);
+    List<String> lines = result.out.lines().collect(Collectors.toList());
+    assertThat(lines).hasSize(2000);
+    for (int i = 0; i < lines.size(); i++) {
+      assertThat(lines.get(i)).endsWith("\"failure\":{\"n\":" + i + "}}");
+    }
+  }
+
+  @Test
+  void matchingLinesAreDecryptedFromStandardIn() {
+    Result result = run(new String[] {"--key", "shanktopus", "-"}, null, logs());
+    assertThat(result.status).isEqualTo(0);
+    assertThat(result.out.lines().collect(Collectors.toList()))
+        .containsExactly(
+            "{\"source\":\"-\",\"line\":2,\"log\":\"12:00:01 ERROR\","
+                + "\"failure\":{\"uri\":\"/boom\"}}",
+            "{\"source\":\"-\",\"line\":4,\"log\":\"12:00:03 ERROR\","
+                + "\"text\":\"plain \\\"text\\\"\\n\\t\\u0001ok\"}",
+            "{\"source\":\"-\",\"line\":5,\"log\":\"12:00:04 ERROR\","
+                + "\"error\":\"AEADBadTagException: Tag mismatch!\"}");
+  }
+
+  @Test
+  @SneakyThrows
+  void matchingLinesAreDecryptedFromFiles() {
+    Path log = tempDir.resolve("app.log");
+    Files.writeString(log, logs());
+    Result result = run(new String[] {log.toString()}, "shanktopus", "");
+    assertThat(result.status).isEqualTo(0);
+    assertThat(result.out.lines()).hasSize(3).allMatch(l -> l.contains(log.toString()));
+  }
+
+  @Test
+  void missingFileIsReported() {
+    Result result = run(new String[] {tempDir.resolve("nope.log").toString()}, "k", "");
+    assertThat(result.status).isEqualTo(1);
+    assertThat(result.err).startsWith("Failed to process logs");
+  }
+
+  private Result run(String[] args, String key, String stdin) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    int status =
+        FailedRequestLogDecrypter.run(
+            args,
+            key,
+            new ByteArrayInputStream(stdin.getBytes(UTF_8)),
+            new PrintStream(out, true, UTF_8),
+            new PrintStream(err, true, UTF_8));
+    return new Result(status, out.toString(UTF_8), err.toString(UTF_8));
+  }
+
+  private static class Result {
+    final int status;
+
+    final String out;
+
+    final String err;
+
+    Result(int status, String out, String err) {
+      this.status = status;
+      this.out = out;
+      this.err = err;
+    }
+  }
+}
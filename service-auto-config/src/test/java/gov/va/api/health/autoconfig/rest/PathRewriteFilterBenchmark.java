@@ -0,0 +1,111 @@
+package gov.va.api.health.autoconfig.rest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * Rough benchmark comparing the prefix trie used by PathRewriteFilter to a linear startsWith scan
+ * of the same prefixes, as was previously done. It also compares the single combined matcher used
+ * for rewrite rules to evaluating each rule's pattern separately, as separate filters would.
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes:$CLASSPATH \
+ *   gov.va.api.health.autoconfig.rest.PathRewriteFilterBenchmark [prefixes] [iterations]
+ * </pre>
+ */
+public class PathRewriteFilterBenchmark {
+  /** Run both implementations, warming each up first. */
+  public static void main(String[] args) {
+    int prefixCount = args.length > 0 ? Integer.parseInt(args[0]) : 48;
+    int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+    List<String> prefixes = new ArrayList<>(prefixCount);
+    for (int i = 0; i < prefixCount; i++) {
+      prefixes.add("/services/tenant-" + i + "/fhir/v0/");
+    }
+    String[] paths = {
+      "/services/tenant-0/fhir/v0/r4/Patient/123",
+      "/services/tenant-" + (prefixCount - 1) + "/fhir/v0/r4/Patient/123",
+      "/services/tenant-" + (prefixCount / 2) + "/fhir/v0/dstu2/Observation",
+      "/r4/Patient/123"
+    };
+    PrefixTrie trie = PrefixTrie.of(prefixes);
+    for (int round = 0; round < 3; round++) {
+      long start = System.nanoTime();
+      int matches = 0;
+      for (int i = 0; i < iterations; i++) {
+        if (linearScan(prefixes, paths[i & 3]) != null) {
+          matches++;
+        }
+      }
+      long linearNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        if (trie.longestPrefixOf(paths[i & 3]) != null) {
+          matches++;
+        }
+      }
+      long trieNanos = System.nanoTime() - start;
+      System.out.printf(
+          "round %d: %d prefixes, linear %d ns/op, trie %d ns/op (%d matches)%n",
+          round, prefixCount, linearNanos / iterations, trieNanos / iterations, matches);
+    }
+    benchmarkRules(prefixCount / 4, iterations / 4);
+  }
+
+  private static void benchmarkRules(int ruleCount, int iterations) {
+    List<RewriteRule> rules = new ArrayList<>(ruleCount);
+    List<Pattern> separate = new ArrayList<>(ruleCount);
+    for (int i = 0; i < ruleCount; i++) {
+      RewriteRule rule = RewriteRule.template("/{tenant}/fhir/v" + i + "/r4/", "/r4/");
+      rules.add(rule);
+      separate.add(Pattern.compile(rule.regex()));
+    }
+    RewriteRules combined = RewriteRules.of(rules, "benchmark.");
+    String[] paths = {
+      "/tenant/fhir/v0/r4/Patient/123",
+      "/tenant/fhir/v" + (ruleCount - 1) + "/r4/Patient/123",
+      "/tenant/fhir/v" + (ruleCount / 2) + "/r4/Observation",
+      "/r4/Patient/123"
+    };
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    for (int round = 0; round < 3; round++) {
+      long start = System.nanoTime();
+      int matches = 0;
+      for (int i = 0; i < iterations; i++) {
+        for (Pattern pattern : separate) {
+          Matcher matcher = pattern.matcher(paths[i & 3]);
+          if (matcher.lookingAt()) {
+            request.setAttribute("benchmark.tenant", matcher.group("tenant"));
+            if (("/r4/" + paths[i & 3].substring(matcher.end())) != null) {
+              matches++;
+            }
+            break;
+          }
+        }
+      }
+      long separateNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        if (combined.rewrite(paths[i & 3], request) != null) {
+          matches++;
+        }
+      }
+      long combinedNanos = System.nanoTime() - start;
+      System.out.printf(
+          "round %d: %d rules, separate %d ns/op, combined %d ns/op (%d matches)%n",
+          round, ruleCount, separateNanos / iterations, combinedNanos / iterations, matches);
+    }
+  }
+
+  private static String linearScan(List<String> prefixes, String uri) {
+    for (String prefix : prefixes) {
+      if (uri.startsWith(prefix)) {
+        return prefix;
+      }
+    }
+    return null;
+  }
+}
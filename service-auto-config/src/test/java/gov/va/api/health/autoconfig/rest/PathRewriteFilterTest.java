@@ -1,20 +1,26 @@
 package gov.va.api.health.autoconfig.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import javax.servlet.FilterChain;
 import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
 
 @ExtendWith(MockitoExtension.class)
 class PathRewriteFilterTest {
@@ -38,6 +44,103 @@ class PathRewriteFilterTest {
     verifyNoInteractions(chain);
   }
 
+  @Test
+  @SneakyThrows
+  void longestMatchingPathIsStrippedRegardlessOfOrder() {
+    when(request.getRequestURI()).thenReturn("/killme/now/ok");
+    when(request.getRequestDispatcher(anyString())).thenReturn(dispatcher);
+
+    var filter =
+        PathRewriteFilter.builder()
+            .removeLeadingPath("/killme/")
+            .removeLeadingPath("/killme/now/")
+            .removeLeadingPath("/kill/")
+            .build();
+    filter.doFilter(request, response, chain);
+    verify(request).getRequestDispatcher("/ok");
+    verifyNoInteractions(chain);
+  }
+
+  @Test
+  @SneakyThrows
+  void matchingPathIsRewrittenInPlace() {
+    var original = new MockHttpServletRequest("GET", "/killme/ok");
+    original.setServletPath("/killme/ok");
+    var filter =
+        PathRewriteFilter.builder().removeLeadingPath("/killme/").rewriteInPlace(true).build();
+    filter.doFilter(original, response, chain);
+    ArgumentCaptor<ServletRequest> rewritten = ArgumentCaptor.forClass(ServletRequest.class);
+    verify(chain).doFilter(rewritten.capture(), eq(response));
+    var actual = (HttpServletRequest) rewritten.getValue();
+    assertThat(actual.getRequestURI()).isEqualTo("/ok");
+    assertThat(actual.getServletPath()).isEqualTo("/ok");
+    assertThat(actual.getPathInfo()).isNull();
+    assertThat(actual.getRequestURL().toString()).isEqualTo("http://localhost/ok");
+  }
+
+  @Test
+  void rewrittenRequestAdjustsPathInfoWhenServletIsMappedToAPath() {
+    var original = new MockHttpServletRequest("GET", "/app/killme/api/ok");
+    original.setContextPath("/app");
+    original.setServletPath("/killme");
+    original.setPathInfo("/api/ok");
+    var actual = new PathRewriteFilter.RewrittenRequest(original, "/app/api/ok");
+    assertThat(actual.getRequestURI()).isEqualTo("/app/api/ok");
+    assertThat(actual.getServletPath()).isEqualTo("/api/ok");
+    assertThat(actual.getPathInfo()).isNull();
+    original.setServletPath("/api");
+    actual = new PathRewriteFilter.RewrittenRequest(original, "/app/api/ok");
+    assertThat(actual.getServletPath()).isEqualTo("/api");
+    assertThat(actual.getPathInfo()).isEqualTo("/ok");
+    actual = new PathRewriteFilter.RewrittenRequest(original, "/app/api");
+    assertThat(actual.getServletPath()).isEqualTo("/api");
+    assertThat(actual.getPathInfo()).isNull();
+    assertThat(actual.getRequestURL().toString()).isEqualTo("http://localhost/app/api");
+  }
+
+  @Test
+  void rewrittenRequestToleratesMissingRequestUrl() {
+    var original = mock(HttpServletRequest.class);
+    var actual = new PathRewriteFilter.RewrittenRequest(original, "/ok");
+    assertThat(actual.getRequestURL()).isNull();
+    when(original.getRequestURI()).thenReturn("/nope");
+    when(original.getRequestURL()).thenReturn(new StringBuffer("http://localhost/other"));
+    assertThat(actual.getRequestURL().toString()).isEqualTo("http://localhost/other");
+  }
+
+  @Test
+  @SneakyThrows
+  void leadingPathsAreCheckedBeforeRules() {
+    when(request.getRequestURI()).thenReturn("/killme/fhir/v0/r4/ok");
+    when(request.getRequestDispatcher(anyString())).thenReturn(dispatcher);
+
+    var filter =
+        PathRewriteFilter.builder()
+            .removeLeadingPath("/killme/")
+            .rewriteRule(RewriteRule.template("/{tenant}/fhir/v0/r4/", "/r4/"))
+            .build();
+    filter.doFilter(request, response, chain);
+    verify(request).getRequestDispatcher("/fhir/v0/r4/ok");
+  }
+
+  @Test
+  @SneakyThrows
+  void matchingRuleIsRewrittenWithAttributes() {
+    var original = new MockHttpServletRequest("GET", "/shanktopus/fhir/v0/r4/Patient");
+    var filter =
+        PathRewriteFilter.builder()
+            .rewriteRule(RewriteRule.template("/{tenant}/fhir/v0/r4/", "/r4/"))
+            .rewriteInPlace(true)
+            .build();
+    filter.doFilter(original, response, chain);
+    ArgumentCaptor<ServletRequest> rewritten = ArgumentCaptor.forClass(ServletRequest.class);
+    verify(chain).doFilter(rewritten.capture(), eq(response));
+    var actual = (HttpServletRequest) rewritten.getValue();
+    assertThat(actual.getRequestURI()).isEqualTo("/r4/Patient");
+    assertThat(actual.getAttribute(PathRewriteFilter.ATTRIBUTE_PREFIX + "tenant"))
+        .isEqualTo("shanktopus");
+  }
+
   @Test
   void noSlashNoService() {
     assertThrows(
@@ -0,0 +1,31 @@
+package gov.va.api.health.autoconfig.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PrefixTrieTest {
+  PrefixTrie trie = PrefixTrie.of(List.of("/a/", "/a/b/c/", "/a/b/", "/x/y/"));
+
+  @Test
+  void emptyTrieMatchesNothing() {
+    assertThat(PrefixTrie.of(List.of()).longestPrefixOf("/a/b")).isNull();
+  }
+
+  @Test
+  void longestPrefixWins() {
+    assertThat(trie.longestPrefixOf("/a/ok")).isEqualTo("/a/");
+    assertThat(trie.longestPrefixOf("/a/b/ok")).isEqualTo("/a/b/");
+    assertThat(trie.longestPrefixOf("/a/b/c/ok")).isEqualTo("/a/b/c/");
+    assertThat(trie.longestPrefixOf("/a/b/cc/ok")).isEqualTo("/a/b/");
+  }
+
+  @Test
+  void partialPrefixesDoNotMatch() {
+    assertThat(trie.longestPrefixOf("/x/y")).isNull();
+    assertThat(trie.longestPrefixOf("/x/ok")).isNull();
+    assertThat(trie.longestPrefixOf("/ab/ok")).isNull();
+    assertThat(trie.longestPrefixOf("")).isNull();
+  }
+}
@@ -0,0 +1,105 @@
+package gov.va.api.health.autoconfig.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+class RewriteRulesTest {
+  MockHttpServletRequest request = new MockHttpServletRequest();
+
+  @Test
+  void backReferencesAreRenamed() {
+    var rules =
+        RewriteRules.of(
+            List.of(
+                RewriteRule.regex("/(?<id>[a-z]+)/", "/nope/"),
+                RewriteRule.regex("/(?<x>[a-z]+)-\\k<x>/", "/{x}/")),
+            "a.");
+    assertThat(rules.rewrite("/ab-ab/ok", request)).isEqualTo("/ab/ok");
+    assertThat(rules.rewrite("/ab-cd/ok", request)).isNull();
+    assertThat(rules.rewrite("/ab-cd/ok", request)).isNull();
+  }
+
+  @Test
+  void capturedValuesAreRequestAttributes() {
+    var rules =
+        RewriteRules.of(List.of(RewriteRule.template("/{tenant}/fhir/v0/r4/", "/r4/")), "a.");
+    assertThat(rules.rewrite("/shanktopus/fhir/v0/r4/Patient/1", request))
+        .isEqualTo("/r4/Patient/1");
+    assertThat(request.getAttribute("a.tenant")).isEqualTo("shanktopus");
+  }
+
+  @Test
+  void firstMatchingRuleWins() {
+    var rules =
+        RewriteRules.of(
+            List.of(
+                RewriteRule.template("/{tenant}/fhir/v0/dstu2/", "/dstu2/"),
+                RewriteRule.regex("/(?<tenant>[^/]+)/fhir/v0/(?<version>r4|stu3)/", "/{version}/"),
+                RewriteRule.template("/{tenant}/fhir/v0/{version}/", "/other/")),
+            "a.");
+    assertThat(rules.rewrite("/t1/fhir/v0/dstu2/Patient", request)).isEqualTo("/dstu2/Patient");
+    assertThat(rules.rewrite("/t2/fhir/v0/r4/Patient", request)).isEqualTo("/r4/Patient");
+    assertThat(request.getAttribute("a.version")).isEqualTo("r4");
+    assertThat(rules.rewrite("/t3/fhir/v0/r5/Patient", request)).isEqualTo("/other/Patient");
+    assertThat(request.getAttribute("a.tenant")).isEqualTo("t3");
+    assertThat(rules.rewrite("/t3/fhir/v1/r4/Patient", request)).isNull();
+  }
+
+  @Test
+  void invalidRulesAreRejected() {
+    assertThrows(IllegalArgumentException.class, () -> RewriteRule.regex("/(oops/", "/"));
+    assertThrows(IllegalArgumentException.class, () -> RewriteRule.regex("/ok/", "nope"));
+    assertThrows(IllegalArgumentException.class, () -> RewriteRule.template("{x}/", "/"));
+    assertThrows(IllegalArgumentException.class, () -> RewriteRule.template("/{x}", "/"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> RewriteRules.of(List.of(RewriteRule.template("/{x}/", "/{y}/")), "a."));
+  }
+
+  @Test
+  void noRulesIsNull() {
+    assertThat(RewriteRules.of(List.of(), "a.")).isNull();
+  }
+
+  @Test
+  void numberedBackReferencesAreRenumbered() {
+    var rules =
+        RewriteRules.of(
+            List.of(
+                RewriteRule.regex("/(x)(y)/", "/nope/"),
+                RewriteRule.regex("/(a)/\\1/", "/one/"),
+                RewriteRule.regex("/(?<p>b)/[(]\\Q(\\E\\10/", "/{p}/"),
+                RewriteRule.regex("/(c)/\\2/", "/never/")),
+            "a.");
+    assertThat(rules.rewrite("/a/a/x", request)).isEqualTo("/one/x");
+    assertThat(rules.rewrite("/a/b/x", request)).isNull();
+    assertThat(rules.rewrite("/b/((b0/x", request)).isEqualTo("/b/x");
+    assertThat(rules.rewrite("/c/c/x", request)).isNull();
+    assertThat(rules.rewrite("/c/x/x", request)).isNull();
+  }
+
+  @Test
+  void optionalGroupsAndSlashesAreHandled() {
+    var rules =
+        RewriteRules.of(
+            List.of(RewriteRule.regex("/api(?:/(?<version>v[0-9]+))?", "/{version}/x{")), "a.");
+    assertThat(rules.rewrite("/api/v1/ok", request)).isEqualTo("/v1/x{/ok");
+    request.removeAttribute("a.version");
+    assertThat(rules.rewrite("/api", request)).isEqualTo("//x{");
+    assertThat(request.getAttribute("a.version")).isNull();
+    var slashy = RewriteRules.of(List.of(RewriteRule.regex("/a", "/b/")), "a.");
+    assertThat(slashy.rewrite("/a/ok", request)).isEqualTo("/b/ok");
+    assertThat(slashy.rewrite("/aok", request)).isEqualTo("/b/ok");
+  }
+
+  @Test
+  void templateLiteralsAreQuoted() {
+    var rules = RewriteRules.of(List.of(RewriteRule.template("/a.b/{id}/", "/{id}/")), "a.");
+    assertThat(rules.rewrite("/a.b/1/ok", request)).isEqualTo("/1/ok");
+    assertThat(rules.rewrite("/axb/1/ok", request)).isNull();
+  }
+}